@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.vlachenal.sql.Clauses;
+import com.github.vlachenal.sql.SQL;
+import com.github.vlachenal.sql.SQLQuery;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.json.JsonArray;
+
+
+/**
+ * Customer search SQL request preparation benchmark.<br>
+ * Compares SQL request builder with precompiled {@link SearchQueries}. Run it with
+ * {@code ./gradlew jmh}: GC profiler reports allocated bytes per operation
+ * ({@code gc.alloc.rate.norm}). SQL request builder is not available on Maven Central:
+ * it has to be installed in the local Maven repository.
+ *
+ * @author Vincent Lachenal
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SearchQueriesBenchmark {
+
+  // Attributes +
+  /** Search request */
+  private SearchRequestDTO request;
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Initialize search request with two criteria and keyset
+   */
+  @Setup
+  public void setUp() {
+    request = new SearchRequestDTO();
+    request.setLastName("Norris");
+    request.setBornAfter(new Date());
+    request.setAfter(new CustomerDTO(UUID.randomUUID().toString(), "Chuck", "Norris"));
+  }
+
+  /**
+   * Build search request with SQL request builder
+   *
+   * @param hole the black hole
+   */
+  @Benchmark
+  public void builder(final Blackhole hole) {
+    final SQLQuery query = SQL.select().field("id").field("first_name").field("last_name")
+        .from("Customer")
+        .where(SQL.clauses("first_name", Clauses::like, request.getFirstName())
+               .and("last_name", Clauses::like, request.getLastName())
+               .and("email", Clauses::equalsTo, request.getEmail())
+               .and("birth_date", Clauses::equalsTo, request.getBirthDate())
+               .and("birth_date", Clauses::greaterEquals, request.getBornAfter())
+               .and("birth_date", Clauses::lesserEquals, request.getBornBefore()))
+        .build();
+    final String sql = "SELECT id,first_name,last_name FROM (" + query.getQuery()
+    + ") c WHERE (" + SearchQueries.NAME_ORDER + ") > (?,?,?) ORDER BY " + SearchQueries.NAME_ORDER + " LIMIT ?";
+    final JsonArray params = new JsonArray(query.getValues());
+    params.getList().add(request.getAfter().getLastName());
+    params.getList().add(request.getAfter().getFirstName());
+    params.getList().add(UUID.fromString(request.getAfter().getId()));
+    params.getList().add(101);
+    hole.consume(sql);
+    hole.consume(params);
+  }
+
+  /**
+   * Get precompiled search request
+   *
+   * @param hole the black hole
+   */
+  @Benchmark
+  public void precompiled(final Blackhole hole) {
+    final int shape = SearchQueries.shape(request);
+    hole.consume(SearchQueries.pageQuery(shape));
+    hole.consume(SearchQueries.pageParams(request, shape, 101));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+
+/**
+ * Customer snapshot LIKE search benchmark on one million customers with 100000 distinct last
+ * names.<br>
+ * Selective patterns, even with leading wildcard, only check rows of trigram candidate names.
+ * Patterns without trigram ({@code %1%}) check every name and scan every row.
+ *
+ * @author Vincent Lachenal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomerSnapshotBenchmark {
+
+  // Attributes +
+  /** Last name LIKE pattern */
+  @Param({ "Name1234%", "%12345%", "%345", "%1%" })
+  public String pattern;
+
+  /** Snapshot */
+  private CustomerSnapshot snapshot;
+
+  /** Search request */
+  private SearchRequestDTO request;
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Load snapshot
+   */
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42L);
+    final String[] firstNames = { "Chuck", "Bruce", "Steven", "Jean-Claude", "Dolph" };
+    snapshot = new CustomerSnapshot(1 << 20);
+    snapshot.startReload();
+    for(int i = 0 ; i < 1_000_000 ; ++i) {
+      snapshot.load(new UUID(random.nextLong(), random.nextLong()),
+                    firstNames[random.nextInt(firstNames.length)],
+                    "Name" + random.nextInt(100_000),
+                    null,
+                    CustomerSnapshot.toEpochDay(null));
+    }
+    snapshot.completeReload();
+    request = new SearchRequestDTO();
+    request.setLastName(pattern);
+  }
+
+  /**
+   * Search first page
+   *
+   * @return the page
+   */
+  @Benchmark
+  public List<CustomerDTO> search() {
+    return snapshot.search(request, 100);
+  }
+  // Methods -
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Launcher;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+
+
+/**
+ * Vert.x launcher which deploys one {@link MainVerticle} instance per event loop.<br>
+ * Instance count is read from {@code instances} configuration key. When it is not set,
+ * {@code -instances} command line option is used when greater than 1, otherwise it
+ * defaults to available processors count.<br>
+ * Native transport (epoll on Linux) is preferred when {@code http.nativeTransport} is set
+ * to {@code true}. NIO transport is used when native library can not be loaded.
+ *
+ * @author Vincent Lachenal
+ */
+public class BenchLauncher extends Launcher {
+
+  // Attributes +
+  /** {@link BenchLauncher} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(BenchLauncher.class);
+
+  /** Verticle configuration */
+  private JsonObject config;
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Application entry point
+   *
+   * @param args the command line arguments
+   */
+  public static void main(final String[] args) {
+    new BenchLauncher().dispatch(args);
+  }
+
+  /**
+   * Keep verticle configuration.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.Launcher#afterConfigParsed(io.vertx.core.json.JsonObject)
+   */
+  @Override
+  public void afterConfigParsed(final JsonObject config) {
+    this.config = config;
+  }
+
+  /**
+   * Check if native transport has been requested in configuration
+   *
+   * @return {@code true} if native transport should be used, {@code false} otherwise
+   */
+  private boolean isNativeTransportRequested() {
+    return config != null && config.getJsonObject("http", new JsonObject()).getBoolean("nativeTransport", false);
+  }
+
+  /**
+   * Prefer native transport if requested.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.Launcher#beforeStartingVertx(io.vertx.core.VertxOptions)
+   */
+  @Override
+  public void beforeStartingVertx(final VertxOptions options) {
+    if(isNativeTransportRequested()) {
+      options.setPreferNativeTransport(true);
+    }
+  }
+
+  /**
+   * Log transport which is in use.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.Launcher#afterStartingVertx(io.vertx.core.Vertx)
+   */
+  @Override
+  public void afterStartingVertx(final Vertx vertx) {
+    if(vertx.isNativeTransportEnabled()) {
+      LOG.info("Native transport is enabled");
+    } else if(isNativeTransportRequested()) {
+      LOG.warn("Native transport is not available, fall back to NIO");
+    }
+  }
+
+  /**
+   * Set the number of verticle instances to deploy.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.Launcher#beforeDeployingVerticle(io.vertx.core.DeploymentOptions)
+   */
+  @Override
+  public void beforeDeployingVerticle(final DeploymentOptions deploymentOptions) {
+    int instances = deploymentOptions.getInstances();
+    if(instances <= 1) {
+      instances = Runtime.getRuntime().availableProcessors();
+    }
+    if(config != null) {
+      instances = config.getInteger("instances", instances);
+    }
+    deploymentOptions.setInstances(instances);
+    LOG.info("Deploy {} verticle instance(s)", instances);
+  }
+  // Methods -
+
+}
@@ -6,34 +6,76 @@
  */
 package com.github.vlachenal.webservices.vertx.bench;
 
-import java.time.ZonedDateTime;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.vlachenal.webservices.vertx.bench.business.CustomerBusiness;
+import com.github.vlachenal.webservices.vertx.bench.cache.CacheStats;
+import com.github.vlachenal.webservices.vertx.bench.cache.ExistenceFilter;
+import com.github.vlachenal.webservices.vertx.bench.cache.ResponseCache;
+import com.github.vlachenal.webservices.vertx.bench.cache.SingleFlight;
+import com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion;
+import com.github.vlachenal.webservices.vertx.bench.dao.CopyInStream;
+import com.github.vlachenal.webservices.vertx.bench.dao.CopyOutStream;
+import com.github.vlachenal.webservices.vertx.bench.dao.CopyTable;
 import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
+import com.github.vlachenal.webservices.vertx.bench.dao.PipelinedSQLClient;
+import com.github.vlachenal.webservices.vertx.bench.dao.SQLCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.SchemaBootstrap;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+import com.github.vlachenal.webservices.vertx.bench.dao.snapshot.CustomerSnapshot;
+import com.github.vlachenal.webservices.vertx.bench.dao.snapshot.SnapshotCustomerDAO;
 import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
 import com.github.vlachenal.webservices.vertx.bench.dto.ErrorResponseDTO;
 import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchResultDTO;
 import com.github.vlachenal.webservices.vertx.bench.errors.ClientException;
+import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
 
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.Log4J2LoggerFactory;
 import io.vertx.core.AbstractVerticle;
-import io.vertx.core.Context;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
-import io.vertx.core.Vertx;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.PemKeyCertOptions;
+import io.vertx.core.streams.Pipe;
+import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.asyncsql.PostgreSQLClient;
 import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.api.contract.RouterFactoryOptions;
 import io.vertx.ext.web.api.contract.openapi3.OpenAPI3RouterFactory;
+import io.vertx.ext.web.api.validation.ValidationException;
 
 
 /**
@@ -50,8 +92,95 @@ public class MainVerticle extends AbstractVerticle {
   /** MySQL and PostgreSQL date format ... */
   private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+  /** Default storage */
+  private static final String DEFAULT_STORAGE = "sql";
+
+  /** Default HTTP port */
+  private static final int DEFAULT_PORT = 8080;
+
+  /** Page token query parameter */
+  private static final String PAGE_TOKEN_PARAM = "page_token";
+
+  /** Default search page size */
+  private static final int DEFAULT_PAGE_SIZE = 100;
+
+  /** Default maximum search page size */
+  private static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
+  /** Default maximum concurrent streams per HTTP/2 connection */
+  private static final long DEFAULT_MAX_CONCURRENT_STREAMS = 1000L;
+
+  /** Default maximum number of coalesced customer insertions */
+  private static final int DEFAULT_COALESCING_MAX_SIZE = 64;
+
+  /** Default maximum customer insertion delay when coalescing is enabled (ms) */
+  private static final long DEFAULT_COALESCING_MAX_DELAY = 2L;
+
+  /** Default maximum number of customers inserted in a single transaction by batch creation */
+  private static final int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+
+  /** Default maximum number of customers per batch creation */
+  private static final int DEFAULT_MAX_BATCH_SIZE = 100000;
+
+  /** Default maximum number of cached customers when cache is enabled */
+  private static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+
+  /** Default cached customers time to live when cache is enabled (ms) */
+  private static final long DEFAULT_CACHE_TTL = 60000L;
+
+  /** Default maximum number of cached search results when cache is enabled */
+  private static final int DEFAULT_SEARCH_CACHE_MAX_SIZE = 1000;
+
+  /** Default search results maximum staleness when cache is enabled (ms) */
+  private static final long DEFAULT_SEARCH_CACHE_MAX_STALENESS = 1000L;
+
+  /** Default maximum size of cached responses when cache is enabled (bytes) */
+  private static final long DEFAULT_RESPONSE_CACHE_MAX_BYTES = 64L * 1024L * 1024L;
+
+  /** Default minimum number of customer identifiers in existence filter when filter is enabled */
+  private static final long DEFAULT_EXISTENCE_EXPECTED_INSERTIONS = 1000000L;
+
+  /** Default existence filter false positive probability when filter is enabled */
+  private static final double DEFAULT_EXISTENCE_FPP = 0.01;
+
+  /** Default existence filter rebuild period when filter is enabled (ms) */
+  private static final long DEFAULT_EXISTENCE_REBUILD_PERIOD = 300000L;
+
+  /** Default search snapshot initial capacity when snapshot is enabled (customers) */
+  private static final int DEFAULT_SNAPSHOT_INITIAL_CAPACITY = 1 << 20;
+
+  /** Default search snapshot reload period when snapshot is enabled (ms) */
+  private static final long DEFAULT_SNAPSHOT_RELOAD_PERIOD = 3600000L;
+
+  /** Default PostgreSQL invalidation channel when remote invalidation is enabled */
+  private static final String DEFAULT_INVALIDATION_CHANNEL = "customers_invalidate";
+
+  /** Default minimum export chunk size (bytes) */
+  private static final int DEFAULT_EXPORT_CHUNK_SIZE = 64 * 1024;
+
+  /** SQL client */
+  private SQLClient client;
+
+  /** SQL customer DAO ({@code null} when customers are stored in memory) */
+  private SQLCustomerDAO customerDAO;
+
+  /** Snapshot customer DAO ({@code null} when search snapshot is disabled) */
+  private SnapshotCustomerDAO snapshotDAO;
+
   /** Customer business */
   private CustomerBusiness customer;
+
+  /** Customer identifiers existence filter ({@code null} when filter is disabled) */
+  private ExistenceFilter existence;
+
+  /** Responses cache ({@code null} when cache is disabled) */
+  private ResponseCache responses;
+
+  /** In-flight searches by request key ({@code null} when read coalescing is disabled) */
+  private SingleFlight<String, SearchResultDTO> searches;
+
+  /** In-flight encoded customer details by path ({@code null} when read coalescing is disabled) */
+  private SingleFlight<String, Buffer> details;
   // Attributes -
 
 
@@ -67,6 +196,8 @@ public class MainVerticle extends AbstractVerticle {
     ErrorResponseDTO error = null;
     if(context.failure() instanceof ClientException) {
       error = new ErrorResponseDTO((ClientException)context.failure());
+    } else if(context.failure() instanceof ValidationException) {
+      error = new ErrorResponseDTO(new InvalidParametersException(context.failure().getMessage()));
     } else {
       error = new ErrorResponseDTO();
       error.setCode(500);
@@ -76,6 +207,90 @@ public class MainVerticle extends AbstractVerticle {
     context.response().setStatusCode(error.getCode()).end(Json.encode(error));
   }
 
+  /**
+   * Parse date parameter
+   *
+   * @param context the routing context
+   * @param name the parameter name
+   *
+   * @return the date, {@code null} if parameter is not set
+   *
+   * @throws InvalidParametersException invalid date format
+   */
+  private static Date getDateParam(final RoutingContext context, final String name) throws InvalidParametersException {
+    final String value = context.request().getParam(name);
+    if(value == null) {
+      return null;
+    }
+    try {
+      return Dates.toDate(DATE_FORMAT.parse(value, LocalDate::from));
+    } catch(final DateTimeParseException e) {
+      throw new InvalidParametersException(name + " is not a date: " + value);
+    }
+  }
+
+  /**
+   * Build next page link.<br>
+   * Every request query parameter is kept except page token which is replaced by next page's one.
+   *
+   * @param context the routing context
+   * @param pageToken the next page token
+   *
+   * @return the link header value
+   */
+  private static String getNextPageLink(final RoutingContext context, final String pageToken) {
+    final StringBuilder link = new StringBuilder("<").append(context.request().path()).append('?');
+    context.request().params().forEach(param -> {
+      if(!PAGE_TOKEN_PARAM.equals(param.getKey())) {
+        link.append(param.getKey()).append('=').append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8)).append('&');
+      }
+    });
+    return link.append(PAGE_TOKEN_PARAM).append('=').append(pageToken).append(">; rel=\"next\"").toString();
+  }
+
+  /**
+   * Build search key: identical searches have the same key whatever their parameters order
+   *
+   * @param req the search request
+   * @param pageToken the page token
+   *
+   * @return the key
+   */
+  private static String getSearchKey(final SearchRequestDTO req, final String pageToken) {
+    final StringBuilder key = new StringBuilder();
+    for(final Object param : Arrays.asList(req.getFirstName(), req.getLastName(), req.getEmail(), req.getBirthDate(),
+                                           req.getBornBefore(), req.getBornAfter(), req.getMode(), req.getPageSize(), pageToken)) {
+      key.append(param instanceof Date ? ((Date)param).getTime() : param).append('\u0000');
+    }
+    return key.toString();
+  }
+
+  /**
+   * Write customers page into response as a chunked JSON array.<br>
+   * Customers are encoded one by one from {@code index} and writing is suspended while
+   * response write queue is full: a page is never encoded in a single buffer and a slow
+   * client does not make encoded customers pile up in memory.
+   *
+   * @param response the HTTP response
+   * @param customers the customers page
+   * @param index the first customer to write
+   */
+  private static void writeCustomers(final HttpServerResponse response, final List<CustomerDTO> customers, final int index) {
+    for(int i = index ; i < customers.size() ; ++i) {
+      if(response.closed()) {
+        LOG.debug("Client has closed connection during findCustomers");
+        return;
+      }
+      if(response.writeQueueFull()) {
+        final int next = i;
+        response.drainHandler(v -> writeCustomers(response, customers, next));
+        return;
+      }
+      response.write(Buffer.buffer(i == 0 ? "[" : ",").appendBuffer(Json.encodeToBuffer(customers.get(i))));
+    }
+    response.end("]");
+  }
+
   /**
    * Find customer handler
    *
@@ -86,68 +301,634 @@ public class MainVerticle extends AbstractVerticle {
     final SearchRequestDTO req = new SearchRequestDTO();
     req.setFirstName(context.request().getParam("first_name"));
     req.setLastName(context.request().getParam("last_name"));
-    final String birthDate = context.request().getParam("birth_name");
-    if(birthDate != null) {
-      req.setBirthDate(java.util.Date.from(DATE_FORMAT.parse(birthDate, ZonedDateTime::from).toInstant()));
+    req.setEmail(context.request().getParam("email"));
+    req.setBirthDate(getDateParam(context, "birth_date"));
+    req.setBornBefore(getDateParam(context, "born_before"));
+    req.setBornAfter(getDateParam(context, "born_after"));
+    final String mode = context.request().getParam("search_mode");
+    if(mode != null) {
+      try {
+        req.setMode(SearchRequestDTO.Mode.valueOf(mode.toUpperCase(Locale.ROOT)));
+      } catch(final IllegalArgumentException e) {
+        throw new InvalidParametersException("search_mode is not like, fuzzy or fulltext: " + mode);
+      }
+    }
+    final String pageSize = context.request().getParam("page_size");
+    if(pageSize != null) {
+      try {
+        req.setPageSize(Integer.valueOf(pageSize));
+      } catch(final NumberFormatException e) {
+        throw new InvalidParametersException("page_size is not an integer: " + pageSize);
+      }
     }
-    customer.search(new SearchRequestDTO(), res -> {
+    final String pageToken = context.request().getParam(PAGE_TOKEN_PARAM);
+    final Handler<AsyncResult<SearchResultDTO>> handler = res -> {
       LOG.debug("Manage find customers result! {}", res);
-      if(res.succeeded()) {
-        final List<CustomerDTO> customers = res.result();
-        if(customers == null || customers.isEmpty()) {
-          final ErrorResponseDTO error = new ErrorResponseDTO();
-          error.setCode(404);
-          error.setStatus("NOT_FOUND");
-          error.setMessage("No customer has been found");
-          context.response().setStatusCode(404)
-          .putHeader("Content-Type", "application/json")
-          .end(Json.encode(error));
-        } else {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      final SearchResultDTO page = res.result();
+      if(page.getCustomers().isEmpty()) {
+        context.fail(new NotFoundException("No customer has been found"));
+        return;
+      }
+      if(page.getNextPageToken() != null) {
+        context.response().putHeader("Link", getNextPageLink(context, page.getNextPageToken()));
+      }
+      context.response().setStatusCode(200).setChunked(true)
+      .putHeader("Content-Type", "application/json");
+      writeCustomers(context.response(), page.getCustomers(), 0);
+    };
+    if(searches == null) {
+      customer.search(req, pageToken, handler);
+    } else {
+      searches.execute(getSearchKey(req, pageToken), searched -> customer.search(req, pageToken, searched), handler);
+    }
+    LOG.debug("Exit findCustomers");
+  }
+
+  /**
+   * Create customers handler
+   *
+   * @param context the routing context
+   */
+  private void createCustomers(final RoutingContext context) {
+    LOG.debug("Enter in createCustomers");
+    final List<CustomerDTO> customers;
+    try {
+      customers = Json.decodeValue(context.getBody(), new TypeReference<List<CustomerDTO>>() {});
+    } catch(final DecodeException e) {
+      throw new InvalidParametersException("Invalid customers: " + e.getMessage());
+    }
+    customer.createBatch(customers, res -> {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      context.response().setStatusCode(200)
+      .putHeader("Content-Type", "application/json")
+      .end(Json.encodeToBuffer(res.result()));
+    });
+    LOG.debug("Exit createCustomers");
+  }
+
+  /**
+   * Get customer handler
+   *
+   * @param context the routing context
+   */
+  private void getCustomer(final RoutingContext context) {
+    LOG.debug("Enter in getCustomer");
+    final String key = context.request().path();
+    if(responses != null && responses.write(key, context.request(), context.response())) {
+      LOG.debug("Exit getCustomer");
+      return;
+    }
+    final long version = responses == null ? 0L : responses.version();
+    final Consumer<Handler<AsyncResult<Buffer>>> call = encoded -> customer.getDetails(context.pathParam("customerId"), res -> {
+      encoded.handle(res.map(cust -> {
+        final Buffer body = Json.encodeToBuffer(cust);
+        if(responses != null) {
+          responses.put(cust.getId(), key, body, version);
+        }
+        return body;
+      }));
+    });
+    final Handler<AsyncResult<Buffer>> handler = res -> {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      context.response().setStatusCode(200)
+      .putHeader("Content-Type", "application/json")
+      .end(res.result());
+    };
+    if(details == null) {
+      call.accept(handler);
+    } else {
+      details.execute(key, call, handler);
+    }
+    LOG.debug("Exit getCustomer");
+  }
+
+  /**
+   * Delete customer handler
+   *
+   * @param context the routing context
+   */
+  private void deleteCustomer(final RoutingContext context) {
+    LOG.debug("Enter in deleteCustomer");
+    customer.delete(context.pathParam("customerId"), res -> {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      context.response().setStatusCode(204).end();
+    });
+    LOG.debug("Exit deleteCustomer");
+  }
+
+  /**
+   * Cache counters handler.<br>
+   * Existence filter counters are reported under {@code existence} when filter is enabled.
+   *
+   * @param context the routing context
+   */
+  private void getCacheStats(final RoutingContext context) {
+    final JsonObject stats = CacheStats.toJson(vertx);
+    if(existence != null) {
+      stats.put("existence", existence.toJson());
+    }
+    if(snapshotDAO != null) {
+      stats.put("snapshot", snapshotDAO.getSnapshot().toJson());
+    }
+    context.response().setStatusCode(200)
+    .putHeader("Content-Type", "application/json")
+    .end(stats.toBuffer());
+  }
+
+  /**
+   * Delete all customers handler.<br>
+   * Response is sent once database is ready for a new benchmark round.
+   *
+   * @param context the routing context
+   */
+  private void deleteCustomers(final RoutingContext context) {
+    LOG.debug("Enter in deleteCustomers");
+    customer.deleteAll(res -> {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      context.response().setStatusCode(204).end();
+    });
+    LOG.debug("Exit deleteCustomers");
+  }
+
+  /**
+   * Create customer handler
+   *
+   * @param context the routing context
+   */
+  private void createCustomer(final RoutingContext context) {
+    LOG.debug("Enter in createCustomer");
+    final CustomerDTO cust;
+    try {
+      cust = Json.decodeValue(context.getBody(), CustomerDTO.class);
+    } catch(final DecodeException e) {
+      throw new InvalidParametersException("Invalid customer: " + e.getMessage());
+    }
+    customer.create(cust, res -> {
+      if(res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      cust.setId(res.result());
+      context.response().setStatusCode(201)
+      .putHeader("Content-Type", "application/json")
+      .putHeader("Location", context.request().path() + '/' + res.result())
+      .end(Json.encodeToBuffer(cust));
+    });
+    LOG.debug("Exit createCustomer");
+  }
+
+  /**
+   * Import CSV handler.<br>
+   * Request body is streamed to database through COPY FROM STDIN: request is paused while
+   * database has not consumed previous data, so upload is never buffered in memory. Rows
+   * are committed only if the whole body has been copied.
+   *
+   * @param context the routing context
+   */
+  private void importTable(final RoutingContext context) {
+    LOG.debug("Enter in importTable");
+    final CopyTable table = CopyTable.fromResource(context.pathParam("table"));
+    if(table == null) {
+      throw new NotFoundException("Unknown import table: " + context.pathParam("table"));
+    }
+    final boolean header = Boolean.parseBoolean(context.request().getParam("header"));
+    final long start = System.nanoTime();
+    final Pipe<Buffer> pipe = context.request().pipe();
+    CopyInStream.open(vertx, getDatabaseConfig(), table.copyIn(header), open -> {
+      if(open.failed()) {
+        pipe.close();
+        context.fail(open.cause());
+        return;
+      }
+      final CopyInStream copy = open.result();
+      pipe.endOnSuccess(false).endOnFailure(false).to(copy, res -> {
+        if(res.failed()) {
+          copy.cancel();
+          context.fail(res.cause());
+          return;
+        }
+        copy.end(end -> {
+          if(end.failed()) {
+            context.fail(end.cause());
+            return;
+          }
+          // Imported rows may change any cached search or customer
+          WriteVersion.shared(vertx, "customer").bump();
+          customer.invalidate(null);
+          if(table == CopyTable.CUSTOMERS) {
+            customerDAO.resetExistenceFilter(rebuilt -> {});
+            if(snapshotDAO != null) {
+              snapshotDAO.reload(reloaded -> {});
+            }
+          }
+          final long duration = (System.nanoTime() - start) / 1000000L;
+          final long rowsPerSecond = copy.getRowCount() * 1000L / Math.max(1L, duration);
+          LOG.info("{} rows have been imported into {} in {}ms ({} rows/s)", copy.getRowCount(), table.getTable(), duration, rowsPerSecond);
           context.response().setStatusCode(200)
           .putHeader("Content-Type", "application/json")
-          .end(Json.encode(customers));
+          .end(new JsonObject()
+               .put("table", table.getResource())
+               .put("rows", copy.getRowCount())
+               .put("duration_ms", duration)
+               .put("rows_per_second", rowsPerSecond).toBuffer());
+        });
+      });
+    });
+    LOG.debug("Exit importTable");
+  }
+
+  /**
+   * Export customers handler.<br>
+   * Database COPY output is streamed to response as CSV ({@code format=csv}, default) or
+   * newline delimited JSON ({@code format=ndjson}): database is read only as fast as client
+   * consumes response. Address and phones are exported when {@code details=true}.
+   *
+   * @param context the routing context
+   */
+  private void exportCustomers(final RoutingContext context) {
+    LOG.debug("Enter in exportCustomers");
+    final String format = context.request().getParam("format");
+    final boolean json;
+    if(format == null || "csv".equals(format)) {
+      json = false;
+    } else if("ndjson".equals(format)) {
+      json = true;
+    } else {
+      throw new InvalidParametersException("Unsupported export format: " + format);
+    }
+    final String sql = SQLCustomerDAO.exportRequest(json,
+                                                    Boolean.parseBoolean(context.request().getParam("details")),
+                                                    Boolean.parseBoolean(context.request().getParam("header")));
+    final int chunkSize = config().getJsonObject("export", new JsonObject()).getInteger("chunkSize", DEFAULT_EXPORT_CHUNK_SIZE);
+    final long start = System.nanoTime();
+    CopyOutStream.open(vertx, getDatabaseConfig(), sql, chunkSize, open -> {
+      if(open.failed()) {
+        context.fail(open.cause());
+        return;
+      }
+      final CopyOutStream copy = open.result();
+      final HttpServerResponse response = context.response();
+      response.closeHandler(v -> copy.close(res -> LOG.debug("Export has been interrupted by client")));
+      response.setStatusCode(200)
+      .putHeader("Content-Type", json ? "application/x-ndjson" : "text/csv")
+      .setChunked(true);
+      copy.pipe().endOnFailure(false).to(response, res -> {
+        if(res.failed()) {
+          LOG.error("Export failure: " + res.cause().getMessage(), res.cause());
+          // Response is partial: client must not consider it as complete
+          response.reset();
+          return;
+        }
+        final long duration = (System.nanoTime() - start) / 1000000L;
+        LOG.info("{} customer rows have been exported in {}ms ({} rows/s)",
+                 copy.getRowCount(), duration, copy.getRowCount() * 1000L / Math.max(1L, duration));
+      });
+    });
+    LOG.debug("Exit exportCustomers");
+  }
+
+  /**
+   * Get database configuration.<br>
+   * Default values are used for each missing key of {@code db} configuration object.
+   *
+   * @return the database configuration
+   */
+  private JsonObject getDatabaseConfig() {
+    return new JsonObject()
+        .put("host", "localhost")
+        .put("port", 5432)
+        .put("database", "apibenchmark")
+        .put("username", "apibenchmark")
+        .put("password", "apibenchmark")
+        .mergeIn(config().getJsonObject("db", new JsonObject()));
+  }
+
+  /**
+   * Bootstrap database schema.<br>
+   * Only the first deployed instance executes bootstrap requests. HTTP server does not wait
+   * for them: they only create optional objects such as indexes.
+   */
+  private void bootstrapSchema() {
+    final LocalMap<String, Boolean> flags = vertx.sharedData().getLocalMap(MainVerticle.class.getName());
+    if(flags.putIfAbsent("schemaBootstrap", Boolean.TRUE) == null) {
+      new SchemaBootstrap(client).bootstrap(res -> LOG.info("Database schema bootstrap is over"));
+    }
+  }
+
+  /**
+   * Build customer existence filter and rebuild it periodically to forget deleted customers.<br>
+   * Filter is shared between instances: only the first deployed instance rebuilds it.
+   *
+   * @param period the rebuild period (ms)
+   */
+  private void scheduleExistenceFilterRebuild(final long period) {
+    final LocalMap<String, Boolean> flags = vertx.sharedData().getLocalMap(MainVerticle.class.getName());
+    if(flags.putIfAbsent("existenceFilterRebuild", Boolean.TRUE) == null) {
+      customerDAO.rebuildExistenceFilter(res -> {});
+      vertx.setPeriodic(period, timer -> customerDAO.rebuildExistenceFilter(res -> {}));
+    }
+  }
+
+  /**
+   * Get process origin: it is shared by every verticle instance
+   *
+   * @return the origin
+   */
+  private String getProcessOrigin() {
+    final LocalMap<String, String> flags = vertx.sharedData().getLocalMap(MainVerticle.class.getName() + ".origin");
+    final String origin = UUID.randomUUID().toString();
+    final String existing = flags.putIfAbsent("origin", origin);
+    return existing == null ? origin : existing;
+  }
+
+  /**
+   * Listen to other processes writes.<br>
+   * Only the first deployed instance listens: writes are forwarded to every instance through
+   * {@link CustomerBusiness#INVALIDATION_ADDRESS}. Customer table write version is incremented
+   * and customer existence filter and search snapshot are updated.
+   *
+   * @param channel the invalidation channel
+   */
+  private void listenInvalidations(final InvalidationChannel channel) {
+    final LocalMap<String, Boolean> flags = vertx.sharedData().getLocalMap(MainVerticle.class.getName());
+    if(flags.putIfAbsent("invalidationListener", Boolean.TRUE) != null) {
+      return;
+    }
+    final WriteVersion customerWrites = WriteVersion.shared(vertx, "customer");
+    channel.listen(vertx, PipelinedSQLClient.connectOptions(getDatabaseConfig()), (table, customerId) -> {
+      LOG.debug("{} {} has been written by another process", table, customerId);
+      customerWrites.bump();
+      if(table == null || InvalidationChannel.CUSTOMER.equals(table)) {
+        if(existence != null) {
+          if(customerId == null) {
+            customerDAO.resetExistenceFilter(res -> {});
+          } else {
+            // Customer may have been created
+            existence.add(customerId);
+          }
+        }
+        if(snapshotDAO != null) {
+          if(customerId == null) {
+            snapshotDAO.reload(res -> {});
+          } else {
+            snapshotDAO.refresh(customerId);
+          }
         }
-      } else {
-        context.fail(new ClientException(500, "INTERNAL_SERVER_ERROR", "plop"));
       }
+      vertx.eventBus().publish(CustomerBusiness.INVALIDATION_ADDRESS, Objects.toString(customerId, null));
     });
-    LOG.debug("Exit findCustomers");
   }
 
   /**
-   * Initialize SQL client, DAOs and businesses instances.<br>
-   * {@inheritDoc}
+   * Create HTTP server options from {@code http} configuration object.<br>
+   * Socket options which are only supported by native transport ({@code reusePort},
+   * {@code tcpQuickAck} and {@code tcpFastOpen}) are ignored with NIO transport.
    *
-   * @see io.vertx.core.AbstractVerticle#init(io.vertx.core.Vertx, io.vertx.core.Context)
+   * @return the HTTP server options
    */
-  @Override
-  public void init(final Vertx vertx, final Context context) {
-    super.init(vertx, context);
+  private HttpServerOptions createServerOptions() {
+    final JsonObject conf = config().getJsonObject("http", new JsonObject());
+    final HttpServerOptions options = new HttpServerOptions()
+        .setPort(conf.getInteger("port", DEFAULT_PORT))
+        .setTcpNoDelay(conf.getBoolean("tcpNoDelay", true))
+        .setAcceptBacklog(conf.getInteger("acceptBacklog", -1));
+    if(vertx.isNativeTransportEnabled()) {
+      options.setReusePort(conf.getBoolean("reusePort", false))
+      .setTcpQuickAck(conf.getBoolean("tcpQuickAck", false))
+      .setTcpFastOpen(conf.getBoolean("tcpFastOpen", false));
+    } else if(conf.containsKey("reusePort") || conf.containsKey("tcpQuickAck") || conf.containsKey("tcpFastOpen")) {
+      LOG.warn("Native transport is not enabled: reusePort, tcpQuickAck and tcpFastOpen are ignored");
+    }
+    configureHttp2(options, conf.getJsonObject("http2", new JsonObject()), conf.getJsonObject("ssl"));
+    return options;
+  }
+
+  /**
+   * Configure HTTP/2 settings.<br>
+   * Without TLS, HTTP/2 is available through clear text upgrade and prior knowledge (h2c).
+   * With TLS, HTTP/2 and HTTP/1.1 are negociated through ALPN.
+   *
+   * @param options the HTTP server options
+   * @param conf the HTTP/2 configuration
+   * @param ssl the TLS configuration ({@code null} when TLS is disabled)
+   */
+  private static void configureHttp2(final HttpServerOptions options, final JsonObject conf, final JsonObject ssl) {
+    options.setInitialSettings(new Http2Settings()
+                               .setMaxConcurrentStreams(conf.getLong("maxConcurrentStreams", DEFAULT_MAX_CONCURRENT_STREAMS))
+                               .setInitialWindowSize(conf.getInteger("initialWindowSize", Http2Settings.DEFAULT_INITIAL_WINDOW_SIZE)))
+    .setHttp2ConnectionWindowSize(conf.getInteger("connectionWindowSize", HttpServerOptions.DEFAULT_HTTP2_CONNECTION_WINDOW_SIZE));
+    if(ssl != null) {
+      options.setSsl(true).setUseAlpn(true).setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1));
+      if(ssl.containsKey("keyStore")) {
+        options.setKeyStoreOptions(new JksOptions().setPath(ssl.getString("keyStore"))
+                                   .setPassword(ssl.getString("keyStorePassword")));
+      } else {
+        options.setPemKeyCertOptions(new PemKeyCertOptions().setKeyPath(ssl.getString("keyPath"))
+                                     .setCertPath(ssl.getString("certPath")));
+      }
+    }
+  }
+
+  /**
+   * Create SQL client according to {@code db.client} configuration key.<br>
+   * {@code async} (default) uses asynchronous PostgreSQL client. {@code reactive} uses
+   * reactive PostgreSQL client with pipelined connections and prepared statements cache.
+   * Each verticle instance has its own connections bound to its event loop.
+   *
+   * @param destination the destination result
+   */
+  private void createClient(final Handler<AsyncResult<SQLClient>> destination) {
 //    final JDBCClient client = JDBCClient.createShared(vertx, new JsonObject()
 //                                                      .put("url", "jdbc:postgresql://localhost:5432/apibenchmark")
 //                                                      .put("user", "apibenchmark")
 //                                                      .put("password", "apibenchmark")
 //                                                      .put("driver_class", "org.postgresql.Driver"),
 //              "ApiBenchmark");
-    final SQLClient client = PostgreSQLClient.createShared(vertx, new JsonObject()
-                                                           .put("host", "localhost")
-                                                           .put("port", 5432)
-                                                           .put("database", "apibenchmark")
-                                                           .put("username", "apibenchmark")
-                                                           .put("password", "apibenchmark"),
-        "ApiBenchmark");
-    customer = new CustomerBusiness(new CustomerDAO(client));
+    final JsonObject dbConf = getDatabaseConfig();
+    final String backend = dbConf.getString("client", "async");
+    switch(backend) {
+      case "async":
+        destination.handle(Future.succeededFuture(PostgreSQLClient.createNonShared(vertx, dbConf)));
+        break;
+      case "reactive":
+        PipelinedSQLClient.create(vertx, dbConf, destination);
+        break;
+      default:
+        destination.handle(Future.failedFuture(new IllegalArgumentException("Unsupported database client: " + backend)));
+    }
   }
 
   /**
-   * Parse OAS 3.0 YAML file to create router and start HTTP server with it.<br>
+   * Load search snapshot and reload it periodically to drop deleted customers.<br>
+   * Snapshot is shared between instances: only the first deployed instance loads it.
+   *
+   * @param period the reload period (ms)
+   */
+  private void scheduleSnapshotReload(final long period) {
+    final LocalMap<String, Boolean> flags = vertx.sharedData().getLocalMap(MainVerticle.class.getName());
+    if(flags.putIfAbsent("snapshotReload", Boolean.TRUE) == null) {
+      snapshotDAO.reload(res -> {});
+      vertx.setPeriodic(period, timer -> snapshotDAO.reload(res -> {}));
+    }
+  }
+
+  /**
+   * Initialize SQL DAOs: insertions coalescing, customer existence filter and search
+   * snapshot are enabled according to configuration
+   *
+   * @return the customer DAO to use
+   */
+  private CustomerDAO initSQLDAOs() {
+    customerDAO = new SQLCustomerDAO(client);
+    final JsonObject coalescing = config().getJsonObject("db", new JsonObject()).getJsonObject("insertCoalescing");
+    if(coalescing != null) {
+      customerDAO.enableInsertCoalescing(vertx,
+                                         coalescing.getInteger("maxSize", DEFAULT_COALESCING_MAX_SIZE),
+                                         coalescing.getLong("maxDelay", DEFAULT_COALESCING_MAX_DELAY));
+    }
+    final JsonObject existenceConf = config().getJsonObject("cache", new JsonObject()).getJsonObject("existence");
+    if(existenceConf != null) {
+      existence = ExistenceFilter.shared(vertx, "customer",
+                                         existenceConf.getLong("expectedInsertions", DEFAULT_EXISTENCE_EXPECTED_INSERTIONS),
+                                         existenceConf.getDouble("fpp", DEFAULT_EXISTENCE_FPP));
+      customerDAO.enableExistenceFilter(existence);
+      scheduleExistenceFilterRebuild(existenceConf.getLong("rebuildPeriod", DEFAULT_EXISTENCE_REBUILD_PERIOD));
+    }
+    final JsonObject snapshotConf = config().getJsonObject("search", new JsonObject()).getJsonObject("snapshot");
+    if(snapshotConf == null) {
+      return customerDAO;
+    }
+    snapshotDAO = new SnapshotCustomerDAO(client, customerDAO,
+                                          CustomerSnapshot.shared(vertx, "customer",
+                                                                  snapshotConf.getInteger("initialCapacity", DEFAULT_SNAPSHOT_INITIAL_CAPACITY)));
+    scheduleSnapshotReload(snapshotConf.getLong("reloadPeriod", DEFAULT_SNAPSHOT_RELOAD_PERIOD));
+    return snapshotDAO;
+  }
+
+  /**
+   * Enable cross process invalidation when it is configured (SQL storage only)
+   */
+  private void initInvalidationChannel() {
+    final JsonObject invalidation = config().getJsonObject("cache", new JsonObject()).getJsonObject("invalidation");
+    if(invalidation != null) {
+      final InvalidationChannel channel = new InvalidationChannel(client,
+                                                                  invalidation.getString("channel", DEFAULT_INVALIDATION_CHANNEL),
+                                                                  getProcessOrigin());
+      customer.enableRemoteInvalidation(channel);
+      listenInvalidations(channel);
+    }
+  }
+
+  /**
+   * Initialize businesses instances
+   *
+   * @param dao the customer DAO to use
+   */
+  private void initBusinesses(final CustomerDAO dao) {
+    final WriteVersion customerWrites = WriteVersion.shared(vertx, "customer");
+    dao.trackWrites(customerWrites);
+    final JsonObject search = config().getJsonObject("search", new JsonObject());
+    final JsonObject batch = config().getJsonObject("batch", new JsonObject());
+    customer = new CustomerBusiness(dao,
+                                    search.getInteger("defaultPageSize", DEFAULT_PAGE_SIZE),
+                                    search.getInteger("maxPageSize", DEFAULT_MAX_PAGE_SIZE),
+                                    batch.getInteger("chunkSize", DEFAULT_BATCH_CHUNK_SIZE),
+                                    batch.getInteger("maxSize", DEFAULT_MAX_BATCH_SIZE));
+    if(config().getBoolean("readCoalescing", true)) {
+      searches = new SingleFlight<>();
+      details = new SingleFlight<>();
+    }
+    final JsonObject caches = config().getJsonObject("cache", new JsonObject());
+    final JsonObject cache = caches.getJsonObject("customers");
+    if(cache != null) {
+      customer.enableDetailsCache(vertx,
+                                  cache.getInteger("maxSize", DEFAULT_CACHE_MAX_SIZE),
+                                  cache.getLong("ttl", DEFAULT_CACHE_TTL));
+    }
+    final JsonObject searchCache = caches.getJsonObject("searches");
+    if(searchCache != null) {
+      customer.enableSearchCache(vertx,
+                                 searchCache.getInteger("maxSize", DEFAULT_SEARCH_CACHE_MAX_SIZE),
+                                 searchCache.getLong("maxStaleness", DEFAULT_SEARCH_CACHE_MAX_STALENESS),
+                                 customerWrites);
+    }
+    final JsonObject responseCache = caches.getJsonObject("responses");
+    if(responseCache != null) {
+      final ResponseCache cached = new ResponseCache(responseCache.getLong("maxBytes", DEFAULT_RESPONSE_CACHE_MAX_BYTES),
+                                                     responseCache.getBoolean("compress", false),
+                                                     CacheStats.shared(vertx, "responses"));
+      customer.addInvalidationHandler(vertx, customerId -> {
+        if(customerId == null) {
+          cached.clear();
+        } else {
+          cached.invalidate(customerId.toString());
+        }
+      });
+      responses = cached;
+    }
+  }
+
+  /**
+   * Create DAOs and businesses according to {@code storage} configuration key, then start
+   * HTTP server.<br>
+   * {@code sql} (default) creates SQL client and SQL DAOs. {@code memory} stores customers in
+   * memory, shared by every verticle instance: there is no database, so imports, exports,
+   * existence filter and cross process invalidation are not available.<br>
    * {@inheritDoc}
    *
-   * @see io.vertx.core.AbstractVerticle#start(io.vertx.core.Future)
+   * @see io.vertx.core.AbstractVerticle#start(io.vertx.core.Promise)
    */
   @Override
-  public void start(final Future<Void> startFuture) throws Exception {
+  public void start(final Promise<Void> startPromise) throws Exception {
     InternalLoggerFactory.setDefaultFactory(Log4J2LoggerFactory.INSTANCE);
+    final String storage = config().getString("storage", DEFAULT_STORAGE);
+    switch(storage) {
+      case "sql":
+        createClient(res -> {
+          if(res.failed()) {
+            LOG.error("Unable to create SQL client: " + res.cause().getMessage(), res.cause());
+            startPromise.fail(res.cause());
+            return;
+          }
+          client = res.result();
+          initBusinesses(initSQLDAOs());
+          initInvalidationChannel();
+          bootstrapSchema();
+          startHttpServer(startPromise);
+        });
+        break;
+      case "memory":
+        LOG.info("Customers are stored in memory");
+        initBusinesses(new MemoryCustomerDAO(MemoryStore.shared(vertx, "customers")));
+        startHttpServer(startPromise);
+        break;
+      default:
+        startPromise.fail(new IllegalArgumentException("Unsupported storage: " + storage));
+    }
+  }
+
+  /**
+   * Parse OAS 3.0 YAML file to create router and start HTTP server with it
+   *
+   * @param startPromise the start promise
+   */
+  private void startHttpServer(final Promise<Void> startPromise) {
     LOG.debug("Create resources from OpenAPI specifications");
     OpenAPI3RouterFactory.create(vertx, "src/main/resources/customers.yaml", ar -> {
       if(ar.succeeded()) {
@@ -160,19 +941,67 @@ public class MainVerticle extends AbstractVerticle {
 
         LOG.debug("Manage customers resource endpoints");
         routerFactory.addHandlerByOperationId("findCustomers", this::findCustomers)
-        .addFailureHandlerByOperationId("findCustomers", MainVerticle::handleError);
+        .addFailureHandlerByOperationId("findCustomers", MainVerticle::handleError)
+        .addHandlerByOperationId("createCustomer", this::createCustomer)
+        .addFailureHandlerByOperationId("createCustomer", MainVerticle::handleError)
+        .addHandlerByOperationId("deleteCustomers", this::deleteCustomers)
+        .addFailureHandlerByOperationId("deleteCustomers", MainVerticle::handleError)
+        .addHandlerByOperationId("createCustomers", this::createCustomers)
+        .addFailureHandlerByOperationId("createCustomers", MainVerticle::handleError)
+        .addHandlerByOperationId("getCustomer", this::getCustomer)
+        .addFailureHandlerByOperationId("getCustomer", MainVerticle::handleError)
+        .addHandlerByOperationId("deleteCustomer", this::deleteCustomer)
+        .addFailureHandlerByOperationId("deleteCustomer", MainVerticle::handleError)
+        .addHandlerByOperationId("getCacheStats", this::getCacheStats)
+        .addFailureHandlerByOperationId("getCacheStats", MainVerticle::handleError);
+        if(client != null) {
+          routerFactory.addHandlerByOperationId("exportCustomers", this::exportCustomers)
+          .addFailureHandlerByOperationId("exportCustomers", MainVerticle::handleError);
+        }
+
+        // Imports are routed before OpenAPI body handler: request body is streamed
+        final Router router = routerFactory.getRouter();
+        if(client != null) {
+          router.post("/imports/:table").order(-1)
+          .handler(this::importTable)
+          .failureHandler(MainVerticle::handleError);
+        }
 
         LOG.debug("Create and start HTTP server");
-        vertx.createHttpServer(new HttpServerOptions().setPort(8080)/*.setHost("localhost")*/)
-            .requestHandler(routerFactory.getRouter()).listen();
+        final HttpServerOptions options = createServerOptions();
+        vertx.createHttpServer(options/*.setHost("localhost")*/)
+            .requestHandler(router).listen(res -> {
+              if(res.succeeded()) {
+                LOG.info("HTTP server is listening on port {} ({} instance(s))", options.getPort(), context.getInstanceCount());
+                startPromise.complete();
+              } else {
+                LOG.error("Unable to start HTTP server: " + res.cause().getMessage(), res.cause());
+                startPromise.fail(res.cause());
+              }
+            });
 
       } else {
         // Something went wrong during router factory initialization
         LOG.error(ar.cause().getMessage(), ar.cause());
-        throw new RuntimeException(ar.cause().getMessage(), ar.cause());
+        startPromise.fail(ar.cause());
       }
     });
   }
+
+  /**
+   * Close SQL client.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.AbstractVerticle#stop(io.vertx.core.Promise)
+   */
+  @Override
+  public void stop(final Promise<Void> stopPromise) throws Exception {
+    if(client == null) {
+      stopPromise.complete();
+    } else {
+      client.close(stopPromise);
+    }
+  }
   // Methods -
 
 }
@@ -6,12 +6,19 @@
  */
 package com.github.vlachenal.webservices.vertx.bench.business;
 
+import java.util.UUID;
+
 import com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO;
 import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
 import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
 import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
 import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
 
 /**
  * Address business
@@ -26,6 +33,9 @@ public class AddressBusiness extends AbstractBusiness {
 
   /** Customer DAO */
   final CustomerDAO custumerDAO;
+
+  /** Customer business: customer caches are invalidated on writes */
+  final CustomerBusiness customers;
   // Attributes -
 
 
@@ -35,65 +45,87 @@ public class AddressBusiness extends AbstractBusiness {
    *
    * @param phoneDAO the address DAO to use
    * @param custumerDAO the customer DAO to use
+   * @param customers the customer business to invalidate on writes
    */
-  public AddressBusiness(final AddressDAO addressDAO, final CustomerDAO custumerDAO) {
+  public AddressBusiness(final AddressDAO addressDAO, final CustomerDAO custumerDAO, final CustomerBusiness customers) {
     this.addressDAO = addressDAO;
     this.custumerDAO = custumerDAO;
+    this.customers = customers;
   }
   // Constructors -
 
 
   // Methods +
   /**
-   * Get address
+   * Get customer's address
    *
    * @param customerId the customer identifier
-   *
-   * @return the address
+   * @param destination the destination result ({@link NotFoundException} when customer has no address)
    *
    * @throws InvalidParametersException customer idenfier is not an UUID
-   * @throws NotFoundException address has not been found
    */
-  public AddressDTO getAddress(final String customerId) throws InvalidParametersException, NotFoundException {
-//    final AddressDTO address = addressDAO.getAddress(toUUID(customerId));
-//    if(address == null) {
-//      throw new NotFoundException("Customer " + customerId + " is hommeless");
-//    }
-//    return address;
-    return null;
+  public void getAddress(final String customerId, final Handler<AsyncResult<AddressDTO>> destination) throws InvalidParametersException {
+    addressDAO.listAddresses(toUUID(customerId), res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+      } else if(res.result().isEmpty()) {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " is hommeless")));
+      } else {
+        destination.handle(Future.succeededFuture(res.result().get(0)));
+      }
+    });
   }
 
   /**
-   * Register address
+   * Register address.<br>
+   * Address is inserted only if customer exists in a single request.
    *
    * @param customerId the customer identifier
    * @param address the address to register
+   * @param destination the destination result (new address' identifier or {@link NotFoundException} when customer has not been found)
    *
-   * @throws InvalidParametersException customer idenfier is not an UUID
-   * @throws NotFoundException customer has not been found
+   * @throws InvalidParametersException customer idenfier is not an UUID or address is invalid
    */
-  public void registerAddress(final String customerId, final AddressDTO address) throws InvalidParametersException, NotFoundException {
-//    final UUID custId = toUUID(customerId);
-//    if(!custumerDAO.customerExists(custId)) {
-//      throw new NotFoundException("Customer " + customerId + " does not exist");
-//    }
-//    addressDAO.registerAddress(custId, address);
+  public void registerAddress(final String customerId, final AddressDTO address, final Handler<AsyncResult<String>> destination) throws InvalidParametersException {
+    final UUID custId = toUUID(customerId);
+    checkParameters("Address is null", address);
+    checkParameters("Address lines, zip_code, city and country has to be set", address.getLines(), address.getZipCode(), address.getCity(), address.getCountry());
+    if(!custumerDAO.mightExist(custId)) {
+      destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " does not exist")));
+      return;
+    }
+    addressDAO.registerAddress(custId, address, res -> {
+      if(res.succeeded() && res.result() == null) {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " does not exist")));
+        return;
+      }
+      if(res.succeeded()) {
+        customers.invalidate(InvalidationChannel.ADDRESS, custId);
+      }
+      destination.handle(res);
+    });
   }
 
   /**
-   * Delete address
+   * Delete customer's address in a single request
    *
    * @param customerId the customer identifier
+   * @param destination the destination result ({@link NotFoundException} when customer has no address)
    *
    * @throws InvalidParametersException customer idenfier is not an UUID
-   * @throws NotFoundException address has not been found
    */
-  public void deleteAddress(final String customerId) throws InvalidParametersException, NotFoundException {
-//    final UUID custId = toUUID(customerId);
-//    if(addressDAO.getAddress(custId) == null) {
-//      throw new NotFoundException("Customer " + customerId + " does not exist");
-//    }
-//    addressDAO.deleteAddress(custId);
+  public void deleteAddress(final String customerId, final Handler<AsyncResult<Void>> destination) throws InvalidParametersException {
+    final UUID custId = toUUID(customerId);
+    addressDAO.deleteAddress(custId, res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+      } else if(res.result()) {
+        customers.invalidate(InvalidationChannel.ADDRESS, custId);
+        destination.handle(Future.succeededFuture());
+      } else {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " has no address")));
+      }
+    });
   }
   // Methods -
 
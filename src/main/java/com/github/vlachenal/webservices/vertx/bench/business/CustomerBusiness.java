@@ -6,16 +6,37 @@
  */
 package com.github.vlachenal.webservices.vertx.bench.business;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
+import com.github.vlachenal.webservices.vertx.bench.cache.CacheStats;
+import com.github.vlachenal.webservices.vertx.bench.cache.ReadThroughCache;
+import com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion;
 import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
+import com.github.vlachenal.webservices.vertx.bench.dao.SearchQueries;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.BatchItemResultDTO;
 import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.ErrorResponseDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
 import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchResultDTO;
+import com.github.vlachenal.webservices.vertx.bench.errors.ClientException;
 import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
 import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
 
 
 /**
@@ -27,8 +48,50 @@ import io.vertx.core.Handler;
 public class CustomerBusiness extends AbstractBusiness {
 
   // Attributes +
+  /**
+   * Customer invalidation event bus address.<br>
+   * Message body is the customer identifier, or {@code null} to invalidate every customer.
+   */
+  public static final String INVALIDATION_ADDRESS = "customers.invalidate";
+
+  /** Invalidation origin header: instances do not handle their own invalidations twice */
+  private static final String ORIGIN_HEADER = "origin";
+
+  /** Page token field separator */
+  private static final char TOKEN_SEPARATOR = '\u0000';
+
   /** Customer DAO */
   private final CustomerDAO dao;
+
+  /** Default page size */
+  private final int defaultPageSize;
+
+  /** Maximum page size */
+  private final int maxPageSize;
+
+  /** Maximum number of customers inserted in a single transaction by batch creation */
+  private final int batchChunkSize;
+
+  /** Maximum number of customers per batch creation */
+  private final int maxBatchSize;
+
+  /** Vert.x instance ({@code null} when there is no invalidation handler) */
+  private Vertx vertx;
+
+  /** Invalidation publication options ({@code null} when there is no invalidation handler) */
+  private DeliveryOptions invalidationOptions;
+
+  /** Invalidation handlers */
+  private final List<Handler<UUID>> invalidationHandlers = new ArrayList<>();
+
+  /** Customer details cache ({@code null} when cache is disabled) */
+  private ReadThroughCache<UUID, CustomerDTO> detailsCache;
+
+  /** Search results cache ({@code null} when cache is disabled) */
+  private ReadThroughCache<String, List<CustomerDTO>> searchCache;
+
+  /** Other processes invalidation channel ({@code null} when remote invalidation is disabled) */
+  private InvalidationChannel channel;
   // Attributes -
 
 
@@ -37,66 +100,415 @@ public class CustomerBusiness extends AbstractBusiness {
    * {@link CustomerBusiness} constructor
    *
    * @param dao the customer DAO to use
+   * @param defaultPageSize the page size when none is requested
+   * @param maxPageSize the maximum page size
+   * @param batchChunkSize the maximum number of customers inserted in a single transaction by batch creation
+   * @param maxBatchSize the maximum number of customers per batch creation
    */
-  public CustomerBusiness(final CustomerDAO dao) {
+  public CustomerBusiness(final CustomerDAO dao, final int defaultPageSize, final int maxPageSize, final int batchChunkSize, final int maxBatchSize) {
     this.dao = dao;
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+    this.batchChunkSize = batchChunkSize;
+    this.maxBatchSize = maxBatchSize;
   }
   // Constructors -
 
 
   // Methods +
   /**
-   * List all customers
+   * Encode page token from last customer of page
+   *
+   * @param last the last customer of the page
+   *
+   * @return the page token
+   */
+  private static String toPageToken(final CustomerDTO last) {
+    final String key = last.getLastName() + TOKEN_SEPARATOR + last.getFirstName() + TOKEN_SEPARATOR + last.getId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode page token
+   *
+   * @param token the page token
+   *
+   * @return the last customer of previous page
+   *
+   * @throws InvalidParametersException invalid page token
+   */
+  private CustomerDTO fromPageToken(final String token) throws InvalidParametersException {
+    final String[] key;
+    try {
+      key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(String.valueOf(TOKEN_SEPARATOR), -1);
+    } catch(final IllegalArgumentException e) {
+      throw new InvalidParametersException(token + " is not a valid page token");
+    }
+    if(key.length != 3) {
+      throw new InvalidParametersException(token + " is not a valid page token");
+    }
+    return new CustomerDTO(toUUID(key[2]).toString(), key[1], key[0]);
+  }
+
+  /**
+   * Search customers page by page.<br>
+   * Page size is set to default page size when it is not requested and is limited to
+   * maximum page size. Ranked searches (see {@link SearchRequestDTO.Mode#isRanked()}) return
+   * the most relevant customers in a single page.
    *
    * @param request the search request
+   * @param pageToken the token returned with previous page ({@code null} for the first page)
    * @param destination the destination result
+   *
+   * @throws InvalidParametersException invalid page size or page token, ranked search without name criterion
    */
-  public void search(final SearchRequestDTO request, final Handler<AsyncResult<List<CustomerDTO>>> destination) {
-    dao.search(request, destination);
-    // TODO manage not found error
+  public void search(final SearchRequestDTO request, final String pageToken, final Handler<AsyncResult<SearchResultDTO>> destination) throws InvalidParametersException {
+    if(request.getPageSize() == null) {
+      request.setPageSize(defaultPageSize);
+    } else if(request.getPageSize() < 1) {
+      throw new InvalidParametersException("Page size has to be greater than 0");
+    } else if(request.getPageSize() > maxPageSize) {
+      request.setPageSize(maxPageSize);
+    }
+    final boolean ranked = request.getMode() != null && request.getMode().isRanked();
+    if(ranked) {
+      if(request.getFirstName() == null && request.getLastName() == null) {
+        throw new InvalidParametersException(request.getMode() + " search needs first_name or last_name");
+      }
+      if(pageToken != null) {
+        throw new InvalidParametersException(request.getMode() + " search results have a single page");
+      }
+    }
+    if(pageToken != null) {
+      request.setAfter(fromPageToken(pageToken));
+    }
+    final int pageSize = request.getPageSize();
+    // Request one more customer to know if there is a next page
+    final int limit = ranked ? pageSize : pageSize + 1;
+    final Handler<AsyncResult<List<CustomerDTO>>> handler = res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+        return;
+      }
+      final List<CustomerDTO> customers = res.result();
+      if(customers.size() > pageSize) {
+        final List<CustomerDTO> page = customers.subList(0, pageSize);
+        destination.handle(Future.succeededFuture(new SearchResultDTO(page, toPageToken(page.get(pageSize - 1)))));
+      } else {
+        destination.handle(Future.succeededFuture(new SearchResultDTO(customers, null)));
+      }
+    };
+    if(searchCache == null) {
+      dao.search(request, limit, handler);
+    } else {
+      searchCache.get(SearchQueries.key(request, limit), (key, loaded) -> dao.search(request, limit, loaded), handler);
+    }
   }
 
   /**
-   * Get customer's details
+   * Add customer invalidation handler.<br>
+   * Handler is called with the customer identifier ({@code null} for every customer) on each
+   * customer write, whichever verticle instance has handled it. Writes of this instance are
+   * handled synchronously, writes of other instances are received on
+   * {@link #INVALIDATION_ADDRESS}.
    *
-   * @param id the customer's identifier
+   * @param vertx the Vert.x instance
+   * @param handler the invalidation handler
+   */
+  public void addInvalidationHandler(final Vertx vertx, final Handler<UUID> handler) {
+    if(invalidationHandlers.isEmpty()) {
+      this.vertx = vertx;
+      final String origin = UUID.randomUUID().toString();
+      invalidationOptions = new DeliveryOptions().addHeader(ORIGIN_HEADER, origin);
+      vertx.eventBus().<String>localConsumer(INVALIDATION_ADDRESS, msg -> {
+        if(!origin.equals(msg.headers().get(ORIGIN_HEADER))) {
+          final UUID customerId = msg.body() == null ? null : UUID.fromString(msg.body());
+          invalidationHandlers.forEach(invalidation -> invalidation.handle(customerId));
+        }
+      });
+    }
+    invalidationHandlers.add(handler);
+  }
+
+  /**
+   * Enable invalidation of other processes caches: each customer write is published on
+   * invalidation channel
+   *
+   * @param channel the invalidation channel
+   */
+  public void enableRemoteInvalidation(final InvalidationChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Enable customer details cache.<br>
+   * Each verticle instance has its own cache. Customer writes invalidate entries of every
+   * instance.
+   *
+   * @param vertx the Vert.x instance
+   * @param maxSize the maximum number of cached customers
+   * @param ttl the cached customers time to live (ms)
+   */
+  public void enableDetailsCache(final Vertx vertx, final int maxSize, final long ttl) {
+    final ReadThroughCache<UUID, CustomerDTO> cache = new ReadThroughCache<>(maxSize, ttl, CacheStats.shared(vertx, "customers"));
+    addInvalidationHandler(vertx, customerId -> {
+      if(customerId == null) {
+        cache.clear();
+      } else {
+        cache.invalidate(customerId);
+      }
+    });
+    detailsCache = cache;
+  }
+
+  /**
+   * Enable search results cache.<br>
+   * Each verticle instance has its own cache. Results are keyed by normalized search request
+   * and are stale as soon as customer table write version changes: writes which are not
+   * tracked by the version (i.e. from other processes) are visible after at most
+   * {@code maxStaleness} ms.
+   *
+   * @param vertx the Vert.x instance
+   * @param maxSize the maximum number of cached results
+   * @param maxStaleness the cached results time to live (ms)
+   * @param writeVersion the customer table write version
+   */
+  public void enableSearchCache(final Vertx vertx, final int maxSize, final long maxStaleness, final WriteVersion writeVersion) {
+    searchCache = new ReadThroughCache<>(maxSize, maxStaleness, CacheStats.shared(vertx, "searches"), writeVersion::get);
+  }
+
+  /**
+   * Invalidate customer in every verticle instance.<br>
+   * Handlers of this instance are called immediately.
+   *
+   * @param customerId the customer identifier, {@code null} for every customer
+   */
+  public void invalidate(final UUID customerId) {
+    invalidate(InvalidationChannel.CUSTOMER, customerId);
+  }
+
+  /**
+   * Invalidate customer in every verticle instance and in other processes when remote
+   * invalidation is enabled.<br>
+   * Handlers of this instance are called immediately.
+   *
+   * @param table the written table
+   * @param customerId the customer identifier, {@code null} for every customer
+   */
+  public void invalidate(final String table, final UUID customerId) {
+    if(channel != null) {
+      channel.publish(table, customerId);
+    }
+    if(invalidationHandlers.isEmpty()) {
+      return;
+    }
+    invalidationHandlers.forEach(handler -> handler.handle(customerId));
+    vertx.eventBus().publish(INVALIDATION_ADDRESS, Objects.toString(customerId, null), invalidationOptions);
+  }
+
+  /**
+   * Publish created customers to other processes when remote invalidation is enabled.<br>
+   * DAO has already added them to this process existence filter and snapshot.
+   *
+   * @param customerIds the created customers identifiers
+   */
+  private void publishCreated(final List<UUID> customerIds) {
+    if(channel != null && !customerIds.isEmpty()) {
+      channel.publish(InvalidationChannel.CUSTOMER, customerIds);
+    }
+  }
+
+  /**
+   * Get customer's details with address and phones.<br>
+   * Details are read from cache when it is enabled.
    *
-   * @return the customer's details
+   * @param id the customer's identifier
+   * @param destination the destination result
    *
    * @throws InvalidParametersException invalid or missing parameter
-   * @throws NotFoundException customer has not been found
    */
-  public CustomerDTO getDetails(final String id) throws InvalidParametersException, NotFoundException {
-//    final CustomerDTO customers = dao.getDetails(toUUID(id));
-//    if(customers == null) {
-//      throw new NotFoundException("Customer " + id + " does not exist");
-//    }
-//    return customers;
-    return null;
+  public void getDetails(final String id, final Handler<AsyncResult<CustomerDTO>> destination) throws InvalidParametersException {
+    final Handler<AsyncResult<CustomerDTO>> handler = res -> {
+      if(res.succeeded() && res.result() == null) {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + id + " does not exist")));
+      } else {
+        destination.handle(res);
+      }
+    };
+    if(detailsCache == null) {
+      dao.getDetails(toUUID(id), handler);
+    } else {
+      detailsCache.get(toUUID(id), dao::getDetails, handler);
+    }
   }
 
   /**
-   * Create new customer
+   * Check customer to create
    *
    * @param customer the customer to create
-   * @param destination thre destination result
    *
    * @throws InvalidParametersException missing or invalid parameters
    */
-  public void create(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) throws InvalidParametersException {
+  private void checkCustomer(final CustomerDTO customer) throws InvalidParametersException {
 //    // Customer structure checks +
-//    checkParameters("Customer is null", customer);
 //    checkParameters("Customer first_name, last_name and brith_date has to be set", customer.getFirstName(), customer.getLastName(), customer.getBirthDate());
 //    // Customer structure checks -
-//    return dao.createCustomer(customer);
-    dao.createCustomer(customer, destination);
+    checkParameters("Customer is null", customer);
+    final AddressDTO address = customer.getAddress();
+    if(address != null) {
+      checkParameters("Address lines, zip_code, city and country has to be set", address.getLines(), address.getZipCode(), address.getCity(), address.getCountry());
+    }
+    if(customer.getPhones() != null) {
+      for(final PhoneDTO phone : customer.getPhones()) {
+        checkParameters("Phone is null", phone);
+        checkParameters("Phone type and number has to be set", phone.getType(), phone.getNumber());
+      }
+    }
+  }
+
+  /**
+   * Create new customer with its address and phones
+   *
+   * @param customer the customer to create
+   * @param destination thre destination result
+   *
+   * @throws InvalidParametersException missing or invalid parameters
+   */
+  public void create(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) throws InvalidParametersException {
+    checkCustomer(customer);
+    dao.createCustomer(customer, res -> {
+      if(res.succeeded()) {
+        invalidate(UUID.fromString(res.result()));
+      }
+      destination.handle(res);
+    });
+  }
+
+  /**
+   * Delete customer with its address and phones
+   *
+   * @param id the customer's identifier
+   * @param destination the destination result
+   *
+   * @throws InvalidParametersException invalid or missing parameter
+   */
+  public void delete(final String id, final Handler<AsyncResult<Void>> destination) throws InvalidParametersException {
+    final UUID customerId = toUUID(id);
+    dao.deleteCustomer(customerId, res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+        return;
+      }
+      invalidate(customerId);
+      if(res.result()) {
+        destination.handle(Future.succeededFuture());
+      } else {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + id + " does not exist")));
+      }
+    });
+  }
+
+  /**
+   * Convert customer creation result to batch item result
+   *
+   * @param result the customer creation result
+   *
+   * @return the batch item result
+   */
+  private static BatchItemResultDTO toItemResult(final AsyncResult<String> result) {
+    if(result.succeeded()) {
+      return new BatchItemResultDTO(result.result(), null);
+    }
+    final ErrorResponseDTO error;
+    if(result.cause() instanceof ClientException) {
+      error = new ErrorResponseDTO((ClientException)result.cause());
+    } else {
+      error = new ErrorResponseDTO();
+      error.setCode(500);
+      error.setStatus("INTERNAL_SERVER_ERROR");
+      error.setMessage("Unexpected error: " + result.cause().getMessage());
+    }
+    return new BatchItemResultDTO(null, error);
+  }
+
+  /**
+   * Create new customers with their address and phones.<br>
+   * Valid customers are inserted by chunks of at most {@code batchChunkSize} customers,
+   * one chunk after the other. Each customer gets its own result: its identifier or an error.
+   * New identifiers cannot be stale in any cache: created customers are only published to
+   * other processes, once per chunk.
+   *
+   * @param customers the customers to create
+   * @param destination the destination result (one result per customer, in customers order)
+   *
+   * @throws InvalidParametersException empty or too large customers list
+   */
+  public void createBatch(final List<CustomerDTO> customers, final Handler<AsyncResult<List<BatchItemResultDTO>>> destination) throws InvalidParametersException {
+    checkParameter("Customers list is empty", customers);
+    if(customers.size() > maxBatchSize) {
+      throw new InvalidParametersException("Too many customers: " + customers.size() + " > " + maxBatchSize);
+    }
+    final BatchItemResultDTO[] results = new BatchItemResultDTO[customers.size()];
+    final List<Integer> valid = new ArrayList<>(customers.size());
+    for(int i = 0 ; i < customers.size() ; ++i) {
+      try {
+        checkCustomer(customers.get(i));
+        valid.add(i);
+      } catch(final InvalidParametersException e) {
+        results[i] = new BatchItemResultDTO(null, new ErrorResponseDTO(e));
+      }
+    }
+    createChunk(customers, valid, 0, results, destination);
+  }
+
+  /**
+   * Create next chunk of customers
+   *
+   * @param customers the customers to create
+   * @param valid the valid customers indexes
+   * @param start the chunk start in valid customers indexes
+   * @param results the results
+   * @param destination the destination result
+   */
+  private void createChunk(final List<CustomerDTO> customers, final List<Integer> valid, final int start,
+                           final BatchItemResultDTO[] results, final Handler<AsyncResult<List<BatchItemResultDTO>>> destination) {
+    if(start >= valid.size()) {
+      destination.handle(Future.succeededFuture(Arrays.asList(results)));
+      return;
+    }
+    final List<Integer> indexes = valid.subList(start, Math.min(valid.size(), start + batchChunkSize));
+    final List<CustomerDTO> chunk = indexes.stream().map(customers::get).collect(Collectors.toList());
+    dao.createCustomers(chunk, res -> {
+      if(res.failed()) {
+        // Whole chunk has failed: each of its customers gets the error
+        final BatchItemResultDTO error = toItemResult(Future.failedFuture(res.cause()));
+        indexes.forEach(index -> results[index] = error);
+        createChunk(customers, valid, start + indexes.size(), results, destination);
+        return;
+      }
+      final List<AsyncResult<String>> items = res.result();
+      final List<UUID> created = new ArrayList<>(items.size());
+      for(int i = 0 ; i < items.size() ; ++i) {
+        if(items.get(i).succeeded()) {
+          created.add(UUID.fromString(items.get(i).result()));
+        }
+        results[indexes.get(i)] = toItemResult(items.get(i));
+      }
+      publishCreated(created);
+      createChunk(customers, valid, start + indexes.size(), results, destination);
+    });
   }
 
   /**
    * Delete all customers
+   *
+   * @param destination the destination result, notified once database is ready
    */
-  public void deleteAll() {
-    dao.deleteAll();
+  public void deleteAll(final Handler<AsyncResult<Void>> destination) {
+    dao.deleteAll(res -> {
+      invalidate(null);
+      destination.handle(res);
+    });
   }
   // Methods -
 
@@ -7,13 +7,19 @@
 package com.github.vlachenal.webservices.vertx.bench.business;
 
 import java.util.List;
+import java.util.UUID;
 
 import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
 import com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO;
 import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
 import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
 import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
 
 /**
  * Phone business
@@ -28,6 +34,9 @@ public class PhoneBusiness extends AbstractBusiness {
 
   /** Customer DAO */
   final CustomerDAO custumerDAO;
+
+  /** Customer business: customer caches are invalidated on writes */
+  final CustomerBusiness customers;
   // Attributes -
 
 
@@ -37,10 +46,12 @@ public class PhoneBusiness extends AbstractBusiness {
    *
    * @param phoneDAO the phone DAO to use
    * @param custumerDAO the customer DAO to use
+   * @param customers the customer business to invalidate on writes
    */
-  public PhoneBusiness(final PhoneDAO phoneDAO, final CustomerDAO custumerDAO) {
+  public PhoneBusiness(final PhoneDAO phoneDAO, final CustomerDAO custumerDAO, final CustomerBusiness customers) {
     this.phoneDAO = phoneDAO;
     this.custumerDAO = custumerDAO;
+    this.customers = customers;
   }
   // Constructors -
 
@@ -50,14 +61,12 @@ public class PhoneBusiness extends AbstractBusiness {
    * List customer's phones
    *
    * @param customerId the customer identifier
-   *
-   * @return the phones
+   * @param destination the destination result
    *
    * @throws InvalidParametersException customer idenfier is not an UUID
    */
-  public List<PhoneDTO> listAll(final String customerId) throws InvalidParametersException {
-//    return phoneDAO.getPhones(toUUID(customerId));
-    return null;
+  public void listAll(final String customerId, final Handler<AsyncResult<List<PhoneDTO>>> destination) throws InvalidParametersException {
+    phoneDAO.getPhones(toUUID(customerId), destination);
   }
 
   /**
@@ -65,57 +74,71 @@ public class PhoneBusiness extends AbstractBusiness {
    *
    * @param customerId the customer identifier
    * @param phoneId the phone identifier
-   *
-   * @return the phone
+   * @param destination the destination result ({@link NotFoundException} when phone has not been found)
    *
    * @throws InvalidParametersException customer and/or phone idenfier is not an UUID
-   * @throws NotFoundException phone has not been found
    */
-  public PhoneDTO getPhone(final String customerId, final String phoneId) throws InvalidParametersException, NotFoundException {
-//    final PhoneDTO phone = phoneDAO.getPhone(toUUID(phoneId), toUUID(customerId));
-//    if(phone == null) {
-//      throw new NotFoundException("Phone " + phoneId + " has not been found");
-//    }
-//    return phone;
-    return null;
+  public void getPhone(final String customerId, final String phoneId, final Handler<AsyncResult<PhoneDTO>> destination) throws InvalidParametersException {
+    phoneDAO.getPhone(toUUID(phoneId), toUUID(customerId), res -> {
+      if(res.succeeded() && res.result() == null) {
+        destination.handle(Future.failedFuture(new NotFoundException("Phone " + phoneId + " has not been found")));
+      } else {
+        destination.handle(res);
+      }
+    });
   }
 
   /**
-   * Register phone
+   * Register phone.<br>
+   * Phone is inserted only if customer exists in a single request.
    *
    * @param customerId the customer identifier
    * @param phone the phone to register
+   * @param destination the destination result (new phone's identifier or {@link NotFoundException} when customer has not been found)
    *
-   * @return the new phone's identifier
-   *
-   * @throws InvalidParametersException customer idenfier is not an UUID
-   * @throws NotFoundException customer has not been found
+   * @throws InvalidParametersException customer idenfier is not an UUID or phone is invalid
    */
-  public String registerPhone(final String customerId, final PhoneDTO phone) throws InvalidParametersException, NotFoundException {
-//    final UUID custId = toUUID(customerId);
-//    if(!custumerDAO.customerExists(custId)) {
-//      throw new NotFoundException("Customer " + customerId + " does not exist");
-//    }
-//    return phoneDAO.addPhone(custId, phone);
-    return null;
+  public void registerPhone(final String customerId, final PhoneDTO phone, final Handler<AsyncResult<String>> destination) throws InvalidParametersException {
+    final UUID custId = toUUID(customerId);
+    checkParameters("Phone is null", phone);
+    checkParameters("Phone type and number has to be set", phone.getType(), phone.getNumber());
+    if(!custumerDAO.mightExist(custId)) {
+      destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " does not exist")));
+      return;
+    }
+    phoneDAO.addPhone(custId, phone, res -> {
+      if(res.succeeded() && res.result() == null) {
+        destination.handle(Future.failedFuture(new NotFoundException("Customer " + customerId + " does not exist")));
+        return;
+      }
+      if(res.succeeded()) {
+        customers.invalidate(InvalidationChannel.PHONE, custId);
+      }
+      destination.handle(res);
+    });
   }
 
   /**
-   * Delete phone
+   * Delete phone in a single request
    *
    * @param customerId the customer identifier
    * @param phoneId the phone identifier
+   * @param destination the destination result ({@link NotFoundException} when phone has not been found)
    *
    * @throws InvalidParametersException customer and/or phone idenfier is not an UUID
-   * @throws NotFoundException phone has not been found
    */
-  public void deletePhone(final String customerId, final String phoneId) throws InvalidParametersException, NotFoundException {
-//    final UUID custId = toUUID(customerId);
-//    final UUID id = toUUID(phoneId);
-//    if(phoneDAO.getPhone(id, custId) == null) {
-//      throw new NotFoundException("Phone " + phoneId + " has not been found");
-//    }
-//    phoneDAO.deletePhone(id, custId);
+  public void deletePhone(final String customerId, final String phoneId, final Handler<AsyncResult<Void>> destination) throws InvalidParametersException {
+    final UUID custId = toUUID(customerId);
+    phoneDAO.deletePhone(toUUID(phoneId), custId, res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+      } else if(res.result()) {
+        customers.invalidate(InvalidationChannel.PHONE, custId);
+        destination.handle(Future.succeededFuture());
+      } else {
+        destination.handle(Future.failedFuture(new NotFoundException("Phone " + phoneId + " has not been found")));
+      }
+    });
   }
   // Methods -
 
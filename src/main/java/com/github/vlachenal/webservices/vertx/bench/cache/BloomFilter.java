@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * UUID Bloom filter.<br>
+ * Bit indexes are computed by double hashing of UUID most and least significant bits. Bits
+ * are set atomically so the filter can be updated and read from several event loops.
+ *
+ * @author Vincent Lachenal
+ */
+public class BloomFilter {
+
+  // Attributes +
+  /** Bits */
+  private final AtomicLongArray bits;
+
+  /** Number of bits */
+  private final long size;
+
+  /** Number of hash functions */
+  private final int hashes;
+
+  /** Expected number of insertions */
+  private final long expectedInsertions;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BloomFilter} constructor
+   *
+   * @param expectedInsertions the expected number of insertions
+   * @param fpp the expected false positive probability
+   */
+  public BloomFilter(final long expectedInsertions, final double fpp) {
+    this.expectedInsertions = Math.max(1L, expectedInsertions);
+    final double ln2 = Math.log(2.0);
+    final long optimal = (long)Math.ceil(-this.expectedInsertions * Math.log(fpp) / (ln2 * ln2));
+    bits = new AtomicLongArray((int)Math.max(1L, (optimal + 63L) / 64L));
+    size = bits.length() * 64L;
+    hashes = Math.max(1, (int)Math.round((double)size / this.expectedInsertions * ln2));
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * 64 bits finalization mix (MurmurHash3)
+   *
+   * @param value the value to mix
+   *
+   * @return the mixed value
+   */
+  private static long mix(final long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Add identifier
+   *
+   * @param id the identifier
+   */
+  public void add(final UUID id) {
+    final long h1 = mix(id.getMostSignificantBits());
+    final long h2 = mix(id.getLeastSignificantBits()) | 1L;
+    for(int i = 0 ; i < hashes ; ++i) {
+      final long bit = Math.floorMod(h1 + i * h2, size);
+      final long mask = 1L << bit;
+      final int word = (int)(bit >>> 6);
+      if((bits.get(word) & mask) == 0L) {
+        bits.getAndAccumulate(word, mask, (current, set) -> current | set);
+      }
+    }
+  }
+
+  /**
+   * Check if identifier might have been added
+   *
+   * @param id the identifier
+   *
+   * @return {@code false} if identifier has never been added, {@code true} if it might have been
+   */
+  public boolean mightContain(final UUID id) {
+    final long h1 = mix(id.getMostSignificantBits());
+    final long h2 = mix(id.getLeastSignificantBits()) | 1L;
+    for(int i = 0 ; i < hashes ; ++i) {
+      final long bit = Math.floorMod(h1 + i * h2, size);
+      if((bits.get((int)(bit >>> 6)) & (1L << bit)) == 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute current false positive probability from filled bits ratio
+   *
+   * @return the false positive probability
+   */
+  public double expectedFpp() {
+    long set = 0L;
+    for(int i = 0 ; i < bits.length() ; ++i) {
+      set += Long.bitCount(bits.get(i));
+    }
+    return Math.pow((double)set / size, hashes);
+  }
+
+  /**
+   * Expected number of insertions getter
+   *
+   * @return the expected number of insertions
+   */
+  public long getExpectedInsertions() {
+    return expectedInsertions;
+  }
+  // Methods -
+
+}
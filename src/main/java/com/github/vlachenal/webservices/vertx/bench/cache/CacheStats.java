@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+
+/**
+ * Cache counters.<br>
+ * Each verticle instance has its own caches: counters are shared by name between instances
+ * so they are reported for the whole process.
+ *
+ * @author Vincent Lachenal
+ */
+public class CacheStats implements Shareable {
+
+  // Attributes +
+  /** Shared counters map name */
+  private static final String STATS_MAP = CacheStats.class.getName();
+
+  /** Number of hits */
+  private final LongAdder hits = new LongAdder();
+
+  /** Number of misses */
+  private final LongAdder misses = new LongAdder();
+
+  /** Number of evictions (size or time to live) */
+  private final LongAdder evictions = new LongAdder();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Get shared counters for cache name
+   *
+   * @param vertx the Vert.x instance
+   * @param name the cache name
+   *
+   * @return the counters
+   */
+  public static CacheStats shared(final Vertx vertx, final String name) {
+    final LocalMap<String, CacheStats> stats = vertx.sharedData().getLocalMap(STATS_MAP);
+    final CacheStats created = new CacheStats();
+    final CacheStats existing = stats.putIfAbsent(name, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Get every shared counters as JSON
+   *
+   * @param vertx the Vert.x instance
+   *
+   * @return the counters by cache name
+   */
+  public static JsonObject toJson(final Vertx vertx) {
+    final LocalMap<String, CacheStats> stats = vertx.sharedData().getLocalMap(STATS_MAP);
+    final JsonObject json = new JsonObject();
+    stats.forEach((name, cache) -> json.put(name, cache.toJson()));
+    return json;
+  }
+
+  /**
+   * Count a hit
+   */
+  public void hit() {
+    hits.increment();
+  }
+
+  /**
+   * Count a miss
+   */
+  public void miss() {
+    misses.increment();
+  }
+
+  /**
+   * Count an eviction
+   */
+  public void eviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Get counters as JSON
+   *
+   * @return the counters
+   */
+  public JsonObject toJson() {
+    final long hitCount = hits.sum();
+    final long missCount = misses.sum();
+    return new JsonObject()
+        .put("hits", hitCount)
+        .put("misses", missCount)
+        .put("evictions", evictions.sum())
+        .put("hit_rate", hitCount + missCount == 0L ? 0.0 : (double)hitCount / (hitCount + missCount));
+  }
+  // Methods -
+
+
+  // Accessors +
+  /**
+   * Number of hits getter
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of misses getter
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of evictions getter
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+  // Accessors -
+
+}
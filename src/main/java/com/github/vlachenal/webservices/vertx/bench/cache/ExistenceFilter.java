@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+
+/**
+ * Identifiers existence filter.<br>
+ * Identifiers which have never been added are definitely absent: they do not have to be looked
+ * up in database. Bloom filter can not remove identifiers so it has to be rebuilt from database
+ * to forget deleted ones. While it is rebuilt, added identifiers are set in both current and
+ * new filters. Until a filter has been built, every identifier might exist.<br>
+ * Filter is shared by name between verticle instances and can be used from any thread.
+ *
+ * @author Vincent Lachenal
+ */
+public class ExistenceFilter implements Shareable {
+
+  // Attributes +
+  /** Shared filters map name */
+  private static final String FILTERS_MAP = ExistenceFilter.class.getName();
+
+  /** Minimum expected number of insertions */
+  private final long expectedInsertions;
+
+  /** Expected false positive probability */
+  private final double fpp;
+
+  /** Current filter ({@code null} when it has not been built yet) */
+  private volatile BloomFilter current;
+
+  /** Filter being rebuilt ({@code null} when there is no rebuild in progress) */
+  private volatile BloomFilter building;
+
+  /** Filter being rebuilt will be incomplete and must not be used */
+  private boolean discard;
+
+  /** Filter has to be rebuilt again once rebuild in progress is over */
+  private boolean rebuildAgain;
+
+  /** Number of identifiers in last rebuilt filter */
+  private long lastCount;
+
+  /** Number of identifiers which were definitely absent */
+  private final LongAdder negatives = new LongAdder();
+
+  /** Number of identifiers which might exist and do exist */
+  private final LongAdder truePositives = new LongAdder();
+
+  /** Number of identifiers which might exist but do not */
+  private final LongAdder falsePositives = new LongAdder();
+
+  /** Number of completed rebuilds */
+  private final LongAdder rebuilds = new LongAdder();
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link ExistenceFilter} constructor
+   *
+   * @param expectedInsertions the minimum expected number of identifiers
+   * @param fpp the expected false positive probability
+   */
+  public ExistenceFilter(final long expectedInsertions, final double fpp) {
+    this.expectedInsertions = expectedInsertions;
+    this.fpp = fpp;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get shared filter for name. Filter is created with given parameters if it does not exist yet.
+   *
+   * @param vertx the Vert.x instance
+   * @param name the filter name
+   * @param expectedInsertions the minimum expected number of identifiers
+   * @param fpp the expected false positive probability
+   *
+   * @return the filter
+   */
+  public static ExistenceFilter shared(final Vertx vertx, final String name, final long expectedInsertions, final double fpp) {
+    final LocalMap<String, ExistenceFilter> filters = vertx.sharedData().getLocalMap(FILTERS_MAP);
+    final ExistenceFilter created = new ExistenceFilter(expectedInsertions, fpp);
+    final ExistenceFilter existing = filters.putIfAbsent(name, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Add identifier
+   *
+   * @param id the identifier
+   */
+  public void add(final UUID id) {
+    // New filter first: once it has replaced current one, building is null
+    final BloomFilter next = building;
+    if(next != null) {
+      next.add(id);
+    }
+    final BloomFilter filter = current;
+    if(filter != null) {
+      filter.add(id);
+    }
+  }
+
+  /**
+   * Check if identifier might exist. Definitely absent identifiers are counted.
+   *
+   * @param id the identifier
+   *
+   * @return {@code false} if identifier does not exist, {@code true} if it might exist
+   */
+  public boolean mightContain(final UUID id) {
+    final BloomFilter filter = current;
+    if(filter == null || filter.mightContain(id)) {
+      return true;
+    }
+    negatives.increment();
+    return false;
+  }
+
+  /**
+   * Count database lookup result of an identifier which might exist.<br>
+   * Lookups are not counted until filter has been built.
+   *
+   * @param exists the identifier exists
+   */
+  public void record(final boolean exists) {
+    if(current == null) {
+      return;
+    }
+    if(exists) {
+      truePositives.increment();
+    } else {
+      falsePositives.increment();
+    }
+  }
+
+  /**
+   * Start rebuild.<br>
+   * Returned filter has to be filled with every existing identifier and then given to
+   * {@link #completeRebuild(BloomFilter, long)} or {@link #abortRebuild(BloomFilter)}.
+   *
+   * @return the filter to fill or {@code null} when a rebuild is already in progress (it will then be started again)
+   */
+  public synchronized BloomFilter startRebuild() {
+    if(building != null) {
+      rebuildAgain = true;
+      return null;
+    }
+    discard = false;
+    building = new BloomFilter(Math.max(expectedInsertions, 2L * lastCount), fpp);
+    return building;
+  }
+
+  /**
+   * Complete rebuild: rebuilt filter replaces current one
+   *
+   * @param filter the rebuilt filter
+   * @param count the number of identifiers in filter
+   *
+   * @return {@code true} when filter has to be rebuilt again
+   */
+  public synchronized boolean completeRebuild(final BloomFilter filter, final long count) {
+    if(filter != building) {
+      return false;
+    }
+    if(!discard) {
+      current = filter;
+      lastCount = count;
+      rebuilds.increment();
+    }
+    building = null;
+    final boolean again = rebuildAgain;
+    rebuildAgain = false;
+    return again;
+  }
+
+  /**
+   * Abort rebuild: current filter is kept
+   *
+   * @param filter the filter which has not been rebuilt
+   *
+   * @return {@code true} when filter has to be rebuilt again
+   */
+  public synchronized boolean abortRebuild(final BloomFilter filter) {
+    if(filter != building) {
+      return false;
+    }
+    building = null;
+    final boolean again = rebuildAgain;
+    rebuildAgain = false;
+    return again;
+  }
+
+  /**
+   * Forget every identifier: identifiers have been added without this filter (i.e. bulk import).<br>
+   * Every identifier might exist until filter has been rebuilt. Rebuild in progress is
+   * discarded and started again.
+   */
+  public synchronized void reset() {
+    current = null;
+    if(building != null) {
+      discard = true;
+      rebuildAgain = true;
+    }
+  }
+
+  /**
+   * Get counters as JSON.<br>
+   * False positive rate is the ratio of absent identifiers which have been looked up in database.
+   *
+   * @return the counters
+   */
+  public JsonObject toJson() {
+    final long negativeCount = negatives.sum();
+    final long falsePositiveCount = falsePositives.sum();
+    final BloomFilter filter = current;
+    return new JsonObject()
+        .put("ready", filter != null)
+        .put("negatives", negativeCount)
+        .put("true_positives", truePositives.sum())
+        .put("false_positives", falsePositiveCount)
+        .put("false_positive_rate", negativeCount + falsePositiveCount == 0L ? 0.0 : (double)falsePositiveCount / (negativeCount + falsePositiveCount))
+        .put("expected_fpp", filter == null ? 1.0 : filter.expectedFpp())
+        .put("rebuilds", rebuilds.sum());
+  }
+  // Methods -
+
+
+  // Accessors +
+  /**
+   * Number of definitely absent identifiers getter
+   *
+   * @return the number of definitely absent identifiers
+   */
+  public long getNegatives() {
+    return negatives.sum();
+  }
+
+  /**
+   * Number of false positives getter
+   *
+   * @return the number of false positives
+   */
+  public long getFalsePositives() {
+    return falsePositives.sum();
+  }
+  // Accessors -
+
+}
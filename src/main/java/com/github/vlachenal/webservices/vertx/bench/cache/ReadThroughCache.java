@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+
+/**
+ * Read-through cache bounded by size and time to live.<br>
+ * Least recently used entry is evicted when cache is full. Concurrent misses on the same
+ * key share a single load. {@code null} values and load failures are not cached.<br>
+ * When a write version is set, entries which have been loaded before the last write are
+ * considered as expired: time to live is then the maximum staleness for writes the version
+ * does not track.<br>
+ * This class is not thread safe: it must only be used from its verticle event loop.
+ * Cached values are shared between callers and must not be modified.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author Vincent Lachenal
+ */
+public class ReadThroughCache<K, V> {
+
+  // Attributes +
+  /** Entries in access order */
+  private final LinkedHashMap<K, CachedValue<V>> entries;
+
+  /** Loads in progress */
+  private final Map<K, Load<V>> loading = new HashMap<>();
+
+  /** Time to live (ns) */
+  private final long ttl;
+
+  /** Counters */
+  private final CacheStats stats;
+
+  /** Write version ({@code null} when entries are only invalidated by key) */
+  private final LongSupplier version;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link ReadThroughCache} constructor
+   *
+   * @param maxSize the maximum number of entries
+   * @param ttl the entries time to live (ms)
+   * @param stats the counters
+   */
+  public ReadThroughCache(final int maxSize, final long ttl, final CacheStats stats) {
+    this(maxSize, ttl, stats, null);
+  }
+
+  /**
+   * {@link ReadThroughCache} constructor
+   *
+   * @param maxSize the maximum number of entries
+   * @param ttl the entries time to live (ms)
+   * @param stats the counters
+   * @param version the write version
+   */
+  public ReadThroughCache(final int maxSize, final long ttl, final CacheStats stats, final LongSupplier version) {
+    this.ttl = ttl * 1000000L;
+    this.stats = stats;
+    this.version = version;
+    entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+        if(size() > maxSize) {
+          stats.eviction();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get cached value or load it.<br>
+   * Loader is only called when value is not cached and is not already being loaded.
+   *
+   * @param key the key
+   * @param loader the value loader
+   * @param destination the destination result
+   */
+  public void get(final K key, final BiConsumer<K, Handler<AsyncResult<V>>> loader, final Handler<AsyncResult<V>> destination) {
+    final CachedValue<V> entry = entries.get(key);
+    if(entry != null) {
+      if(System.nanoTime() - entry.created < ttl && (version == null || entry.version == version.getAsLong())) {
+        stats.hit();
+        destination.handle(entry.result);
+        return;
+      }
+      entries.remove(key);
+      stats.eviction();
+    }
+    stats.miss();
+    final long current = version == null ? 0L : version.getAsLong();
+    final Load<V> inProgress = loading.get(key);
+    // Load which has started before last write is not shared
+    if(inProgress != null && inProgress.version == current) {
+      inProgress.waiters.add(destination);
+      return;
+    }
+    final Load<V> load = new Load<>(current);
+    load.waiters.add(destination);
+    loading.put(key, load);
+    loader.accept(key, res -> {
+      // Load has not been invalidated or replaced in the meantime
+      if(loading.get(key) == load) {
+        loading.remove(key);
+        if(res.succeeded() && res.result() != null) {
+          entries.put(key, new CachedValue<>(res, load.version));
+        }
+      }
+      load.waiters.forEach(waiter -> waiter.handle(res));
+    });
+  }
+
+  /**
+   * Invalidate key.<br>
+   * Value of a load in progress for this key will not be cached.
+   *
+   * @param key the key
+   */
+  public void invalidate(final K key) {
+    entries.remove(key);
+    loading.remove(key);
+  }
+
+  /**
+   * Invalidate every key
+   */
+  public void clear() {
+    entries.clear();
+    loading.clear();
+  }
+
+  /**
+   * Get the number of cached entries (expired entries included)
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return entries.size();
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Cache entry
+   *
+   * @param <V> the value type
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class CachedValue<V> {
+
+    /** Load result */
+    private final AsyncResult<V> result;
+
+    /** Creation time (ns) */
+    private final long created = System.nanoTime();
+
+    /** Write version before load */
+    private final long version;
+
+    /**
+     * {@link CachedValue} constructor
+     *
+     * @param result the load result
+     * @param version the write version before load
+     */
+    private CachedValue(final AsyncResult<V> result, final long version) {
+      this.result = result;
+      this.version = version;
+    }
+
+  }
+
+  /**
+   * Load in progress
+   *
+   * @param <V> the value type
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class Load<V> {
+
+    /** Results waiters */
+    private final List<Handler<AsyncResult<V>>> waiters = new ArrayList<>(2);
+
+    /** Write version before load */
+    private final long version;
+
+    /**
+     * {@link Load} constructor
+     *
+     * @param version the write version before load
+     */
+    private Load(final long version) {
+      this.version = version;
+    }
+
+  }
+  // Classes -
+
+}
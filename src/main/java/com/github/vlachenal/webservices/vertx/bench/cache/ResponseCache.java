@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+
+/**
+ * Encoded JSON responses cache.<br>
+ * Response bodies are stored in direct memory and written as is on cache hits: neither
+ * JSON encoding nor heap copy is needed. Cache is bounded by the total size of stored bodies:
+ * least recently used responses are evicted first. Bodies can be stored gzip compressed;
+ * they are then sent with {@code Content-Encoding: gzip} to clients which accept it.<br>
+ * Responses are grouped by owner resource (i.e. customer) so that a write invalidates every
+ * response of its resource. A response which has been loaded before an invalidation is not
+ * cached.<br>
+ * This class is not thread safe: it must only be used from its verticle event loop.
+ * Evicted bodies are released by garbage collector, so responses being written are never
+ * corrupted.
+ *
+ * @author Vincent Lachenal
+ */
+public class ResponseCache {
+
+  // Attributes +
+  /** Entries in access order */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Keys by group */
+  private final Map<String, Set<String>> groups = new HashMap<>();
+
+  /** Maximum number of stored bytes */
+  private final long maxBytes;
+
+  /** Compress bodies */
+  private final boolean compress;
+
+  /** Counters */
+  private final CacheStats stats;
+
+  /** Number of stored bytes */
+  private long bytes;
+
+  /** Invalidation version */
+  private long version;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link ResponseCache} constructor
+   *
+   * @param maxBytes the maximum number of stored bytes
+   * @param compress compress bodies with gzip
+   * @param stats the counters
+   */
+  public ResponseCache(final long maxBytes, final boolean compress, final CacheStats stats) {
+    this.maxBytes = maxBytes;
+    this.compress = compress;
+    this.stats = stats;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Gzip bytes
+   *
+   * @param data the bytes to compress
+   *
+   * @return the compressed bytes
+   */
+  private static byte[] gzip(final byte[] data) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 32);
+    try(GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    } catch(final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Gunzip body
+   *
+   * @param body the compressed body
+   *
+   * @return the uncompressed body
+   */
+  private static Buffer gunzip(final Buffer body) {
+    try(GZIPInputStream gzip = new GZIPInputStream(new ByteBufInputStream(body.getByteBuf()))) {
+      return Buffer.buffer(gzip.readAllBytes());
+    } catch(final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get current invalidation version.<br>
+   * It has to be read before loading a response and given back to
+   * {@link #put(String, String, Buffer, long)}.
+   *
+   * @return the version
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Store response body.<br>
+   * Body is ignored if cache has been invalidated since {@code loadVersion} or if it is
+   * larger than cache.
+   *
+   * @param group the owner resource
+   * @param key the response key
+   * @param body the encoded response body
+   * @param loadVersion the invalidation version before response has been loaded
+   */
+  public void put(final String group, final String key, final Buffer body, final long loadVersion) {
+    if(loadVersion != version) {
+      return;
+    }
+    byte[] data = body.getBytes();
+    boolean gzip = false;
+    if(compress) {
+      final byte[] compressed = gzip(data);
+      if(compressed.length < data.length) {
+        data = compressed;
+        gzip = true;
+      }
+    }
+    if(data.length > maxBytes) {
+      return;
+    }
+    remove(key);
+    final Iterator<Entry> eldest = entries.values().iterator();
+    while(bytes + data.length > maxBytes) {
+      final Entry evicted = eldest.next();
+      eldest.remove();
+      unlink(evicted);
+      stats.eviction();
+    }
+    final ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+    direct.flip();
+    final Entry entry = new Entry(group, key, Buffer.buffer(Unpooled.wrappedBuffer(direct)), gzip);
+    entries.put(key, entry);
+    groups.computeIfAbsent(group, g -> new HashSet<>()).add(key);
+    bytes += data.length;
+  }
+
+  /**
+   * Write cached response if there is one
+   *
+   * @param key the response key
+   * @param request the HTTP request
+   * @param response the HTTP response
+   *
+   * @return {@code true} if response has been written, {@code false} otherwise
+   */
+  public boolean write(final String key, final HttpServerRequest request, final HttpServerResponse response) {
+    final Entry entry = entries.get(key);
+    if(entry == null) {
+      stats.miss();
+      return false;
+    }
+    stats.hit();
+    response.setStatusCode(200).putHeader("Content-Type", "application/json");
+    if(!entry.gzip) {
+      response.end(entry.body);
+      return true;
+    }
+    response.putHeader("Vary", "Accept-Encoding");
+    final String accept = request.getHeader("Accept-Encoding");
+    if(accept != null && accept.contains("gzip")) {
+      response.putHeader("Content-Encoding", "gzip").end(entry.body);
+    } else {
+      response.end(gunzip(entry.body));
+    }
+    return true;
+  }
+
+  /**
+   * Remove entry from group and stored bytes
+   *
+   * @param entry the removed entry
+   */
+  private void unlink(final Entry entry) {
+    bytes -= entry.body.length();
+    final Set<String> keys = groups.get(entry.group);
+    if(keys != null) {
+      keys.remove(entry.key);
+      if(keys.isEmpty()) {
+        groups.remove(entry.group);
+      }
+    }
+  }
+
+  /**
+   * Remove response
+   *
+   * @param key the response key
+   */
+  private void remove(final String key) {
+    final Entry entry = entries.remove(key);
+    if(entry != null) {
+      unlink(entry);
+    }
+  }
+
+  /**
+   * Invalidate every response of resource
+   *
+   * @param group the owner resource
+   */
+  public void invalidate(final String group) {
+    ++version;
+    final Set<String> keys = groups.remove(group);
+    if(keys != null) {
+      for(final String key : keys) {
+        final Entry entry = entries.remove(key);
+        if(entry != null) {
+          bytes -= entry.body.length();
+        }
+      }
+    }
+  }
+
+  /**
+   * Invalidate every response
+   */
+  public void clear() {
+    ++version;
+    entries.clear();
+    groups.clear();
+    bytes = 0L;
+  }
+
+  /**
+   * Get the number of stored bytes
+   *
+   * @return the number of bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Cache entry
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class Entry {
+
+    /** Owner resource */
+    private final String group;
+
+    /** Response key */
+    private final String key;
+
+    /** Encoded body (direct memory) */
+    private final Buffer body;
+
+    /** Body is gzip compressed */
+    private final boolean gzip;
+
+    /**
+     * {@link Entry} constructor
+     *
+     * @param group the owner resource
+     * @param key the response key
+     * @param body the encoded body
+     * @param gzip the body is gzip compressed
+     */
+    private Entry(final String group, final String key, final Buffer body, final boolean gzip) {
+      this.group = group;
+      this.key = key;
+      this.body = body;
+      this.gzip = gzip;
+    }
+
+  }
+  // Classes -
+
+}
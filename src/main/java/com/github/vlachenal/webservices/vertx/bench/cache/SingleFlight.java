@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+
+/**
+ * Identical in-flight calls coalescing.<br>
+ * While a call is in progress for a key, other calls with the same key wait for its result
+ * instead of being executed. Nothing is retained once the call is over: this is not a cache.<br>
+ * This class is not thread safe: it must only be used from its verticle event loop.
+ * Results are shared between callers and must not be modified.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ *
+ * @author Vincent Lachenal
+ */
+public class SingleFlight<K, V> {
+
+  // Attributes +
+  /** Calls in progress */
+  private final Map<K, List<Handler<AsyncResult<V>>>> calls = new HashMap<>();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Execute call or wait for the identical call in progress.<br>
+   * If call throws an exception, it is thrown to the caller and no result is sent.
+   *
+   * @param key the call key
+   * @param call the call
+   * @param destination the destination result
+   */
+  public void execute(final K key, final Consumer<Handler<AsyncResult<V>>> call, final Handler<AsyncResult<V>> destination) {
+    final List<Handler<AsyncResult<V>>> waiters = calls.get(key);
+    if(waiters != null) {
+      waiters.add(destination);
+      return;
+    }
+    final List<Handler<AsyncResult<V>>> callWaiters = new ArrayList<>(2);
+    callWaiters.add(destination);
+    calls.put(key, callWaiters);
+    try {
+      call.accept(res -> {
+        calls.remove(key, callWaiters);
+        callWaiters.forEach(waiter -> waiter.handle(res));
+      });
+    } catch(final RuntimeException e) {
+      calls.remove(key, callWaiters);
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of calls in progress
+   *
+   * @return the number of calls
+   */
+  public int size() {
+    return calls.size();
+  }
+  // Methods -
+
+}
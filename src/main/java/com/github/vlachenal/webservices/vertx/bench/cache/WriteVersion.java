@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+
+/**
+ * Table write version.<br>
+ * Version is incremented on each write and is shared by name between verticle instances:
+ * caches compare it with the version of their entries instead of being invalidated one
+ * key at a time.
+ *
+ * @author Vincent Lachenal
+ */
+public class WriteVersion implements Shareable {
+
+  // Attributes +
+  /** Shared versions map name */
+  private static final String VERSIONS_MAP = WriteVersion.class.getName();
+
+  /** Current version */
+  private final AtomicLong version = new AtomicLong();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Get shared version for table
+   *
+   * @param vertx the Vert.x instance
+   * @param table the table name
+   *
+   * @return the version
+   */
+  public static WriteVersion shared(final Vertx vertx, final String table) {
+    final LocalMap<String, WriteVersion> versions = vertx.sharedData().getLocalMap(VERSIONS_MAP);
+    final WriteVersion created = new WriteVersion();
+    final WriteVersion existing = versions.putIfAbsent(table, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Get current version
+   *
+   * @return the version
+   */
+  public long get() {
+    return version.get();
+  }
+
+  /**
+   * Increment version after a write
+   */
+  public void bump() {
+    version.incrementAndGet();
+  }
+  // Methods -
+
+}
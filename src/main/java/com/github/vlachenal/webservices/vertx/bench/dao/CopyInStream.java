@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.sql.Connection;
+
+import org.postgresql.copy.CopyIn;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+
+/**
+ * Write stream to PostgreSQL COPY FROM STDIN.<br>
+ * Data are sent to database from worker threads, one write at a time: buffers which are
+ * received during a write are sent together by the next one. JDBC connection is not
+ * thread-safe, so every COPY operation is an ordered blocking task and cancellation waits
+ * for the write in progress. Write queue is full when
+ * more than {@code maxSize} bytes are waiting, so a piped read stream is paused until
+ * database has consumed them.<br>
+ * Ending the stream ends COPY (rows are committed). Cancelling it discards every row.
+ *
+ * @author Vincent Lachenal
+ */
+public class CopyInStream implements WriteStream<Buffer> {
+
+  // Attributes +
+  /** Default write queue maximum size (bytes) */
+  private static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+  /** Vert.x instance */
+  private final Vertx vertx;
+
+  /** JDBC connection */
+  private final Connection connection;
+
+  /** COPY operation */
+  private final CopyIn copyIn;
+
+  /** Waiting data */
+  private Buffer pending = Buffer.buffer();
+
+  /** Number of bytes waiting or being written */
+  private int queued;
+
+  /** Write queue maximum size (bytes) */
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  /** Write is in progress */
+  private boolean writing;
+
+  /** Stream has been ended or cancelled */
+  private boolean closed;
+
+  /** Stream has been cancelled */
+  private boolean cancelled;
+
+  /** Failure */
+  private Throwable failure;
+
+  /** Number of copied rows */
+  private long rowCount;
+
+  /** End handler */
+  private Handler<AsyncResult<Void>> endHandler;
+
+  /** Drain handler */
+  private Handler<Void> drainHandler;
+
+  /** Exception handler */
+  private Handler<Throwable> exceptionHandler;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CopyInStream} constructor
+   *
+   * @param vertx the Vert.x instance
+   * @param connection the JDBC connection
+   * @param copyIn the COPY operation
+   */
+  private CopyInStream(final Vertx vertx, final Connection connection, final CopyIn copyIn) {
+    this.vertx = vertx;
+    this.connection = connection;
+    this.copyIn = copyIn;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Open JDBC connection and start COPY
+   *
+   * @param vertx the Vert.x instance
+   * @param dbConfig the database configuration
+   * @param sql the COPY FROM STDIN request
+   * @param destination the destination result
+   */
+  public static void open(final Vertx vertx, final JsonObject dbConfig, final String sql, final Handler<AsyncResult<CopyInStream>> destination) {
+    vertx.<CopyInStream>executeBlocking(fut -> {
+      Connection connection = null;
+      try {
+        connection = JdbcCopy.connect(dbConfig);
+        fut.complete(new CopyInStream(vertx, connection, JdbcCopy.copyManager(connection).copyIn(sql)));
+      } catch(final Exception e) {
+        if(connection != null) {
+          JdbcCopy.close(connection);
+        }
+        fut.fail(e);
+      }
+    }, true, destination);
+  }
+
+  /**
+   * Send waiting data to database if no write is in progress
+   */
+  private void flush() {
+    if(writing || failure != null) {
+      return;
+    }
+    if(pending.length() == 0) {
+      if(closed && endHandler != null) {
+        finish();
+      }
+      return;
+    }
+    writing = true;
+    final Buffer data = pending;
+    pending = Buffer.buffer();
+    vertx.executeBlocking(fut -> {
+      try {
+        final byte[] bytes = data.getBytes();
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        fut.complete();
+      } catch(final Exception e) {
+        fut.fail(e);
+      }
+    }, true, res -> {
+      writing = false;
+      final boolean wasFull = writeQueueFull();
+      queued -= data.length();
+      if(cancelled) {
+        release();
+        return;
+      }
+      if(res.failed()) {
+        fail(res.cause());
+        return;
+      }
+      if(wasFull && !writeQueueFull() && drainHandler != null) {
+        drainHandler.handle(null);
+      }
+      flush();
+    });
+  }
+
+  /**
+   * End COPY and release connection
+   */
+  private void finish() {
+    final Handler<AsyncResult<Void>> handler = endHandler;
+    endHandler = null;
+    vertx.<Long>executeBlocking(fut -> {
+      try {
+        fut.complete(copyIn.endCopy());
+      } catch(final Exception e) {
+        fut.fail(e);
+      } finally {
+        JdbcCopy.close(connection);
+      }
+    }, true, res -> {
+      if(res.succeeded()) {
+        rowCount = res.result();
+      }
+      handler.handle(res.mapEmpty());
+    });
+  }
+
+  /**
+   * Cancel COPY on write failure
+   *
+   * @param cause the failure
+   */
+  private void fail(final Throwable cause) {
+    failure = cause;
+    cancel();
+    if(exceptionHandler != null) {
+      exceptionHandler.handle(cause);
+    }
+    if(endHandler != null) {
+      final Handler<AsyncResult<Void>> handler = endHandler;
+      endHandler = null;
+      handler.handle(Future.failedFuture(cause));
+    }
+  }
+
+  /**
+   * Cancel COPY: no row is inserted and connection is released once the write in progress
+   * (if any) is over
+   */
+  public void cancel() {
+    if(cancelled || closed && failure == null) {
+      return;
+    }
+    closed = true;
+    cancelled = true;
+    pending = Buffer.buffer();
+    if(!writing) {
+      release();
+    }
+  }
+
+  /**
+   * Cancel COPY if it is active and release connection
+   */
+  private void release() {
+    vertx.executeBlocking(fut -> {
+      try {
+        if(copyIn.isActive()) {
+          copyIn.cancelCopy();
+        }
+        fut.complete();
+      } catch(final Exception e) {
+        fut.fail(e);
+      } finally {
+        JdbcCopy.close(connection);
+      }
+    }, true, res -> {
+      // Nothing more can be done
+    });
+  }
+
+  /**
+   * Number of copied rows getter (available once stream has been ended)
+   *
+   * @return the number of rows
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#exceptionHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CopyInStream exceptionHandler(final Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#write(java.lang.Object)
+   */
+  @Override
+  public CopyInStream write(final Buffer data) {
+    return write(data, null);
+  }
+
+  /**
+   * Queue data. Handler is notified as soon as data has been queued.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#write(java.lang.Object, io.vertx.core.Handler)
+   */
+  @Override
+  public CopyInStream write(final Buffer data, final Handler<AsyncResult<Void>> handler) {
+    if(closed || failure != null) {
+      if(handler != null) {
+        handler.handle(Future.failedFuture(failure == null ? new IllegalStateException("COPY stream is closed") : failure));
+      }
+      return this;
+    }
+    pending.appendBuffer(data);
+    queued += data.length();
+    flush();
+    if(handler != null) {
+      handler.handle(Future.succeededFuture());
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#end()
+   */
+  @Override
+  public void end() {
+    end(res -> {
+      // Nothing to do
+    });
+  }
+
+  /**
+   * End COPY once every data has been written.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#end(io.vertx.core.Handler)
+   */
+  @Override
+  public void end(final Handler<AsyncResult<Void>> handler) {
+    if(closed) {
+      handler.handle(Future.failedFuture(failure == null ? new IllegalStateException("COPY stream is closed") : failure));
+      return;
+    }
+    closed = true;
+    endHandler = handler;
+    flush();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#setWriteQueueMaxSize(int)
+   */
+  @Override
+  public CopyInStream setWriteQueueMaxSize(final int maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#writeQueueFull()
+   */
+  @Override
+  public boolean writeQueueFull() {
+    return queued >= maxSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.WriteStream#drainHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CopyInStream drainHandler(final Handler<Void> handler) {
+    drainHandler = handler;
+    return this;
+  }
+  // Methods -
+
+}
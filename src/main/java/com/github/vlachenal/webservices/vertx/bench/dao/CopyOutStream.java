@@ -0,0 +1,333 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.sql.Connection;
+
+import org.postgresql.copy.CopyOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+
+/**
+ * Read stream on PostgreSQL COPY TO STDOUT.<br>
+ * Rows are read from worker threads by chunks of at least {@code chunkSize} bytes, and the
+ * next chunk is only read when there is a demand for it: memory usage does not depend on the
+ * result size and a slow consumer slows database reading down.
+ *
+ * @author Vincent Lachenal
+ */
+public class CopyOutStream implements ReadStream<Buffer> {
+
+  // Attributes +
+  /** {@link CopyOutStream} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(CopyOutStream.class);
+
+  /** Vert.x instance */
+  private final Vertx vertx;
+
+  /** JDBC connection */
+  private final Connection connection;
+
+  /** COPY operation */
+  private final CopyOut copyOut;
+
+  /** Minimum chunk size (bytes) */
+  private final int chunkSize;
+
+  /** Current demand */
+  private long demand;
+
+  /** Read is in progress */
+  private boolean reading;
+
+  /** COPY is over: every row has been read */
+  private boolean over;
+
+  /** Stream has been ended or closed */
+  private boolean closed;
+
+  /** Close destination result waiting for the read in progress */
+  private Handler<AsyncResult<Void>> closing;
+
+  /** Number of copied rows */
+  private long rowCount;
+
+  /** Data handler */
+  private Handler<Buffer> handler;
+
+  /** End handler */
+  private Handler<Void> endHandler;
+
+  /** Exception handler */
+  private Handler<Throwable> exceptionHandler;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CopyOutStream} constructor
+   *
+   * @param vertx the Vert.x instance
+   * @param connection the JDBC connection
+   * @param copyOut the COPY operation
+   * @param chunkSize the minimum chunk size
+   */
+  private CopyOutStream(final Vertx vertx, final Connection connection, final CopyOut copyOut, final int chunkSize) {
+    this.vertx = vertx;
+    this.connection = connection;
+    this.copyOut = copyOut;
+    this.chunkSize = chunkSize;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Open JDBC connection and start COPY
+   *
+   * @param vertx the Vert.x instance
+   * @param dbConfig the database configuration
+   * @param sql the COPY TO STDOUT request
+   * @param chunkSize the minimum chunk size (bytes)
+   * @param destination the destination result
+   */
+  public static void open(final Vertx vertx, final JsonObject dbConfig, final String sql, final int chunkSize,
+                          final Handler<AsyncResult<CopyOutStream>> destination) {
+    vertx.<CopyOutStream>executeBlocking(fut -> {
+      Connection connection = null;
+      try {
+        connection = JdbcCopy.connect(dbConfig);
+        fut.complete(new CopyOutStream(vertx, connection, JdbcCopy.copyManager(connection).copyOut(sql), chunkSize));
+      } catch(final Exception e) {
+        if(connection != null) {
+          JdbcCopy.close(connection);
+        }
+        fut.fail(e);
+      }
+    }, true, destination);
+  }
+
+  /**
+   * Read next chunk if there is a demand for it
+   */
+  private void readNext() {
+    if(closed || reading || demand <= 0L) {
+      return;
+    }
+    reading = true;
+    vertx.<Buffer>executeBlocking(fut -> {
+      try {
+        final Buffer chunk = Buffer.buffer(chunkSize + 256);
+        byte[] row = copyOut.readFromCopy();
+        while(row != null) {
+          chunk.appendBytes(row);
+          if(chunk.length() >= chunkSize) {
+            break;
+          }
+          row = copyOut.readFromCopy();
+        }
+        // null row means that COPY is over
+        over = row == null;
+        fut.complete(chunk);
+      } catch(final Exception e) {
+        fut.fail(e);
+      }
+    }, true, this::handleReadRes);
+  }
+
+  /**
+   * Handle read result
+   *
+   * @param result the chunk
+   */
+  private void handleReadRes(final AsyncResult<Buffer> result) {
+    reading = false;
+    if(closing != null) {
+      // Stream has been closed during read: connection can now be released
+      final Handler<AsyncResult<Void>> destination = closing;
+      closing = null;
+      release(destination);
+      return;
+    }
+    if(closed) {
+      return;
+    }
+    if(result.failed()) {
+      fail(result.cause());
+      return;
+    }
+    final Buffer chunk = result.result();
+    if(chunk.length() > 0) {
+      if(demand != Long.MAX_VALUE) {
+        --demand;
+      }
+      if(handler != null) {
+        handler.handle(chunk);
+      }
+    }
+    if(over) {
+      rowCount = copyOut.getHandledRowCount();
+      close(res -> {
+        if(endHandler != null) {
+          endHandler.handle(null);
+        }
+      });
+    } else {
+      readNext();
+    }
+  }
+
+  /**
+   * Close stream on error and notify exception handler
+   *
+   * @param cause the error
+   */
+  private void fail(final Throwable cause) {
+    close(res -> {
+      if(exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      } else {
+        LOG.error("COPY stream error: " + cause.getMessage(), cause);
+      }
+    });
+  }
+
+  /**
+   * Close stream and release JDBC connection.<br>
+   * COPY is cancelled if it is not over and no more event will be emitted. When a read is
+   * in progress, connection is released once it is over since JDBC connection is not thread safe.
+   *
+   * @param destination the destination result
+   */
+  public void close(final Handler<AsyncResult<Void>> destination) {
+    if(closed) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    closed = true;
+    if(reading) {
+      closing = destination;
+    } else {
+      release(destination);
+    }
+  }
+
+  /**
+   * Cancel COPY if it is active and release JDBC connection
+   *
+   * @param destination the destination result
+   */
+  private void release(final Handler<AsyncResult<Void>> destination) {
+    vertx.<Void>executeBlocking(fut -> {
+      try {
+        if(copyOut.isActive()) {
+          copyOut.cancelCopy();
+        }
+        fut.complete();
+      } catch(final Exception e) {
+        fut.fail(e);
+      } finally {
+        JdbcCopy.close(connection);
+      }
+    }, true, destination);
+  }
+
+  /**
+   * Number of copied rows getter (available once stream has been ended)
+   *
+   * @return the number of rows
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#exceptionHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CopyOutStream exceptionHandler(final Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    return this;
+  }
+
+  /**
+   * Set data handler and start reading chunks.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#handler(io.vertx.core.Handler)
+   */
+  @Override
+  public CopyOutStream handler(final Handler<Buffer> handler) {
+    this.handler = handler;
+    if(handler != null) {
+      resume();
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#pause()
+   */
+  @Override
+  public CopyOutStream pause() {
+    demand = 0L;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#resume()
+   */
+  @Override
+  public CopyOutStream resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#fetch(long)
+   */
+  @Override
+  public CopyOutStream fetch(final long amount) {
+    if(amount > 0L) {
+      demand += amount;
+      if(demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      readNext();
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#endHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CopyOutStream endHandler(final Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    return this;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Tables which can be imported or exported with PostgreSQL COPY.<br>
+ * Table name and columns are read from DAO INSERT requests, so CSV layouts are the same as
+ * insertion parameters.
+ *
+ * @author Vincent Lachenal
+ */
+public enum CopyTable {
+
+  // Values +
+  /** Customer table */
+  CUSTOMERS("customers", SQLCustomerDAO.REQ_ADD_CUSTOMER),
+
+  /** Address table */
+  ADDRESSES("addresses", SQLAddressDAO.REQ_ADD_ADDRESS),
+
+  /** Phone table */
+  PHONES("phones", SQLPhoneDAO.REQ_ADD_PHONE);
+  // Values -
+
+
+  // Attributes +
+  /** Resource name */
+  private final String resource;
+
+  /** Table name */
+  private final String table;
+
+  /** Columns (comma separated) */
+  private final String columns;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CopyTable} constructor
+   *
+   * @param resource the resource name
+   * @param insert the single row INSERT request
+   */
+  private CopyTable(final String resource, final String insert) {
+    this.resource = resource;
+    final Matcher matcher = Pattern.compile("INSERT INTO (\\w+) \\(([^)]+)\\)").matcher(insert);
+    if(!matcher.find()) {
+      throw new IllegalArgumentException("Invalid INSERT request: " + insert);
+    }
+    table = matcher.group(1);
+    columns = matcher.group(2);
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get table from resource name
+   *
+   * @param resource the resource name
+   *
+   * @return the table, {@code null} if there is no table for this resource
+   */
+  public static CopyTable fromResource(final String resource) {
+    for(final CopyTable table : values()) {
+      if(table.resource.equals(resource)) {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get COPY FROM STDIN request for CSV format
+   *
+   * @param header CSV has a header line
+   *
+   * @return the SQL request
+   */
+  public String copyIn(final boolean header) {
+    return "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv, HEADER " + header + ")";
+  }
+  // Methods -
+
+
+  // Accessors +
+  /**
+   * Resource name getter
+   *
+   * @return the resource name
+   */
+  public String getResource() {
+    return resource;
+  }
+
+  /**
+   * Table name getter
+   *
+   * @return the table name
+   */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Columns getter
+   *
+   * @return the columns (comma separated)
+   */
+  public String getColumns() {
+    return columns;
+  }
+  // Accessors -
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+
+
+/**
+ * Read stream on a PostgreSQL server side cursor.<br>
+ * Rows are fetched by batch of {@code fetchSize} rows only when there is a demand for them,
+ * so memory usage does not depend on the result size. The cursor is declared in a
+ * read-only transaction which holds a dedicated connection until the stream ends or
+ * is closed.
+ *
+ * @param <T> the stream element type
+ *
+ * @author Vincent Lachenal
+ */
+public class CursorStream<T> implements ReadStream<T> {
+
+  // Attributes +
+  /** {@link CursorStream} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(CursorStream.class);
+
+  /** Cursor name */
+  private static final String CURSOR = "bench_cursor";
+
+  /** Declare cursor SQL request prefix */
+  private static final String REQ_DECLARE = "DECLARE " + CURSOR + " NO SCROLL CURSOR FOR ";
+
+  /** SQL connection */
+  private final SQLConnection connection;
+
+  /** Fetch SQL request */
+  private final String fetchReq;
+
+  /** Number of rows to fetch per round trip */
+  private final int fetchSize;
+
+  /** Row mapper */
+  private final Function<JsonArray, T> mapper;
+
+  /** Current batch */
+  private List<JsonArray> rows = Collections.emptyList();
+
+  /** Next row index in current batch */
+  private int index;
+
+  /** Current demand */
+  private long demand;
+
+  /** Fetch request is in progress */
+  private boolean fetching;
+
+  /** Current batch is the last one */
+  private boolean lastBatch;
+
+  /** Stream has been ended or closed */
+  private boolean closed;
+
+  /** Data handler */
+  private Handler<T> handler;
+
+  /** End handler */
+  private Handler<Void> endHandler;
+
+  /** Exception handler */
+  private Handler<Throwable> exceptionHandler;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CursorStream} constructor
+   *
+   * @param connection the SQL connection with declared cursor
+   * @param fetchSize the number of rows to fetch per round trip
+   * @param mapper the row mapper
+   */
+  private CursorStream(final SQLConnection connection, final int fetchSize, final Function<JsonArray, T> mapper) {
+    this.connection = connection;
+    this.fetchSize = fetchSize;
+    this.mapper = mapper;
+    fetchReq = "FETCH " + fetchSize + " FROM " + CURSOR;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Open cursor on SQL query
+   *
+   * @param <T> the stream element type
+   *
+   * @param client the SQL client
+   * @param query the SQL query
+   * @param params the SQL query parameters
+   * @param fetchSize the number of rows to fetch per round trip
+   * @param mapper the row mapper
+   * @param destination the destination result
+   */
+  public static <T> void open(final SQLClient client, final String query, final JsonArray params, final int fetchSize,
+                              final Function<JsonArray, T> mapper, final Handler<AsyncResult<CursorStream<T>>> destination) {
+    client.getConnection(con -> {
+      if(con.failed()) {
+        destination.handle(Future.failedFuture(con.cause()));
+        return;
+      }
+      final SQLConnection connection = con.result();
+      connection.setAutoCommit(false, tx -> {
+        if(tx.failed()) {
+          connection.close();
+          destination.handle(Future.failedFuture(tx.cause()));
+          return;
+        }
+        connection.updateWithParams(REQ_DECLARE + query, params, res -> {
+          if(res.failed()) {
+            connection.rollback(rb -> connection.close());
+            destination.handle(Future.failedFuture(res.cause()));
+          } else {
+            destination.handle(Future.succeededFuture(new CursorStream<>(connection, fetchSize, mapper)));
+          }
+        });
+      });
+    });
+  }
+
+  /**
+   * Emit rows from current batch while there is demand for them.<br>
+   * Fetch next batch when current one has been consumed.
+   */
+  private void drain() {
+    while(!closed && demand > 0L && index < rows.size()) {
+      if(demand != Long.MAX_VALUE) {
+        --demand;
+      }
+      final T elt = mapper.apply(rows.get(index++));
+      if(handler != null) {
+        handler.handle(elt);
+      }
+    }
+    if(closed || index < rows.size()) {
+      return;
+    }
+    if(lastBatch) {
+      close(res -> {
+        if(endHandler != null) {
+          endHandler.handle(null);
+        }
+      });
+    } else if(demand > 0L && !fetching) {
+      fetchNext();
+    }
+  }
+
+  /**
+   * Fetch next batch from cursor
+   */
+  private void fetchNext() {
+    fetching = true;
+    connection.query(fetchReq, this::handleFetchRes);
+  }
+
+  /**
+   * Handle fetch result
+   *
+   * @param result the SQL result
+   */
+  private void handleFetchRes(final AsyncResult<ResultSet> result) {
+    fetching = false;
+    if(closed) {
+      return;
+    }
+    if(result.failed()) {
+      fail(result.cause());
+      return;
+    }
+    rows = result.result().getResults();
+    index = 0;
+    lastBatch = rows.size() < fetchSize;
+    drain();
+  }
+
+  /**
+   * Close stream on error and notify exception handler
+   *
+   * @param cause the error
+   */
+  private void fail(final Throwable cause) {
+    close(res -> {
+      if(exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      } else {
+        LOG.error("Cursor stream error: " + cause.getMessage(), cause);
+      }
+    });
+  }
+
+  /**
+   * Close cursor and release SQL connection.<br>
+   * Pending rows are discarded and no more event will be emitted.
+   *
+   * @param destination the destination result
+   */
+  public void close(final Handler<AsyncResult<Void>> destination) {
+    if(closed) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    closed = true;
+    rows = Collections.emptyList();
+    // Cursor is read only: rollback closes cursor and ends transaction
+    connection.rollback(res -> connection.close(destination));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#exceptionHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CursorStream<T> exceptionHandler(final Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    return this;
+  }
+
+  /**
+   * Set data handler and start emitting rows.<br>
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#handler(io.vertx.core.Handler)
+   */
+  @Override
+  public CursorStream<T> handler(final Handler<T> handler) {
+    this.handler = handler;
+    if(handler != null) {
+      resume();
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#pause()
+   */
+  @Override
+  public CursorStream<T> pause() {
+    demand = 0L;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#resume()
+   */
+  @Override
+  public CursorStream<T> resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#fetch(long)
+   */
+  @Override
+  public CursorStream<T> fetch(final long amount) {
+    if(amount > 0L) {
+      demand += amount;
+      if(demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      drain();
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.core.streams.ReadStream#endHandler(io.vertx.core.Handler)
+   */
+  @Override
+  public CursorStream<T> endHandler(final Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    return this;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+
+/**
+ * Customer insertions coalescer.<br>
+ * Customers to create are collected during at most {@code maxDelay} milliseconds or until
+ * {@code maxSize} customers are waiting. They are then created at once (see
+ * {@link CustomerDAO#createCustomers(List, Handler)}).<br>
+ * Coalescer is bound to the event loop which uses it.
+ *
+ * @author Vincent Lachenal
+ */
+class CustomerInsertCoalescer {
+
+  // Attributes +
+  /** Customer DAO */
+  private final SQLCustomerDAO dao;
+
+  /** Vert.x instance */
+  private final Vertx vertx;
+
+  /** Maximum number of customers per flush */
+  private final int maxSize;
+
+  /** Maximum delay before flush (ms) */
+  private final long maxDelay;
+
+  /** Waiting customers */
+  private List<CustomerDTO> customers;
+
+  /** Waiting customers destinations */
+  private List<Handler<AsyncResult<String>>> destinations;
+
+  /** Flush timer identifier (-1 when no timer is set) */
+  private long timerId = -1L;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CustomerInsertCoalescer} constructor
+   *
+   * @param dao the customer DAO
+   * @param vertx the Vert.x instance
+   * @param maxSize the maximum number of customers per flush
+   * @param maxDelay the maximum delay before flush (ms)
+   */
+  CustomerInsertCoalescer(final SQLCustomerDAO dao, final Vertx vertx, final int maxSize, final long maxDelay) {
+    this.dao = dao;
+    this.vertx = vertx;
+    this.maxSize = maxSize;
+    this.maxDelay = maxDelay;
+    reset();
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Reset waiting customers
+   */
+  private void reset() {
+    customers = new ArrayList<>(maxSize);
+    destinations = new ArrayList<>(maxSize);
+  }
+
+  /**
+   * Add customer to create
+   *
+   * @param customer the customer
+   * @param destination the destination result
+   */
+  void add(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) {
+    customers.add(customer);
+    destinations.add(destination);
+    if(customers.size() >= maxSize) {
+      flush();
+    } else if(timerId == -1L) {
+      timerId = vertx.setTimer(maxDelay, id -> {
+        timerId = -1L;
+        flush();
+      });
+    }
+  }
+
+  /**
+   * Insert waiting customers
+   */
+  private void flush() {
+    if(timerId != -1L) {
+      vertx.cancelTimer(timerId);
+      timerId = -1L;
+    }
+    final List<CustomerDTO> batch = customers;
+    final List<Handler<AsyncResult<String>>> handlers = destinations;
+    reset();
+    if(batch.size() == 1) {
+      dao.insertCustomer(batch.get(0), handlers.get(0));
+      return;
+    }
+    dao.createCustomers(batch, res -> {
+      if(res.failed()) {
+        handlers.forEach(handler -> handler.handle(Future.failedFuture(res.cause())));
+        return;
+      }
+      final List<AsyncResult<String>> results = res.result();
+      for(int i = 0 ; i < handlers.size() ; ++i) {
+        handlers.get(i).handle(results.get(i));
+      }
+    });
+  }
+  // Methods -
+
+}
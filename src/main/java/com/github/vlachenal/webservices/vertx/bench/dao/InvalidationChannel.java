@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.pubsub.PgSubscriber;
+
+
+/**
+ * Cross process invalidation channel based on PostgreSQL LISTEN/NOTIFY.<br>
+ * Writes are published as {@code <origin> <table> <customer ids>} notifications, customer
+ * identifiers being separated by commas and empty when every customer has changed. Each process listens to the channel
+ * and ignores its own notifications. Notifications sent while a listener is disconnected are
+ * lost: listener is told to invalidate everything each time it has subscribed.
+ *
+ * @author Vincent Lachenal
+ */
+public class InvalidationChannel {
+
+  // Attributes +
+  /** {@link InvalidationChannel} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(InvalidationChannel.class);
+
+  /** Customer table */
+  public static final String CUSTOMER = "customer";
+
+  /** Phone table */
+  public static final String PHONE = "phone";
+
+  /** Address table */
+  public static final String ADDRESS = "address";
+
+  /** Notify SQL request */
+  private static final String REQ_NOTIFY = "SELECT pg_notify(?,?)";
+
+  /** Notification fields separator */
+  private static final char SEPARATOR = ' ';
+
+  /** Customer identifiers separator */
+  private static final char ID_SEPARATOR = ',';
+
+  /** Maximum number of customer identifiers per notification (payload is limited to 8000 bytes) */
+  static final int MAX_IDS = 200;
+
+  /** Listener reconnection delay (ms) */
+  private static final long RECONNECT_DELAY = 1000L;
+
+  /** SQL client */
+  private final SQLClient jdbc;
+
+  /** Channel name */
+  private final String channel;
+
+  /** Process origin */
+  private final String origin;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link InvalidationChannel} constructor
+   *
+   * @param jdbc the SQL client to use
+   * @param channel the channel name
+   * @param origin the process origin (the same for every verticle instance)
+   */
+  public InvalidationChannel(final SQLClient jdbc, final String channel, final String origin) {
+    this.jdbc = jdbc;
+    this.channel = channel;
+    this.origin = origin;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Build notification payload
+   *
+   * @param origin the process origin
+   * @param table the written table
+   * @param customerId the customer identifier ({@code null} for every customer)
+   *
+   * @return the payload
+   */
+  static String payload(final String origin, final String table, final UUID customerId) {
+    return origin + SEPARATOR + table + SEPARATOR + (customerId == null ? "" : customerId.toString());
+  }
+
+  /**
+   * Build notification payload for several customers
+   *
+   * @param origin the process origin
+   * @param table the written table
+   * @param customerIds the customers identifiers
+   *
+   * @return the payload
+   */
+  static String listPayload(final String origin, final String table, final List<UUID> customerIds) {
+    return origin + SEPARATOR + table + SEPARATOR
+        + customerIds.stream().map(UUID::toString).collect(Collectors.joining(String.valueOf(ID_SEPARATOR)));
+  }
+
+  /**
+   * Send notification.<br>
+   * Notification is sent asynchronously: failure is only logged.
+   *
+   * @param payload the notification payload
+   * @param table the written table
+   * @param written the written customers description
+   */
+  private void send(final String payload, final String table, final Object written) {
+    jdbc.queryWithParams(REQ_NOTIFY, new JsonArray(Arrays.asList(channel, payload)), res -> {
+      if(res.failed()) {
+        LOG.warn("Unable to publish {} {} invalidation: {}", table, written, res.cause().getMessage());
+      }
+    });
+  }
+
+  /**
+   * Publish write to other processes.<br>
+   * Notification is sent asynchronously: failure is only logged.
+   *
+   * @param table the written table
+   * @param customerId the customer identifier ({@code null} for every customer)
+   */
+  public void publish(final String table, final UUID customerId) {
+    send(payload(origin, table, customerId), table, customerId);
+  }
+
+  /**
+   * Publish writes of several customers to other processes.<br>
+   * Identifiers are sent by notifications of at most {@value #MAX_IDS} customers.
+   * Notifications are sent asynchronously: failures are only logged.
+   *
+   * @param table the written table
+   * @param customerIds the customers identifiers
+   */
+  public void publish(final String table, final List<UUID> customerIds) {
+    for(int i = 0 ; i < customerIds.size() ; i += MAX_IDS) {
+      final List<UUID> ids = customerIds.subList(i, Math.min(customerIds.size(), i + MAX_IDS));
+      send(listPayload(origin, table, ids), table, ids.size() + " customers");
+    }
+  }
+
+  /**
+   * Parse notification and call handler for each customer if it comes from another process
+   *
+   * @param payload the notification payload
+   * @param handler the handler
+   */
+  void handle(final String payload, final BiConsumer<String, UUID> handler) {
+    final int tableIdx = payload.indexOf(SEPARATOR);
+    final int idIdx = payload.indexOf(SEPARATOR, tableIdx + 1);
+    if(tableIdx < 0 || idIdx < 0) {
+      LOG.warn("Invalid invalidation notification: {}", payload);
+      return;
+    }
+    if(origin.equals(payload.substring(0, tableIdx))) {
+      return;
+    }
+    final String table = payload.substring(tableIdx + 1, idIdx);
+    final String ids = payload.substring(idIdx + 1);
+    if(ids.isEmpty()) {
+      handler.accept(table, null);
+      return;
+    }
+    final List<UUID> customerIds = new ArrayList<>();
+    int start = 0;
+    while(start <= ids.length()) {
+      int end = ids.indexOf(ID_SEPARATOR, start);
+      if(end < 0) {
+        end = ids.length();
+      }
+      try {
+        customerIds.add(UUID.fromString(ids.substring(start, end)));
+      } catch(final IllegalArgumentException e) {
+        LOG.warn("Invalid invalidation notification: {}", payload);
+        return;
+      }
+      start = end + 1;
+    }
+    customerIds.forEach(customerId -> handler.accept(table, customerId));
+  }
+
+  /**
+   * Listen to writes of other processes.<br>
+   * Handler is called with written table and customer identifier ({@code null} for every
+   * customer). It is called with {@code null} table and customer each time channel has been
+   * subscribed: writes may have been missed, so every customer has to be invalidated.
+   * Listener is reconnected until it succeeds.
+   *
+   * @param vertx the Vert.x instance
+   * @param options the database connection options
+   * @param handler the invalidation handler
+   */
+  public void listen(final Vertx vertx, final PgConnectOptions options, final BiConsumer<String, UUID> handler) {
+    final PgSubscriber subscriber = PgSubscriber.subscriber(vertx, options).reconnectPolicy(retries -> RECONNECT_DELAY);
+    subscriber.channel(channel).subscribeHandler(v -> {
+      LOG.info("Listening to invalidation channel {}", channel);
+      handler.accept(null, null);
+    }).handler(payload -> handle(payload, handler));
+    subscriber.connect(res -> {
+      if(res.failed()) {
+        LOG.error("Unable to listen to invalidation channel " + channel + ": " + res.cause().getMessage(), res.cause());
+        subscriber.close();
+        vertx.setTimer(RECONNECT_DELAY, timer -> listen(vertx, options, handler));
+      }
+    });
+  }
+  // Methods -
+
+}
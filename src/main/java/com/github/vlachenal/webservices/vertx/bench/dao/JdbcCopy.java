@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import io.vertx.core.json.JsonObject;
+
+
+/**
+ * PostgreSQL COPY through JDBC driver.<br>
+ * Asynchronous SQL clients do not support COPY protocol: COPY operations use a dedicated
+ * JDBC connection which must only be used from worker threads.
+ *
+ * @author Vincent Lachenal
+ */
+final class JdbcCopy {
+
+  // Constructors +
+  /**
+   * {@link JdbcCopy} private constructor
+   */
+  private JdbcCopy() {
+    // Nothing to do
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Open JDBC connection (blocking)
+   *
+   * @param dbConfig the database configuration ({@code host}, {@code port}, {@code database}, {@code username} and {@code password})
+   *
+   * @return the connection
+   *
+   * @throws SQLException connection error
+   */
+  static Connection connect(final JsonObject dbConfig) throws SQLException {
+    return DriverManager.getConnection("jdbc:postgresql://" + dbConfig.getString("host") + ':' + dbConfig.getInteger("port")
+                                       + '/' + dbConfig.getString("database"),
+                                       dbConfig.getString("username"), dbConfig.getString("password"));
+  }
+
+  /**
+   * Get COPY API of JDBC connection
+   *
+   * @param connection the JDBC connection
+   *
+   * @return the copy manager
+   *
+   * @throws SQLException not a PostgreSQL connection
+   */
+  static CopyManager copyManager(final Connection connection) throws SQLException {
+    return connection.unwrap(PGConnection.class).getCopyAPI();
+  }
+
+  /**
+   * Close JDBC connection quietly
+   *
+   * @param connection the connection to close
+   */
+  static void close(final Connection connection) {
+    try {
+      connection.close();
+    } catch(final SQLException e) {
+      // Nothing more can be done
+    }
+  }
+  // Methods -
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.vertx.core.json.JsonArray;
+
+
+/**
+ * Multi-row INSERT built from a single row INSERT request.<br>
+ * Rows are inserted by chunks of at most {@code maxRows} rows. Requests are built once by
+ * row count, so there is at most {@code maxRows} distinct prepared statements per table.
+ *
+ * @author Vincent Lachenal
+ */
+final class MultiRowInsert {
+
+  // Attributes +
+  /** Request prefix (until {@code VALUES} keyword) */
+  private final String prefix;
+
+  /** Row placeholders */
+  private final String row;
+
+  /** Requests by row count */
+  private final String[] requests;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MultiRowInsert} constructor
+   *
+   * @param insert the single row INSERT request ({@code INSERT INTO ... VALUES (?,...)})
+   * @param maxRows the maximum number of rows per request
+   */
+  MultiRowInsert(final String insert, final int maxRows) {
+    final int values = insert.lastIndexOf("VALUES ") + "VALUES ".length();
+    prefix = insert.substring(0, values);
+    row = insert.substring(values).trim();
+    requests = new String[maxRows + 1];
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get request for row count
+   *
+   * @param rows the number of rows
+   *
+   * @return the SQL request
+   */
+  String sql(final int rows) {
+    String req = requests[rows];
+    if(req == null) {
+      final StringBuilder builder = new StringBuilder(prefix.length() + rows * (row.length() + 1)).append(prefix).append(row);
+      for(int i = 1 ; i < rows ; ++i) {
+        builder.append(',').append(row);
+      }
+      req = builder.toString();
+      requests[rows] = req;
+    }
+    return req;
+  }
+
+  /**
+   * Add multi-row INSERT statements to transaction
+   *
+   * @param tx the transaction
+   * @param phase the phase name
+   * @param rows the rows parameters
+   */
+  void addTo(final TransactionPipeline tx, final String phase, final List<JsonArray> rows) {
+    final int maxRows = requests.length - 1;
+    for(int start = 0 ; start < rows.size() ; start += maxRows) {
+      final int end = Math.min(rows.size(), start + maxRows);
+      final List<Object> params = new ArrayList<>();
+      for(final JsonArray values : rows.subList(start, end)) {
+        values.forEach(params::add);
+      }
+      tx.update(phase, sql(end - start), new JsonArray(params));
+    }
+  }
+  // Methods -
+
+}
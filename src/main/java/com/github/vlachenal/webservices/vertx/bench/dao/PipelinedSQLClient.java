@@ -0,0 +1,1391 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.SQLOptions;
+import io.vertx.ext.sql.SQLRowStream;
+import io.vertx.ext.sql.TransactionIsolation;
+import io.vertx.ext.sql.UpdateResult;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+
+
+/**
+ * {@link SQLClient} implementation based on reactive PostgreSQL client.<br>
+ * Single statements are sent through a few long-lived connections in round robin: each
+ * connection pipelines up to {@code pipeliningLimit} statements, so point lookups do not
+ * wait for a free connection. Prepared statements are cached by connection. Connections
+ * given by {@link #getConnection(Handler)} (transactions, cursors) come from a regular
+ * pool since their statements have to be sent on an exclusive connection.<br>
+ * This client has to be used from the event loop which has created it.
+ *
+ * @author Vincent Lachenal
+ */
+public class PipelinedSQLClient implements SQLClient {
+
+  // Attributes +
+  /** {@link PipelinedSQLClient} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(PipelinedSQLClient.class);
+
+  /** Delay before reconnecting a closed pipelined connection (ms) */
+  private static final long RECONNECT_DELAY = 1000L;
+
+  /** Default number of rows fetched per round trip by row streams */
+  private static final int DEFAULT_FETCH_SIZE = 500;
+
+  /** JDBC call escape syntax: {@code {[? =] call name[(args)]}} */
+  private static final Pattern CALL = Pattern.compile("\\{\\s*(\\?\\s*=\\s*)?call\\s+([^\\s(]+)\\s*(?:\\((.*)\\))?\\s*}", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  /** Vert.x instance */
+  private final Vertx vertx;
+
+  /** Connection options */
+  private final PgConnectOptions options;
+
+  /** Pool for exclusive connections */
+  private final PgPool pool;
+
+  /** Pipelined connections ({@code null} when connection is lost) */
+  private final PgConnection[] pipelined;
+
+  /** Next pipelined connection index */
+  private int next;
+
+  /** Closed flag */
+  private boolean closed;
+
+  /** PostgreSQL request by JDBC-like request ('?' placeholders) */
+  private final Map<String, String> requests = new HashMap<>();
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link PipelinedSQLClient} constructor
+   *
+   * @param vertx the Vert.x instance
+   * @param options the connection options
+   * @param poolOptions the exclusive connections pool options
+   * @param connections the number of pipelined connections
+   */
+  private PipelinedSQLClient(final Vertx vertx, final PgConnectOptions options, final PoolOptions poolOptions, final int connections) {
+    this.vertx = vertx;
+    this.options = options;
+    pool = PgPool.pool(vertx, options, poolOptions);
+    pipelined = new PgConnection[connections];
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Create connection options from asynchronous PostgreSQL client configuration keys
+   * ({@code host}, {@code port}, {@code database}, {@code username} and {@code password})
+   *
+   * @param config the database configuration
+   *
+   * @return the connection options
+   */
+  public static PgConnectOptions connectOptions(final JsonObject config) {
+    return new PgConnectOptions()
+        .setHost(config.getString("host"))
+        .setPort(config.getInteger("port"))
+        .setDatabase(config.getString("database"))
+        .setUser(config.getString("username"))
+        .setPassword(config.getString("password"));
+  }
+
+  /**
+   * Create client and open its pipelined connections.<br>
+   * Configuration uses the same keys than asynchronous PostgreSQL client ({@code host},
+   * {@code port}, {@code database}, {@code username}, {@code password} and
+   * {@code maxPoolSize}) plus {@code pipelinedConnections}, {@code pipeliningLimit} and
+   * {@code preparedStatementCacheMaxSize}.
+   *
+   * @param vertx the Vert.x instance
+   * @param config the database configuration
+   * @param destination the destination result
+   */
+  public static void create(final Vertx vertx, final JsonObject config, final Handler<AsyncResult<SQLClient>> destination) {
+    final PgConnectOptions options = connectOptions(config)
+        .setCachePreparedStatements(true)
+        .setPreparedStatementCacheMaxSize(config.getInteger("preparedStatementCacheMaxSize", PgConnectOptions.DEFAULT_PREPARED_STATEMENT_CACHE_MAX_SIZE))
+        .setPipeliningLimit(config.getInteger("pipeliningLimit", PgConnectOptions.DEFAULT_PIPELINING_LIMIT));
+    final PoolOptions poolOptions = new PoolOptions().setMaxSize(config.getInteger("maxPoolSize", PoolOptions.DEFAULT_MAX_SIZE));
+    final PipelinedSQLClient client = new PipelinedSQLClient(vertx, options, poolOptions, config.getInteger("pipelinedConnections", 2));
+    @SuppressWarnings("rawtypes")
+    final List<Future> connections = new ArrayList<>(client.pipelined.length);
+    for(int i = 0 ; i < client.pipelined.length ; ++i) {
+      final Promise<Void> connected = Promise.promise();
+      client.connect(i, connected);
+      connections.add(connected.future());
+    }
+    CompositeFuture.all(connections).setHandler(res -> {
+      if(res.failed()) {
+        client.close();
+        destination.handle(Future.failedFuture(res.cause()));
+      } else {
+        destination.handle(Future.succeededFuture(client));
+      }
+    });
+  }
+
+  /**
+   * Open pipelined connection.<br>
+   * Connection is opened again when it is closed unexpectedly.
+   *
+   * @param idx the connection index
+   * @param destination the destination result
+   */
+  private void connect(final int idx, final Handler<AsyncResult<Void>> destination) {
+    PgConnection.connect(vertx, options, res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+        return;
+      }
+      final PgConnection connection = res.result();
+      pipelined[idx] = connection;
+      connection.closeHandler(v -> {
+        pipelined[idx] = null;
+        if(!closed) {
+          LOG.warn("Pipelined connection {} has been closed. Reconnect it in {}ms", idx, RECONNECT_DELAY);
+          vertx.setTimer(RECONNECT_DELAY, t -> connect(idx, rec -> {
+            if(rec.failed()) {
+              LOG.error("Unable to reconnect pipelined connection " + idx + ": " + rec.cause().getMessage(), rec.cause());
+            }
+          }));
+        }
+      });
+      destination.handle(Future.succeededFuture());
+    });
+  }
+
+  /**
+   * Get next pipelined connection.<br>
+   * Pool is used when no pipelined connection is available.
+   *
+   * @return the SQL client
+   */
+  private SqlClient nextClient() {
+    for(int i = 0 ; i < pipelined.length ; ++i) {
+      final PgConnection connection = pipelined[next];
+      next = (next + 1) % pipelined.length;
+      if(connection != null) {
+        return connection;
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Convert JDBC-like request placeholders ('?') to PostgreSQL ones ('$n').<br>
+   * Question marks in string literals are kept.
+   *
+   * @param sql the SQL request
+   *
+   * @return the PostgreSQL request
+   */
+  static String convertPlaceholders(final String sql) {
+    final StringBuilder pgReq = new StringBuilder(sql.length() + 16);
+    int idx = 0;
+    boolean quoted = false;
+    for(final char c : sql.toCharArray()) {
+      if(c == '\'') {
+        quoted = !quoted;
+      }
+      if(c == '?' && !quoted) {
+        pgReq.append('$').append(++idx);
+      } else {
+        pgReq.append(c);
+      }
+    }
+    return pgReq.toString();
+  }
+
+  /**
+   * Split call arguments on top level commas.<br>
+   * Commas in string literals and parentheses are kept.
+   *
+   * @param args the call arguments
+   *
+   * @return the arguments
+   */
+  private static List<String> splitArguments(final String args) {
+    final List<String> split = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    boolean quoted = false;
+    for(int i = 0 ; i < args.length() ; ++i) {
+      final char c = args.charAt(i);
+      if(c == '\'') {
+        quoted = !quoted;
+      } else if(!quoted && c == '(') {
+        ++depth;
+      } else if(!quoted && c == ')') {
+        --depth;
+      } else if(!quoted && depth == 0 && c == ',') {
+        split.add(args.substring(start, i).trim());
+        start = i + 1;
+      }
+    }
+    split.add(args.substring(start).trim());
+    return split;
+  }
+
+  /**
+   * Count placeholders ('?' which are not in string literals)
+   *
+   * @param sql the SQL fragment
+   *
+   * @return the number of placeholders
+   */
+  private static int countPlaceholders(final String sql) {
+    int count = 0;
+    boolean quoted = false;
+    for(int i = 0 ; i < sql.length() ; ++i) {
+      final char c = sql.charAt(i);
+      if(c == '\'') {
+        quoted = !quoted;
+      } else if(c == '?' && !quoted) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Convert call to PostgreSQL statement.<br>
+   * JDBC call escape syntax ({@code {[? =] call name(args)}}) is converted to
+   * {@code SELECT * FROM name(args)}: PostgreSQL returns function result and output
+   * parameters as result columns, so output only placeholders (output value without input
+   * value, function result) are removed from arguments. Other statements are sent as is.
+   *
+   * @param sql the call statement
+   * @param params the input parameters by placeholder index (can be {@code null})
+   * @param outputs the output parameters by placeholder index (can be {@code null})
+   *
+   * @return the call request
+   */
+  static CallRequest toCallRequest(final String sql, final JsonArray params, final JsonArray outputs) {
+    final Matcher matcher = CALL.matcher(sql.trim());
+    if(!matcher.matches()) {
+      return new CallRequest(sql, params, new boolean[0]);
+    }
+    final List<Boolean> outs = new ArrayList<>();
+    final List<Object> inputs = new ArrayList<>();
+    final List<String> args = new ArrayList<>();
+    if(matcher.group(1) != null) {
+      outs.add(true);
+    }
+    if(matcher.group(3) != null && !matcher.group(3).trim().isEmpty()) {
+      for(final String arg : splitArguments(matcher.group(3))) {
+        final int idx = outs.size();
+        final boolean output = outputs != null && idx < outputs.size() && outputs.getValue(idx) != null;
+        final boolean input = params != null && idx < params.size() && params.getValue(idx) != null;
+        if("?".equals(arg) && output && !input) {
+          outs.add(true);
+          continue;
+        }
+        for(int i = countPlaceholders(arg) ; i > 0 ; --i) {
+          final int cur = outs.size();
+          outs.add(outputs != null && cur < outputs.size() && outputs.getValue(cur) != null);
+          inputs.add(params != null && cur < params.size() ? params.getValue(cur) : null);
+        }
+        args.add(arg);
+      }
+    }
+    final boolean[] flags = new boolean[outs.size()];
+    for(int i = 0 ; i < flags.length ; ++i) {
+      flags[i] = outs.get(i);
+    }
+    return new CallRequest("SELECT * FROM " + matcher.group(2) + '(' + String.join(",", args) + ')', new JsonArray(inputs), flags);
+  }
+
+  /**
+   * Get PostgreSQL request from JDBC-like request (conversion is cached)
+   *
+   * @param sql the SQL request
+   *
+   * @return the PostgreSQL request
+   */
+  private String toPgRequest(final String sql) {
+    return requests.computeIfAbsent(sql, PipelinedSQLClient::convertPlaceholders);
+  }
+
+  /**
+   * Convert parameters to tuple
+   *
+   * @param params the parameters
+   *
+   * @return the tuple
+   */
+  static Tuple toTuple(final JsonArray params) {
+    final Tuple tuple = Tuple.tuple();
+    if(params != null) {
+      for(final Object param : params.getList()) {
+        if(param instanceof Date) {
+          tuple.addValue(Dates.toLocalDate((Date)param));
+        } else {
+          tuple.addValue(param);
+        }
+      }
+    }
+    return tuple;
+  }
+
+  /**
+   * Convert row value to JSON array value
+   *
+   * @param value the row value
+   *
+   * @return the JSON value
+   */
+  private static Object toJsonValue(final Object value) {
+    if(value instanceof UUID || value instanceof LocalDate) {
+      return value.toString();
+    }
+    return value;
+  }
+
+  /**
+   * Convert row to JSON array
+   *
+   * @param row the row
+   *
+   * @return the JSON array
+   */
+  static JsonArray toJsonArray(final Row row) {
+    final List<Object> values = new ArrayList<>(row.size());
+    for(int i = 0 ; i < row.size() ; ++i) {
+      values.add(toJsonValue(row.getValue(i)));
+    }
+    return new JsonArray(values);
+  }
+
+  /**
+   * Convert row set to result set
+   *
+   * @param rows the row set
+   *
+   * @return the result set
+   */
+  static ResultSet toResultSet(final RowSet rows) {
+    final List<JsonArray> results = new ArrayList<>(rows.size());
+    for(final Row row : rows) {
+      results.add(toJsonArray(row));
+    }
+    return new ResultSet(rows.columnsNames(), results, null);
+  }
+
+  /**
+   * Convert row set to update result
+   *
+   * @param rows the row set
+   *
+   * @return the update result
+   */
+  static UpdateResult toUpdateResult(final RowSet rows) {
+    return new UpdateResult(rows.rowCount(), new JsonArray());
+  }
+
+  /**
+   * Execute query on client
+   *
+   * @param client the SQL client
+   * @param sql the JDBC-like SQL request
+   * @param params the parameters
+   * @param handler the result handler
+   */
+  void query(final SqlClient client, final String sql, final JsonArray params, final Handler<AsyncResult<ResultSet>> handler) {
+    client.preparedQuery(toPgRequest(sql), toTuple(params), res -> handler.handle(res.map(PipelinedSQLClient::toResultSet)));
+  }
+
+  /**
+   * Execute update on client
+   *
+   * @param client the SQL client
+   * @param sql the JDBC-like SQL request
+   * @param params the parameters
+   * @param handler the result handler
+   */
+  void update(final SqlClient client, final String sql, final JsonArray params, final Handler<AsyncResult<UpdateResult>> handler) {
+    client.preparedQuery(toPgRequest(sql), toTuple(params), res -> handler.handle(res.map(PipelinedSQLClient::toUpdateResult)));
+  }
+
+  /**
+   * Execute batch on client
+   *
+   * @param client the SQL client
+   * @param sql the JDBC-like SQL request
+   * @param args the parameters
+   * @param handler the result handler
+   */
+  void batch(final SqlClient client, final String sql, final List<JsonArray> args, final Handler<AsyncResult<List<Integer>>> handler) {
+    final List<Tuple> batch = new ArrayList<>(args.size());
+    for(final JsonArray params : args) {
+      batch.add(toTuple(params));
+    }
+    client.preparedBatch(toPgRequest(sql), batch, res -> handler.handle(res.map(rows -> {
+      final List<Integer> counts = new ArrayList<>(args.size());
+      for(RowSet cur = rows ; cur != null ; cur = cur.next()) {
+        counts.add(cur.rowCount());
+      }
+      return counts;
+    })));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#getConnection(io.vertx.core.Handler)
+   */
+  @Override
+  public SQLClient getConnection(final Handler<AsyncResult<SQLConnection>> handler) {
+    pool.getConnection(res -> handler.handle(res.map(con -> new PipelinedSQLConnection(con))));
+    return this;
+  }
+
+  /**
+   * Check if connection pipelines its statements.<br>
+   * Statements can be sent on such connection without waiting for previous statements results.
+   *
+   * @param connection the SQL connection
+   *
+   * @return {@code true} when statements are pipelined, {@code false} otherwise
+   */
+  public static boolean isPipelined(final SQLConnection connection) {
+    return connection instanceof PipelinedSQLConnection;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#query(java.lang.String, io.vertx.core.Handler)
+   */
+  @Override
+  public SQLClient query(final String sql, final Handler<AsyncResult<ResultSet>> handler) {
+    nextClient().query(sql, res -> handler.handle(res.map(PipelinedSQLClient::toResultSet)));
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#queryWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+   */
+  @Override
+  public SQLClient queryWithParams(final String sql, final JsonArray arguments, final Handler<AsyncResult<ResultSet>> handler) {
+    query(nextClient(), sql, arguments, handler);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#update(java.lang.String, io.vertx.core.Handler)
+   */
+  @Override
+  public SQLClient update(final String sql, final Handler<AsyncResult<UpdateResult>> handler) {
+    nextClient().query(sql, res -> handler.handle(res.map(PipelinedSQLClient::toUpdateResult)));
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#updateWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+   */
+  @Override
+  public SQLClient updateWithParams(final String sql, final JsonArray params, final Handler<AsyncResult<UpdateResult>> handler) {
+    update(nextClient(), sql, params, handler);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#close(io.vertx.core.Handler)
+   */
+  @Override
+  public void close(final Handler<AsyncResult<Void>> handler) {
+    close();
+    handler.handle(Future.succeededFuture());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see io.vertx.ext.sql.SQLClient#close()
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for(final PgConnection connection : pipelined) {
+      if(connection != null) {
+        connection.close();
+      }
+    }
+    pool.close();
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * {@link SQLConnection} implementation on exclusive reactive PostgreSQL connection.<br>
+   * Like asynchronous PostgreSQL client, a transaction is started before the first
+   * statement which follows {@code setAutoCommit(false)}, commit or rollback.<br>
+   * Transaction statements are sent without waiting for previous ones: {@code BEGIN},
+   * statements and {@code COMMIT} are pipelined. Since PostgreSQL rolls back a failed
+   * transaction on {@code COMMIT}, commit result is a failure when one of the
+   * transaction statements has failed.<br>
+   * Row streams read a portal by {@code fetchSize} rows: in auto-commit mode, a transaction
+   * is started for the stream and committed when it ends. Calls in JDBC escape syntax are
+   * run as {@code SELECT * FROM function(args)}. Session characteristics changed by options
+   * or transaction isolation are reset when connection is closed.
+   */
+  private class PipelinedSQLConnection implements SQLConnection {
+
+    /** Reactive connection */
+    private final SqlConnection connection;
+
+    /** Auto-commit flag */
+    private boolean autoCommit = true;
+
+    /** Current transaction ({@code null} when no transaction is in progress) */
+    private TransactionState transaction;
+
+    /** Number of rows fetched per round trip by row streams */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /** Session characteristics have been changed */
+    private boolean sessionChanged;
+
+    /**
+     * {@link PipelinedSQLConnection} constructor
+     *
+     * @param connection the reactive connection
+     */
+    private PipelinedSQLConnection(final SqlConnection connection) {
+      this.connection = connection;
+    }
+
+    /**
+     * Get client to use for the next statement.<br>
+     * Transaction is started when needed.
+     *
+     * @return the client
+     */
+    private SqlClient client() {
+      if(!autoCommit && transaction == null) {
+        transaction = new TransactionState();
+        connection.query("BEGIN", track(res -> {
+          // Failure is reported by commit
+        }));
+      }
+      return connection;
+    }
+
+    /**
+     * Track statement failure in current transaction
+     *
+     * @param <T> the result type
+     *
+     * @param handler the statement result handler
+     *
+     * @return the tracking handler
+     */
+    private <T> Handler<AsyncResult<T>> track(final Handler<AsyncResult<T>> handler) {
+      final TransactionState tx = transaction;
+      if(tx == null) {
+        return handler;
+      }
+      return res -> {
+        if(res.failed()) {
+          tx.failed = true;
+        }
+        handler.handle(res);
+      };
+    }
+
+    /**
+     * Commit or rollback current transaction
+     *
+     * @param commit commit or rollback
+     * @param handler the result handler
+     */
+    private void end(final boolean commit, final Handler<AsyncResult<Void>> handler) {
+      final TransactionState tx = transaction;
+      transaction = null;
+      if(tx == null) {
+        handler.handle(Future.succeededFuture());
+        return;
+      }
+      connection.query(commit ? "COMMIT" : "ROLLBACK", res -> {
+        if(res.failed()) {
+          handler.handle(Future.failedFuture(res.cause()));
+        } else if(commit && tx.failed) {
+          handler.handle(Future.failedFuture(new IllegalStateException("Transaction has been rolled back: one of its statements has failed")));
+        } else {
+          handler.handle(Future.succeededFuture());
+        }
+      });
+    }
+
+    /**
+     * Change session characteristic
+     *
+     * @param sql the SET statement
+     * @param handler the result handler
+     */
+    private void set(final String sql, final Handler<AsyncResult<Void>> handler) {
+      sessionChanged = true;
+      connection.query(sql, res -> handler.handle(res.mapEmpty()));
+    }
+
+    /**
+     * Send statements without waiting for previous ones and collect their row counts
+     *
+     * @param size the number of statements
+     * @param statement the statement sender (statement index, row count handler)
+     * @param handler the result handler
+     */
+    private void pipeline(final int size, final BiConsumer<Integer, Handler<AsyncResult<Integer>>> statement, final Handler<AsyncResult<List<Integer>>> handler) {
+      @SuppressWarnings("rawtypes")
+      final List<Future> counts = new ArrayList<>(size);
+      for(int i = 0 ; i < size ; ++i) {
+        final Promise<Integer> count = Promise.promise();
+        statement.accept(i, track(count));
+        counts.add(count.future());
+      }
+      CompositeFuture.all(counts).setHandler(res -> handler.handle(res.map(CompositeFuture::<Integer>list)));
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * Fetch size, query timeout, read only flag and transaction isolation are applied.
+     * Other options are JDBC specific.
+     *
+     * @see io.vertx.ext.sql.SQLConnection#setOptions(io.vertx.ext.sql.SQLOptions)
+     */
+    @Override
+    public SQLConnection setOptions(final SQLOptions options) {
+      final Handler<AsyncResult<Void>> logged = res -> {
+        if(res.failed()) {
+          LOG.error("Unable to apply SQL options: " + res.cause().getMessage(), res.cause());
+        }
+      };
+      fetchSize = options.getFetchSize() > 0 ? options.getFetchSize() : DEFAULT_FETCH_SIZE;
+      if(options.getQueryTimeout() > 0) {
+        set("SET statement_timeout = " + options.getQueryTimeout() * 1000L, logged);
+      }
+      if(options.isReadOnly()) {
+        set("SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY", logged);
+      }
+      if(options.getTransactionIsolation() != null) {
+        setTransactionIsolation(options.getTransactionIsolation(), logged);
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#setAutoCommit(boolean, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection setAutoCommit(final boolean autoCommit, final Handler<AsyncResult<Void>> resultHandler) {
+      this.autoCommit = autoCommit;
+      if(autoCommit) {
+        end(true, resultHandler);
+      } else {
+        resultHandler.handle(Future.succeededFuture());
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#execute(java.lang.String, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection execute(final String sql, final Handler<AsyncResult<Void>> resultHandler) {
+      client().query(sql, track(res -> resultHandler.handle(res.mapEmpty())));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#query(java.lang.String, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection query(final String sql, final Handler<AsyncResult<ResultSet>> resultHandler) {
+      client().query(sql, track(res -> resultHandler.handle(res.map(PipelinedSQLClient::toResultSet))));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#queryStream(java.lang.String, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection queryStream(final String sql, final Handler<AsyncResult<SQLRowStream>> handler) {
+      return queryStreamWithParams(sql, null, handler);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#queryWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection queryWithParams(final String sql, final JsonArray params, final Handler<AsyncResult<ResultSet>> resultHandler) {
+      PipelinedSQLClient.this.query(client(), sql, params, track(resultHandler));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#queryStreamWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection queryStreamWithParams(final String sql, final JsonArray params, final Handler<AsyncResult<SQLRowStream>> handler) {
+      // PostgreSQL portals only live in a transaction
+      final SqlConnection implicit = autoCommit && transaction == null ? connection : null;
+      if(implicit != null) {
+        connection.query("BEGIN", res -> {
+          // Failure is reported by statement preparation
+        });
+      }
+      client();
+      connection.prepare(toPgRequest(sql), track(res -> {
+        if(res.succeeded()) {
+          new PipelinedRowStream(res.result().createStream(fetchSize, toTuple(params)), implicit, handler);
+        } else if(implicit == null) {
+          handler.handle(Future.failedFuture(res.cause()));
+        } else {
+          connection.query("ROLLBACK", rb -> handler.handle(Future.failedFuture(res.cause())));
+        }
+      }));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#update(java.lang.String, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection update(final String sql, final Handler<AsyncResult<UpdateResult>> resultHandler) {
+      client().query(sql, track(res -> resultHandler.handle(res.map(PipelinedSQLClient::toUpdateResult))));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#updateWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection updateWithParams(final String sql, final JsonArray params, final Handler<AsyncResult<UpdateResult>> resultHandler) {
+      PipelinedSQLClient.this.update(client(), sql, params, track(resultHandler));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#call(java.lang.String, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection call(final String sql, final Handler<AsyncResult<ResultSet>> resultHandler) {
+      return callWithParams(sql, null, null, resultHandler);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#callWithParams(java.lang.String, io.vertx.core.json.JsonArray, io.vertx.core.json.JsonArray, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection callWithParams(final String sql, final JsonArray params, final JsonArray outputs, final Handler<AsyncResult<ResultSet>> resultHandler) {
+      final CallRequest call = toCallRequest(sql, params, outputs);
+      PipelinedSQLClient.this.query(client(), call.sql, call.params, track(res -> resultHandler.handle(res.map(call::toCallResult))));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#close(io.vertx.core.Handler)
+     */
+    @Override
+    public void close(final Handler<AsyncResult<Void>> handler) {
+      close();
+      handler.handle(Future.succeededFuture());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#close()
+     */
+    @Override
+    public void close() {
+      final List<String> resets = new ArrayList<>(2);
+      if(transaction != null) {
+        transaction = null;
+        resets.add("ROLLBACK");
+      }
+      if(sessionChanged) {
+        resets.add("RESET ALL");
+      }
+      if(resets.isEmpty()) {
+        connection.close();
+      } else {
+        connection.query(String.join(";", resets), res -> connection.close());
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#commit(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection commit(final Handler<AsyncResult<Void>> handler) {
+      end(true, handler);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#rollback(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection rollback(final Handler<AsyncResult<Void>> handler) {
+      end(false, handler);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#batch(java.util.List, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection batch(final List<String> sqlStatements, final Handler<AsyncResult<List<Integer>>> handler) {
+      pipeline(sqlStatements.size(), (idx, count) -> client().query(sqlStatements.get(idx), res -> count.handle(res.map(RowSet::rowCount))), handler);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#batchWithParams(java.lang.String, java.util.List, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection batchWithParams(final String sqlStatement, final List<JsonArray> args, final Handler<AsyncResult<List<Integer>>> handler) {
+      PipelinedSQLClient.this.batch(client(), sqlStatement, args, track(handler));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#batchCallableWithParams(java.lang.String, java.util.List, java.util.List, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection batchCallableWithParams(final String sqlStatement, final List<JsonArray> inArgs, final List<JsonArray> outArgs,
+                                                 final Handler<AsyncResult<List<Integer>>> handler) {
+      pipeline(inArgs.size(), (idx, count) -> {
+        final CallRequest call = toCallRequest(sqlStatement, inArgs.get(idx), outArgs == null || idx >= outArgs.size() ? null : outArgs.get(idx));
+        PipelinedSQLClient.this.update(client(), call.sql, call.params, res -> count.handle(res.map(UpdateResult::getUpdated)));
+      }, handler);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#setTransactionIsolation(io.vertx.ext.sql.TransactionIsolation, io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection setTransactionIsolation(final TransactionIsolation isolation, final Handler<AsyncResult<Void>> handler) {
+      if(isolation == TransactionIsolation.NONE) {
+        handler.handle(Future.failedFuture(new IllegalArgumentException("PostgreSQL transactions can not be unisolated")));
+      } else {
+        set("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL " + isolation.name().replace('_', ' '), handler);
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLConnection#getTransactionIsolation(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLConnection getTransactionIsolation(final Handler<AsyncResult<TransactionIsolation>> handler) {
+      connection.query("SHOW transaction_isolation", res -> handler.handle(res.map(rows -> {
+        final String level = rows.iterator().next().getString(0);
+        return TransactionIsolation.valueOf(level.toUpperCase(Locale.ROOT).replace(' ', '_'));
+      })));
+      return this;
+    }
+
+  }
+
+  /**
+   * Pipelined transaction state
+   */
+  private static final class TransactionState {
+
+    /** One of transaction statements has failed */
+    private boolean failed;
+
+  }
+
+  /**
+   * Call statement converted for PostgreSQL
+   */
+  static final class CallRequest {
+
+    /** JDBC-like SQL request */
+    final String sql;
+
+    /** Input parameters of SQL request */
+    final JsonArray params;
+
+    /** Output flags by call placeholder index */
+    final boolean[] outputs;
+
+    /**
+     * {@link CallRequest} constructor
+     *
+     * @param sql the JDBC-like SQL request
+     * @param params the input parameters of SQL request
+     * @param outputs the output flags by call placeholder index
+     */
+    private CallRequest(final String sql, final JsonArray params, final boolean[] outputs) {
+      this.sql = sql;
+      this.params = params;
+      this.outputs = outputs;
+    }
+
+    /**
+     * Set call output in result set.<br>
+     * Output values are read from the first row in result columns order: output array has
+     * one value by call placeholder ({@code null} for input only placeholders).
+     *
+     * @param result the SQL request result set
+     *
+     * @return the result set
+     */
+    ResultSet toCallResult(final ResultSet result) {
+      if(outputs.length == 0) {
+        return result;
+      }
+      final JsonArray row = result.getNumRows() == 0 ? null : result.getResults().get(0);
+      final JsonArray output = new JsonArray();
+      int column = 0;
+      for(final boolean out : outputs) {
+        output.add(out && row != null && column < row.size() ? row.getValue(column++) : null);
+      }
+      return result.setOutput(output);
+    }
+
+  }
+
+  /**
+   * {@link SQLRowStream} implementation on reactive row stream.<br>
+   * The first row is read before the stream is given to its consumer in order to know
+   * columns names. Transaction started for the stream (PostgreSQL portals only live in a
+   * transaction) is committed when the stream ends or is closed.
+   */
+  private static final class PipelinedRowStream implements SQLRowStream {
+
+    /** Reactive row stream */
+    private final RowStream<Row> rows;
+
+    /** Connection of transaction started for the stream ({@code null} when there is none) */
+    private SqlConnection transaction;
+
+    /** Stream opening handler (until first row is read) */
+    private Handler<AsyncResult<SQLRowStream>> opened;
+
+    /** Columns names */
+    private List<String> columns = Collections.emptyList();
+
+    /** First row (until it is delivered) */
+    private Row first;
+
+    /** Rows have been read */
+    private boolean ended;
+
+    /** Result set has been closed */
+    private boolean finished;
+
+    /** Stream has been ended */
+    private boolean done;
+
+    /** Paused flag */
+    private boolean paused;
+
+    /** Row handler */
+    private Handler<JsonArray> handler;
+
+    /** End handler */
+    private Handler<Void> endHandler;
+
+    /** Exception handler */
+    private Handler<Throwable> exceptionHandler;
+
+    /** Result set closed handler */
+    private Handler<Void> closedHandler;
+
+    /**
+     * {@link PipelinedRowStream} constructor
+     *
+     * @param rows the reactive row stream
+     * @param transaction the connection of transaction started for the stream (can be {@code null})
+     * @param opened the stream opening handler
+     */
+    private PipelinedRowStream(final RowStream<Row> rows, final SqlConnection transaction, final Handler<AsyncResult<SQLRowStream>> opened) {
+      this.rows = rows;
+      this.transaction = transaction;
+      this.opened = opened;
+      rows.exceptionHandler(this::fail);
+      rows.endHandler(v -> {
+        ended = true;
+        if(this.opened != null) {
+          open();
+        } else if(!paused && first == null) {
+          finish();
+        }
+      });
+      rows.handler(this::receive);
+    }
+
+    /**
+     * Give stream to its consumer
+     */
+    private void open() {
+      final Handler<AsyncResult<SQLRowStream>> open = opened;
+      opened = null;
+      open.handle(Future.succeededFuture(this));
+    }
+
+    /**
+     * Handle row
+     *
+     * @param row the row
+     */
+    private void receive(final Row row) {
+      if(opened == null) {
+        deliver(row);
+        return;
+      }
+      first = row;
+      final List<String> names = new ArrayList<>(row.size());
+      for(int i = 0 ; i < row.size() ; ++i) {
+        names.add(row.getColumnName(i));
+      }
+      columns = names;
+      rows.pause();
+      open();
+    }
+
+    /**
+     * Deliver row to consumer
+     *
+     * @param row the row
+     */
+    private void deliver(final Row row) {
+      if(handler != null) {
+        handler.handle(toJsonArray(row));
+      }
+    }
+
+    /**
+     * Deliver pending first row
+     *
+     * @return {@code true} when the stream can go on, {@code false} when consumer has paused it
+     */
+    private boolean flush() {
+      if(first != null) {
+        final Row row = first;
+        first = null;
+        deliver(row);
+      }
+      if(paused) {
+        return false;
+      }
+      if(ended) {
+        finish();
+        return false;
+      }
+      return true;
+    }
+
+    /**
+     * Handle stream failure
+     *
+     * @param error the error
+     */
+    private void fail(final Throwable error) {
+      done = true;
+      end(res -> {
+        if(opened != null) {
+          final Handler<AsyncResult<SQLRowStream>> open = opened;
+          opened = null;
+          open.handle(Future.failedFuture(error));
+        } else if(exceptionHandler != null) {
+          exceptionHandler.handle(error);
+        }
+      });
+    }
+
+    /**
+     * Close result set
+     */
+    private void finish() {
+      if(finished) {
+        return;
+      }
+      finished = true;
+      if(closedHandler == null) {
+        moreResults();
+      } else {
+        closedHandler.handle(null);
+      }
+    }
+
+    /**
+     * Commit transaction started for the stream
+     *
+     * @param handler the result handler
+     */
+    private void end(final Handler<AsyncResult<Void>> handler) {
+      final SqlConnection tx = transaction;
+      transaction = null;
+      if(tx == null) {
+        handler.handle(Future.succeededFuture());
+      } else {
+        tx.query("COMMIT", res -> handler.handle(res.mapEmpty()));
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#exceptionHandler(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLRowStream exceptionHandler(final Handler<Throwable> handler) {
+      exceptionHandler = handler;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#handler(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLRowStream handler(final Handler<JsonArray> handler) {
+      this.handler = handler;
+      if(handler != null) {
+        resume();
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#pause()
+     */
+    @Override
+    public SQLRowStream pause() {
+      paused = true;
+      rows.pause();
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#resume()
+     */
+    @Override
+    public SQLRowStream resume() {
+      paused = false;
+      if(flush()) {
+        rows.resume();
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.core.streams.ReadStream#fetch(long)
+     */
+    @Override
+    public SQLRowStream fetch(final long amount) {
+      long remaining = amount;
+      if(first != null && remaining > 0) {
+        --remaining;
+      }
+      if(flush() && remaining > 0) {
+        rows.fetch(remaining);
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#endHandler(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLRowStream endHandler(final Handler<Void> handler) {
+      endHandler = handler;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#column(java.lang.String)
+     */
+    @Override
+    public int column(final String name) {
+      return columns.indexOf(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#columns()
+     */
+    @Override
+    public List<String> columns() {
+      return columns;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#resultSetClosedHandler(io.vertx.core.Handler)
+     */
+    @Override
+    public SQLRowStream resultSetClosedHandler(final Handler<Void> handler) {
+      closedHandler = handler;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * PostgreSQL query returns a single result set: stream ends.
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#moreResults()
+     */
+    @Override
+    public void moreResults() {
+      if(done) {
+        return;
+      }
+      done = true;
+      end(res -> {
+        if(res.failed() && exceptionHandler != null) {
+          exceptionHandler.handle(res.cause());
+        } else if(endHandler != null) {
+          endHandler.handle(null);
+        }
+      });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#close()
+     */
+    @Override
+    public void close() {
+      close(res -> {
+        if(res.failed()) {
+          LOG.error("Unable to close row stream: " + res.cause().getMessage(), res.cause());
+        }
+      });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see io.vertx.ext.sql.SQLRowStream#close(io.vertx.core.Handler)
+     */
+    @Override
+    public void close(final Handler<AsyncResult<Void>> handler) {
+      done = true;
+      first = null;
+      rows.close(res -> {
+        if(res.failed()) {
+          handler.handle(res);
+        } else {
+          end(handler);
+        }
+      });
+    }
+
+  }
+  // Classes -
+
+}
@@ -0,0 +1,708 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.vlachenal.webservices.vertx.bench.cache.BloomFilter;
+import com.github.vlachenal.webservices.vertx.bench.cache.ExistenceFilter;
+import com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+
+
+/**
+ * Customer DAO based on SQL client
+ *
+ * @author Vincent Lachenal
+ */
+public class SQLCustomerDAO implements CustomerDAO {
+
+  // Attributes +
+  /** {@link SQLCustomerDAO} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(SQLCustomerDAO.class);
+
+  /** MySQL and PostgreSQL date format ... */
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+  // SQL requests +
+  /**
+   * Customers with their address and phones SQL request.<br>
+   * There is one row per phone (or a single row without phone): customer and address
+   * columns are repeated in each row.
+   */
+  private static final String REQ_DETAILS = "SELECT c.id,c.first_name,c.last_name,c.birth_date,c.email,"
+      + "a.id,a.line1,a.line2,a.line3,a.line4,a.line5,a.line6,a.zip_code,a.city,a.country,"
+      + "p.id,p.phone_type,p.number "
+      + "FROM Customer c "
+      + "LEFT JOIN Address a ON a.customer_id = c.id "
+      + "LEFT JOIN Phone p ON p.customer_id = c.id";
+
+  /** Get customer details with its address and phones SQL request */
+  private static final String REQ_GET_DETAILS = REQ_DETAILS + " WHERE c.id = ?";
+
+  /** Export customers SQL request */
+  private static final String REQ_EXPORT = "SELECT id,first_name,last_name,birth_date,email FROM Customer";
+
+  /** Export customers as JSON SQL request (one JSON object per row) */
+  private static final String REQ_EXPORT_JSON = "SELECT json_build_object('id',id,'first_name',first_name,'last_name',last_name,"
+      + "'birth_date',birth_date,'email',email) FROM Customer";
+
+  /**
+   * Export customers with their address and phones as JSON SQL request (one JSON object per row).<br>
+   * Phones are aggregated before join so each table is read only once.
+   */
+  private static final String REQ_EXPORT_JSON_DETAILS = "SELECT json_build_object('id',c.id,'first_name',c.first_name,'last_name',c.last_name,"
+      + "'birth_date',c.birth_date,'email',c.email,"
+      + "'address',CASE WHEN a.id IS NULL THEN NULL ELSE json_build_object('id',a.id,"
+      + "'lines',array_remove(ARRAY[a.line1,a.line2,a.line3,a.line4,a.line5,a.line6],NULL),"
+      + "'zip_code',a.zip_code,'city',a.city,'country',a.country) END,"
+      + "'phones',COALESCE(p.phones,'[]'::json)) "
+      + "FROM Customer c "
+      + "LEFT JOIN Address a ON a.customer_id = c.id "
+      + "LEFT JOIN (SELECT customer_id,json_agg(json_build_object('id',id,'type',"
+      + Arrays.stream(PhoneDTO.Type.values()).map(type -> "WHEN " + type.getCode() + " THEN '" + type.name() + "' ")
+      .collect(Collectors.joining("", "CASE phone_type ", "END"))
+      + ",'number',number)) AS phones FROM Phone GROUP BY customer_id) p ON p.customer_id = c.id";
+
+  /**
+   * COPY options for JSON export.<br>
+   * CSV format with quote and delimiter characters which are always escaped in JSON:
+   * JSON objects are written as is, one per line.
+   */
+  private static final String COPY_JSON_OPTIONS = "(FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+
+  /** Address columns offset in customer details row */
+  private static final int ADDRESS_OFFSET = 5;
+
+  /** Phone columns offset in customer details row */
+  private static final int PHONE_OFFSET = 15;
+
+  /** Delete all customer SQL request */
+  private static final String REQ_DELETE_ALL = "TRUNCATE Phone, Address, Customer";
+
+  /** Delete customer SQL request */
+  private static final String REQ_DELETE = "DELETE FROM Customer WHERE id = ?";
+
+  /** Insert customer in database */
+  public static final String REQ_ADD_CUSTOMER = "INSERT INTO Customer "
+      + "(id,first_name,last_name,birth_date,email) "
+      + "VALUES (?,?,?,?,?)";
+
+  /** Maximum number of rows per multi-row INSERT */
+  private static final int MAX_INSERT_ROWS = 256;
+
+  /** Insert customers in database */
+  private static final MultiRowInsert MULTI_ADD_CUSTOMER = new MultiRowInsert(REQ_ADD_CUSTOMER, MAX_INSERT_ROWS);
+
+  /** Insert addresses in database */
+  private static final MultiRowInsert MULTI_ADD_ADDRESS = new MultiRowInsert(SQLAddressDAO.REQ_ADD_ADDRESS, MAX_INSERT_ROWS);
+
+  /** Insert phones in database */
+  private static final MultiRowInsert MULTI_ADD_PHONE = new MultiRowInsert(SQLPhoneDAO.REQ_ADD_PHONE, MAX_INSERT_ROWS);
+
+  /** Customer exists */
+  private static final String REQ_CUSTOMER_EXISTS = "SELECT 1 FROM Customer WHERE id = ?";
+
+  /** Every customer identifier SQL request */
+  private static final String REQ_CUSTOMER_IDS = "SELECT id FROM Customer";
+
+  /** Number of identifiers fetched per round trip on existence filter rebuild */
+  private static final int IDS_FETCH_SIZE = 10000;
+
+  /**
+   * Maintenance requests executed in sequence after deleting all customers.<br>
+   * TRUNCATE has already released tables storage: statistics only have to be refreshed.
+   */
+  private static final List<String> REQS_DELETE_ALL_MAINTENANCE = Arrays.asList(
+    "VACUUM ANALYZE Customer",
+    "VACUUM ANALYZE Address",
+    "VACUUM ANALYZE Phone"
+  );
+  // SQL requests -
+
+  /** SQL client */
+  private final SQLClient jdbc;
+
+  /** Insertions coalescer ({@code null} when coalescing is disabled) */
+  private CustomerInsertCoalescer coalescer;
+
+  /** Customer table write version ({@code null} when writes are not tracked) */
+  private WriteVersion writeVersion;
+
+  /** Customer identifiers existence filter ({@code null} when filter is disabled) */
+  private ExistenceFilter existence;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SQLCustomerDAO} constructor
+   *
+   * @param jdbc the SQl client to use
+   */
+  public SQLCustomerDAO(final SQLClient jdbc) {
+    this.jdbc = jdbc;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Handle customer exists result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleCustomerExistsRes(final AsyncResult<JsonArray> result, final Handler<AsyncResult<Boolean>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      // There is no row when customer does not exist
+      final boolean exists = result.result() != null;
+      if(existence != null) {
+        existence.record(exists);
+      }
+      destination.handle(Future.succeededFuture(exists));
+    }
+  }
+
+  /**
+   * Check if customer exists.<br>
+   * When existence filter is enabled, database is not requested for customers which definitely
+   * do not exist.
+   *
+   * @param customerId the customer's identifier
+   * @param destination the destination result
+   */
+  @Override
+  public void customerExists(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    if(existence != null && !existence.mightContain(customerId)) {
+      destination.handle(Future.succeededFuture(false));
+      return;
+    }
+    jdbc.querySingleWithParams(REQ_CUSTOMER_EXISTS,
+                               new JsonArray(Collections.singletonList(customerId)),
+                               res -> handleCustomerExistsRes(res, destination));
+  }
+
+  /**
+   * Check if customer might exist without requesting database
+   *
+   * @param customerId the customer's identifier
+   *
+   * @return {@code false} if customer definitely does not exist, {@code true} if it might exist
+   */
+  @Override
+  public boolean mightExist(final UUID customerId) {
+    return existence == null || existence.mightContain(customerId);
+  }
+
+  /**
+   * Enable customer identifiers existence filter.<br>
+   * Filter is updated on customer creation. It has to be built with
+   * {@link #rebuildExistenceFilter(Handler)} before it filters anything.
+   *
+   * @param existence the existence filter
+   */
+  public void enableExistenceFilter(final ExistenceFilter existence) {
+    this.existence = existence;
+  }
+
+  /**
+   * Rebuild existence filter from every customer identifier in database.<br>
+   * Identifiers are read through a cursor. Customers created in the meantime are added to the
+   * rebuilt filter too. When a rebuild is already in progress, it will be started again once
+   * it is over.
+   *
+   * @param destination the destination result (number of identifiers or {@code null} when filter has not been replaced)
+   */
+  public void rebuildExistenceFilter(final Handler<AsyncResult<Long>> destination) {
+    final BloomFilter filter = existence.startRebuild();
+    if(filter == null) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    final AtomicLong count = new AtomicLong();
+    CursorStream.open(jdbc, REQ_CUSTOMER_IDS, new JsonArray(), IDS_FETCH_SIZE, row -> UUID.fromString(row.getString(0)), res -> {
+      if(res.failed()) {
+        abortRebuild(filter, res.cause(), destination);
+        return;
+      }
+      res.result().handler(id -> {
+        filter.add(id);
+        count.incrementAndGet();
+      }).exceptionHandler(cause -> abortRebuild(filter, cause, destination)).endHandler(end -> {
+        final boolean again = existence.completeRebuild(filter, count.get());
+        LOG.info("Customer existence filter has been rebuilt with {} identifiers", count.get());
+        if(again) {
+          rebuildExistenceFilter(destination);
+        } else {
+          destination.handle(Future.succeededFuture(count.get()));
+        }
+      });
+    });
+  }
+
+  /**
+   * Abort existence filter rebuild
+   *
+   * @param filter the filter which has not been rebuilt
+   * @param cause the error
+   * @param destination the destination result
+   */
+  private void abortRebuild(final BloomFilter filter, final Throwable cause, final Handler<AsyncResult<Long>> destination) {
+    LOG.error("Unable to rebuild customer existence filter: " + cause.getMessage(), cause);
+    if(existence.abortRebuild(filter)) {
+      rebuildExistenceFilter(destination);
+    } else {
+      destination.handle(Future.failedFuture(cause));
+    }
+  }
+
+  /**
+   * Forget every customer identifier and rebuild existence filter: customers have been
+   * inserted without this DAO (i.e. bulk import). Every customer might exist until filter has
+   * been rebuilt.
+   *
+   * @param destination the destination result
+   */
+  public void resetExistenceFilter(final Handler<AsyncResult<Long>> destination) {
+    if(existence == null) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    existence.reset();
+    rebuildExistenceFilter(destination);
+  }
+
+  /**
+   * Wrap creation result handler to add new customers to existence filter on success
+   *
+   * @param ids the new customers' identifiers
+   * @param destination the destination result
+   *
+   * @return the wrapped handler
+   */
+  private Handler<AsyncResult<Void>> created(final List<UUID> ids, final Handler<AsyncResult<Void>> destination) {
+    if(existence == null) {
+      return destination;
+    }
+    return res -> {
+      if(res.succeeded()) {
+        ids.forEach(existence::add);
+      }
+      destination.handle(res);
+    };
+  }
+
+  /**
+   * Convert search result row to customer
+   *
+   * @param row the result row (id, first_name, last_name)
+   *
+   * @return the customer
+   */
+  private CustomerDTO toCustomer(final JsonArray row) {
+    return new CustomerDTO(row.getString(0), row.getString(1), row.getString(2));
+  }
+
+  /**
+   * Handle search result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleSearchRes(final AsyncResult<ResultSet> result, final Handler<AsyncResult<List<CustomerDTO>>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      destination.handle(result.map(res -> res.getResults().stream()
+                                    .map(this::toCustomer)
+                                    .collect(Collectors.toList())));
+    }
+  }
+
+  /**
+   * List customers in database ordered by last name, first name and identifier.<br>
+   * When {@link SearchRequestDTO#getAfter()} is set, only customers after it are returned
+   * (keyset pagination): using (last_name,first_name,id) index, each page has the same cost.
+   *
+   * @param request the search request
+   * @param limit the maximum number of customers to return
+   * @param destination the destination result
+   */
+  @Override
+  public void search(final SearchRequestDTO request, final int limit, final Handler<AsyncResult<List<CustomerDTO>>> destination) {
+    final int shape = SearchQueries.shape(request);
+    jdbc.queryWithParams(SearchQueries.pageQuery(shape), SearchQueries.pageParams(request, shape, limit),
+                         result -> handleSearchRes(result, destination));
+  }
+
+  /**
+   * Handle get customer details result.<br>
+   * Customer and its address are read from the first row and phones from every row.
+   *
+   * @param result the SQL result
+   * @param destination the destination result ({@code null} when customer does not exist)
+   */
+  private void handleGetDetailsRes(final AsyncResult<ResultSet> result, final Handler<AsyncResult<CustomerDTO>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+      return;
+    }
+    final List<JsonArray> rows = result.result().getResults();
+    if(rows.isEmpty()) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    final JsonArray first = rows.get(0);
+    final CustomerDTO cust = new CustomerDTO();
+    cust.setId(first.getString(0));
+    cust.setFirstName(first.getString(1));
+    cust.setLastName(first.getString(2));
+    final String birthDate = first.getString(3);
+    if(birthDate != null) {
+      cust.setBirthDate(Dates.toDate(LocalDate.parse(birthDate, DATE_FORMAT)));
+    }
+    cust.setEmail(first.getString(4));
+    if(first.getValue(ADDRESS_OFFSET) != null) {
+      final AddressDTO address = SQLAddressDAO.toAddress(first, ADDRESS_OFFSET + 1);
+      address.setId(first.getString(ADDRESS_OFFSET));
+      cust.setAddress(address);
+    }
+    final Map<String, PhoneDTO> phones = new LinkedHashMap<>();
+    for(final JsonArray row : rows) {
+      final String phoneId = row.getString(PHONE_OFFSET);
+      if(phoneId != null && !phones.containsKey(phoneId)) {
+        phones.put(phoneId, SQLPhoneDAO.toPhone(row, PHONE_OFFSET));
+      }
+    }
+    cust.setPhones(new ArrayList<>(phones.values()));
+    destination.handle(Future.succeededFuture(cust));
+  }
+
+  /**
+   * Get customer details with its address and phones in a single request
+   *
+   * @param customerId the customer identifier
+   * @param destination the destination result ({@code null} when customer does not exist)
+   */
+  @Override
+  public void getDetails(final UUID customerId, final Handler<AsyncResult<CustomerDTO>> destination) {
+    if(existence == null) {
+      jdbc.queryWithParams(REQ_GET_DETAILS, new JsonArray(Collections.singletonList(customerId)), res -> handleGetDetailsRes(res, destination));
+      return;
+    }
+    // Customers which definitely do not exist are not requested
+    if(!existence.mightContain(customerId)) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    jdbc.queryWithParams(REQ_GET_DETAILS, new JsonArray(Collections.singletonList(customerId)), res -> handleGetDetailsRes(res, details -> {
+      if(details.succeeded()) {
+        existence.record(details.result() != null);
+      }
+      destination.handle(details);
+    }));
+  }
+
+  /**
+   * Handle create customer result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   * @param uuid the new customer UUID
+   */
+  private void handleCreateCustomerRes(final AsyncResult<Void> result, final Handler<AsyncResult<String>> destination, final UUID uuid) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      destination.handle(Future.succeededFuture(uuid.toString()));
+    }
+  }
+
+  /**
+   * Enable customer insertions coalescing.<br>
+   * Customers created by {@link #createCustomer(CustomerDTO, Handler)} are then inserted
+   * by groups of at most {@code maxSize} customers, each insertion being delayed by at most
+   * {@code maxDelay} milliseconds. This DAO must then be used from a single event loop.
+   *
+   * @param vertx the Vert.x instance
+   * @param maxSize the maximum number of customers per group
+   * @param maxDelay the maximum insertion delay (ms)
+   */
+  public void enableInsertCoalescing(final Vertx vertx, final int maxSize, final long maxDelay) {
+    coalescer = new CustomerInsertCoalescer(this, vertx, maxSize, maxDelay);
+  }
+  /**
+   * Track customer table writes: version is incremented after each successful write
+   *
+   * @param writeVersion the write version
+   */
+  @Override
+  public void trackWrites(final WriteVersion writeVersion) {
+    this.writeVersion = writeVersion;
+  }
+
+  /**
+   * Wrap write result handler to increment write version on success
+   *
+   * @param <T> the result type
+   *
+   * @param destination the destination result
+   *
+   * @return the wrapped handler
+   */
+  private <T> Handler<AsyncResult<T>> written(final Handler<AsyncResult<T>> destination) {
+    if(writeVersion == null) {
+      return destination;
+    }
+    return res -> {
+      if(res.succeeded()) {
+        writeVersion.bump();
+      }
+      destination.handle(res);
+    };
+  }
+
+
+  /**
+   * Create customer in database with its address and phones.<br>
+   * When insertions coalescing is enabled, customer is inserted with concurrent ones.
+   *
+   * @param customer the customer to create
+   * @param destination the destination result
+   */
+  @Override
+  public void createCustomer(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) {
+    if(coalescer == null) {
+      insertCustomer(customer, destination);
+    } else {
+      coalescer.add(customer, destination);
+    }
+  }
+
+  /**
+   * Insert customer with its address and phones.<br>
+   * Customer, address and phones (as a single batch) are inserted in one transaction.
+   * With pipelined SQL client, the whole transaction is sent at once.
+   *
+   * @param customer the customer to create
+   * @param destination the destination result
+   */
+  void insertCustomer(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) {
+    final UUID customerId = UUID.randomUUID();
+    final TransactionPipeline tx = new TransactionPipeline("createCustomer")
+        .update("customer", REQ_ADD_CUSTOMER, getCustomerValues(customerId, customer));
+    if(customer.getAddress() != null) {
+      tx.update("address", SQLAddressDAO.REQ_ADD_ADDRESS, SQLAddressDAO.getAddressValues(customerId, UUID.randomUUID(), customer.getAddress()));
+    }
+    if(customer.getPhones() != null) {
+      tx.batch("phones", SQLPhoneDAO.REQ_ADD_PHONE, customer.getPhones().stream()
+               .map(phone -> SQLPhoneDAO.getPhoneValues(customerId, phone))
+               .collect(Collectors.toList()));
+    }
+    tx.execute(jdbc, created(Collections.singletonList(customerId), written(res -> handleCreateCustomerRes(res, destination, customerId))));
+  }
+
+  /**
+   * Insert customers with their addresses and phones using multi-row INSERTs in a single
+   * transaction. Either all customers are inserted or none.
+   *
+   * @param customers the customers to create
+   * @param destination the destination result (new customers' identifiers in customers order)
+   */
+  void insertCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<String>>> destination) {
+    final List<String> ids = new ArrayList<>(customers.size());
+    final List<UUID> uuids = new ArrayList<>(customers.size());
+    final List<JsonArray> custRows = new ArrayList<>(customers.size());
+    final List<JsonArray> addrRows = new ArrayList<>();
+    final List<JsonArray> phoneRows = new ArrayList<>();
+    for(final CustomerDTO customer : customers) {
+      final UUID customerId = UUID.randomUUID();
+      ids.add(customerId.toString());
+      uuids.add(customerId);
+      custRows.add(getCustomerValues(customerId, customer));
+      if(customer.getAddress() != null) {
+        addrRows.add(SQLAddressDAO.getAddressValues(customerId, UUID.randomUUID(), customer.getAddress()));
+      }
+      if(customer.getPhones() != null) {
+        for(final PhoneDTO phone : customer.getPhones()) {
+          phoneRows.add(SQLPhoneDAO.getPhoneValues(customerId, phone));
+        }
+      }
+    }
+    final TransactionPipeline tx = new TransactionPipeline("createCustomers");
+    MULTI_ADD_CUSTOMER.addTo(tx, "customers", custRows);
+    MULTI_ADD_ADDRESS.addTo(tx, "addresses", addrRows);
+    MULTI_ADD_PHONE.addTo(tx, "phones", phoneRows);
+    tx.execute(jdbc, created(uuids, written(res -> {
+      if(res.failed()) {
+        destination.handle(Future.failedFuture(res.cause()));
+      } else {
+        destination.handle(Future.succeededFuture(ids));
+      }
+    })));
+  }
+
+  /**
+   * Create customers with their addresses and phones.<br>
+   * Customers are inserted using multi-row INSERTs in a single transaction. When this
+   * transaction fails, each customer is inserted on its own so only invalid customers fail.
+   *
+   * @param customers the customers to create
+   * @param destination the destination result (new customer identifier or error for each customer, in customers order)
+   */
+  @Override
+  public void createCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<AsyncResult<String>>>> destination) {
+    insertCustomers(customers, res -> {
+      if(res.succeeded()) {
+        destination.handle(Future.succeededFuture(res.result().stream()
+                                                  .<AsyncResult<String>>map(Future::succeededFuture)
+                                                  .collect(Collectors.toList())));
+        return;
+      }
+      LOG.debug("Unable to insert {} customers at once ({}): insert them one by one", customers.size(), res.cause().getMessage());
+      final List<Future<String>> results = new ArrayList<>(customers.size());
+      for(final CustomerDTO customer : customers) {
+        final Promise<String> result = Promise.promise();
+        insertCustomer(customer, result);
+        results.add(result.future());
+      }
+      @SuppressWarnings("rawtypes")
+      final List<Future> inserts = new ArrayList<>(results);
+      CompositeFuture.join(inserts).setHandler(all -> {
+        final List<AsyncResult<String>> items = new ArrayList<>(results);
+        destination.handle(Future.succeededFuture(items));
+      });
+    });
+  }
+
+  /**
+   * Get customer values for insertion
+   *
+   * @param customerId the customer identifier
+   * @param customer the customer
+   *
+   * @return the values
+   */
+  private static JsonArray getCustomerValues(final UUID customerId, final CustomerDTO customer) {
+    return new JsonArray(Arrays.asList(customerId,
+                                       customer.getFirstName(),
+                                       customer.getLastName(),
+                                       Dates.toLocalDate(customer.getBirthDate()),
+                                       customer.getEmail()));
+  }
+
+  /**
+   * Get COPY TO STDOUT request which exports customers.<br>
+   * CSV export has the same columns as customer details when {@code details} is set (one
+   * row per phone). JSON export writes one customer per line with the same fields as customer
+   * details resource.
+   *
+   * @param json export as newline delimited JSON instead of CSV
+   * @param details export address and phones with customers
+   * @param header CSV export has a header line
+   *
+   * @return the SQL request
+   */
+  public static String exportRequest(final boolean json, final boolean details, final boolean header) {
+    if(json) {
+      return "COPY (" + (details ? REQ_EXPORT_JSON_DETAILS : REQ_EXPORT_JSON) + ") TO STDOUT WITH " + COPY_JSON_OPTIONS;
+    }
+    return "COPY (" + (details ? REQ_DETAILS : REQ_EXPORT) + ") TO STDOUT WITH (FORMAT csv, HEADER " + header + ")";
+  }
+
+  /**
+   * Delete customer.<br>
+   * Address and phones will be deleted throught foreign key usage (ON DELETE CASCADE).
+   *
+   * @param customerId the customer's identifier
+   * @param destination the destination result ({@code false} when customer does not exist)
+   */
+  @Override
+  public void deleteCustomer(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    jdbc.updateWithParams(REQ_DELETE, new JsonArray(Collections.singletonList(customerId)),
+                          written(res -> destination.handle(res.map(upd -> upd.getUpdated() > 0))));
+  }
+
+  /**
+   * Execute maintenance requests one after the other
+   *
+   * @param index the next request index
+   * @param destination the destination result
+   */
+  private void maintain(final int index, final Handler<AsyncResult<Void>> destination) {
+    if(index == REQS_DELETE_ALL_MAINTENANCE.size()) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    jdbc.update(REQS_DELETE_ALL_MAINTENANCE.get(index), res -> {
+      if(res.failed()) {
+        LOG.error("Unable to execute " + REQS_DELETE_ALL_MAINTENANCE.get(index) + ": " + res.cause().getMessage(), res.cause());
+        destination.handle(Future.failedFuture(res.cause()));
+      } else {
+        maintain(index + 1, destination);
+      }
+    });
+  }
+
+  /**
+   * Delete all customers, addresses and phones in database.<br>
+   * Tables are truncated in a single statement, then maintenance requests are executed in
+   * sequence. Destination is notified once database is ready for a new benchmark round.
+   * Existence filter is rebuilt to forget deleted customers.
+   *
+   * @param deleted the tables truncation handler
+   * @param destination the destination result
+   */
+  @Override
+  public void deleteAll(final Handler<Void> deleted, final Handler<AsyncResult<Void>> destination) {
+    jdbc.update(REQ_DELETE_ALL, written(res -> {
+      if(res.failed()) {
+        LOG.error("Unable to clear database: " + res.cause().getMessage(), res.cause());
+        destination.handle(Future.failedFuture(res.cause()));
+      } else {
+        deleted.handle(null);
+        if(existence != null) {
+          rebuildExistenceFilter(rebuilt -> {});
+        }
+        maintain(0, destination);
+      }
+    }));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.UpdateResult;
+
+
+/**
+ * Phone DAO based on SQL client
+ *
+ * @author Vincent Lachenal
+ */
+public class SQLPhoneDAO implements PhoneDAO {
+
+  // Attributes +
+  // SQL requests +
+  /** Insert phone in database */
+  public static final String REQ_ADD_PHONE = "INSERT INTO Phone "
+      + "(customer_id,phone_type,number,id) "
+      + "VALUES (?,?,?,?)";
+
+  /**
+   * Insert phone if customer exists SQL request.<br>
+   * No row is inserted when customer does not exist.
+   */
+  private static final String REQ_ADD_CUST_PHONE = "INSERT INTO Phone "
+      + "(customer_id,phone_type,number,id) "
+      + "SELECT id,?,?,? FROM Customer WHERE id = ?";
+
+  /** Get customer phone SQL request */
+  private static final String REQ_GET_CUST_PHONE = "SELECT id,phone_type,number FROM phone WHERE id = ? AND customer_id = ?";
+
+  /** Get customer phones SQL request */
+  private static final String REQ_GET_CUST_PHONES = "SELECT id,phone_type,number FROM phone WHERE customer_id = ?";
+
+  /** Delete phone */
+  private static final String REQ_DELETE_PHONE = "DELETE FROM phone WHERE id = ? AND customer_id = ?";
+  // SQL requests -
+
+  /** JDBC template */
+  private final SQLClient jdbc;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SQLPhoneDAO} constructor
+   *
+   * @param jdbc the SQl client to use
+   */
+  public SQLPhoneDAO(final SQLClient jdbc) {
+    this.jdbc = jdbc;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Handle list phones SQL result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleGetPhonesRes(final AsyncResult<ResultSet> result, final Handler<AsyncResult<List<PhoneDTO>>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      destination.handle(result.map(res -> res.getResults().stream()
+                                    .map(row -> getPhone(row))
+                                    .collect(Collectors.toList())));
+    }
+  }
+
+  /**
+   * Get customer's phones
+   *
+   * @param customerId the customer's identifier
+   * @param destination the destination result
+   */
+  @Override
+  public void getPhones(final UUID customerId, final Handler<AsyncResult<List<PhoneDTO>>> destination) {
+    jdbc.queryWithParams(REQ_GET_CUST_PHONES, new JsonArray(Collections.singletonList(customerId)), res -> handleGetPhonesRes(res, destination));
+  }
+
+  /**
+   * Handle add phone SQL result
+   *
+   * @param phoneId the new phone's identifier
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleAddPhoneRes(final UUID phoneId, final AsyncResult<UpdateResult> result, final Handler<AsyncResult<String>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else if(result.result().getUpdated() == 0) {
+      destination.handle(Future.succeededFuture());
+    } else {
+      destination.handle(Future.succeededFuture(phoneId.toString()));
+    }
+  }
+
+  /**
+   * Add phone to customer.<br>
+   * Customer existence is checked by the insertion request itself: there is a single round
+   * trip and customer can not be deleted in between.
+   *
+   * @param customerId the customer identifier
+   * @param phone the phone to add
+   * @param destination the destination result (new phone's identifier or {@code null} when customer does not exist)
+   */
+  @Override
+  public void addPhone(final UUID customerId, final PhoneDTO phone, final Handler<AsyncResult<String>> destination) {
+    final UUID phoneId = UUID.randomUUID();
+    jdbc.updateWithParams(REQ_ADD_CUST_PHONE,
+                          new JsonArray(Arrays.asList(phone.getType().getCode(), phone.getNumber(), phoneId, customerId)),
+                          res -> handleAddPhoneRes(phoneId, res, destination));
+  }
+
+  /**
+   * Set phone values in prepared statement for insertion.<br>
+   * New phone's identifier will be generated by database engine and will not be returned.
+   *
+   * @param customerId the customer's identifier
+   * @param phone the phone
+   */
+  public static JsonArray getPhoneValues(final UUID customerId, final PhoneDTO phone) {
+    return getPhoneValues(UUID.randomUUID(), customerId, phone);
+  }
+
+  /**
+   * Set phone values in prepared statement for insertion
+   *
+   * @param phoneId the new phone identifier (can be {@code null})
+   * @param customerId the customer identifier
+   * @param phone the phone
+   */
+  private static JsonArray getPhoneValues(final UUID phoneId, final UUID customerId, final PhoneDTO phone) {
+    return new JsonArray(Arrays.asList(customerId, phone.getType().getCode(), phone.getNumber(), phoneId));
+  }
+
+  /**
+   * Extract phone from result row
+   *
+   * @param row the result row
+   * @param offset the index of id column (followed by phone_type and number)
+   *
+   * @return the phone
+   */
+  public static PhoneDTO toPhone(final JsonArray row, final int offset) {
+    final PhoneDTO phone = new PhoneDTO();
+    phone.setId(row.getString(offset));
+    phone.setType(PhoneDTO.Type.fromCode(row.getInteger(offset + 1)));
+    phone.setNumber(row.getString(offset + 2).trim());
+    return phone;
+  }
+
+  /**
+   * Extract phone from result set
+   *
+   * @param res the result set
+   *
+   * @return the phone
+   */
+  public PhoneDTO getPhone(final JsonArray res) {
+    return toPhone(res, 0);
+  }
+
+  /**
+   * Handle get phone SQL result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleGetPhoneRes(final AsyncResult<JsonArray> result, final Handler<AsyncResult<PhoneDTO>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      // There is no row when phone does not exist
+      destination.handle(result.map(res -> res == null ? null : getPhone(res)));
+    }
+  }
+
+  /**
+   * Get phone
+   *
+   * @param phoneId the phone identifier
+   * @param customerId the customer identifier
+   * @param destination the destination result ({@code null} when phone does not exist)
+   */
+  @Override
+  public void getPhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<PhoneDTO>> destination) {
+    jdbc.querySingleWithParams(REQ_GET_CUST_PHONE, new JsonArray(Arrays.asList(phoneId, customerId)),
+                               res -> handleGetPhoneRes(res, destination));
+  }
+
+  /**
+   * Handle delete phone SQL result
+   *
+   * @param result the SQL result
+   * @param destination the destination result
+   */
+  private void handleDeletePhoneRes(final AsyncResult<UpdateResult> result, final Handler<AsyncResult<Boolean>> destination) {
+    if(result.failed()) {
+      destination.handle(Future.failedFuture(result.cause()));
+    } else {
+      destination.handle(Future.succeededFuture(result.result().getUpdated() > 0));
+    }
+  }
+
+  /**
+   * Delete phone in a single request
+   *
+   * @param phoneId the phone identifier
+   * @param customerId the customer identifier
+   * @param destination the destination result ({@code false} when phone does not exist)
+   */
+  @Override
+  public void deletePhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    jdbc.updateWithParams(REQ_DELETE_PHONE, new JsonArray(Arrays.asList(phoneId, customerId)), res -> handleDeletePhoneRes(res, destination));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.ext.sql.SQLClient;
+
+
+/**
+ * Database schema bootstrap.<br>
+ * Tables are created by the benchmark database scripts. This class only creates the
+ * objects this application needs on top of them (indexes, ...). Every statement has to be
+ * idempotent: they are executed in order at each startup and a failing statement is
+ * logged without preventing the next ones.
+ *
+ * @author Vincent Lachenal
+ */
+public class SchemaBootstrap {
+
+  // Attributes +
+  /** {@link SchemaBootstrap} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(SchemaBootstrap.class);
+
+  /** Bootstrap SQL requests */
+  private static final List<String> REQS = Arrays.asList(
+    // Keyset pagination index (C collation also serves LIKE prefixes)
+    "CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_name_c_idx ON Customer (" + SearchQueries.NAME_ORDER + ")",
+    "DROP INDEX CONCURRENTLY IF EXISTS customer_name_idx",
+    // Fuzzy search trigram indexes (they also serve LIKE patterns with leading wildcard)
+    "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+    "CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_first_name_trgm_idx ON Customer USING gin (first_name gin_trgm_ops)",
+    "CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_last_name_trgm_idx ON Customer USING gin (last_name gin_trgm_ops)",
+    // Full-text search indexes: expressions have to be the ones of search requests
+    "CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_first_name_fts_idx ON Customer USING gin (" + SearchQueries.FIRST_NAME_VECTOR + ")",
+    "CREATE INDEX CONCURRENTLY IF NOT EXISTS customer_last_name_fts_idx ON Customer USING gin (" + SearchQueries.LAST_NAME_VECTOR + ")"
+  );
+
+  /** SQL client */
+  private final SQLClient jdbc;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SchemaBootstrap} constructor
+   *
+   * @param jdbc the SQL client to use
+   */
+  public SchemaBootstrap(final SQLClient jdbc) {
+    this.jdbc = jdbc;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Execute bootstrap request and the next ones
+   *
+   * @param idx the request index
+   * @param destination the destination result
+   */
+  private void execute(final int idx, final Handler<AsyncResult<Void>> destination) {
+    if(idx >= REQS.size()) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    final String req = REQS.get(idx);
+    jdbc.update(req, res -> {
+      if(res.failed()) {
+        LOG.warn("Unable to execute {}: {}", req, res.cause().getMessage());
+      } else {
+        LOG.debug("{} has been executed", req);
+      }
+      execute(idx + 1, destination);
+    });
+  }
+
+  /**
+   * Execute bootstrap requests in order
+   *
+   * @param destination the destination result
+   */
+  public void bootstrap(final Handler<AsyncResult<Void>> destination) {
+    execute(0, destination);
+  }
+  // Methods -
+
+}
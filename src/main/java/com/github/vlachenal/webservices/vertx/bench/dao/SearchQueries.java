@@ -0,0 +1,337 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.json.JsonArray;
+
+
+/**
+ * Precompiled customer search SQL requests.<br>
+ * Search request has 6 optional criteria, an optional keyset and a search mode. Each
+ * combination of populated fields and mode (request shape) is encoded as a bit mask and its
+ * SQL request is built once at class initialization, so searching does not build any SQL at
+ * runtime: it only extracts parameters in shape order.<br>
+ * Ranked modes replace name LIKE criteria with pg_trgm similarity ({@code %} operator) or
+ * full-text match on the expressions of {@link SchemaBootstrap} GIN indexes and order
+ * customers by relevance.
+ *
+ * @author Vincent Lachenal
+ */
+public final class SearchQueries {
+
+  // Attributes +
+  /** Select clause */
+  private static final String SELECT = "SELECT id,first_name,last_name FROM Customer";
+
+  /**
+   * Customers order (expressions of keyset pagination index). Names are compared by code
+   * point (C collation) whatever database collation is, like {@link #compareNames(String, String)}.
+   */
+  public static final String NAME_ORDER = "last_name COLLATE \"C\",first_name COLLATE \"C\",id";
+
+  /** Keyset clause */
+  private static final String KEYSET = "(" + NAME_ORDER + ") > (?,?,?)";
+
+  /** Page clause */
+  private static final String PAGE = " ORDER BY " + NAME_ORDER + " LIMIT ?";
+
+  /** First name full-text vector (expression of full-text index) */
+  public static final String FIRST_NAME_VECTOR = "to_tsvector('simple',first_name)";
+
+  /** Last name full-text vector (expression of full-text index) */
+  public static final String LAST_NAME_VECTOR = "to_tsvector('simple',last_name)";
+
+  /** Name criteria clauses (first name, last name) by search mode */
+  private static final String[][] NAME_CLAUSES = {
+    { "first_name LIKE ?", "last_name LIKE ?" },
+    { "first_name % ?", "last_name % ?" },
+    { FIRST_NAME_VECTOR + " @@ plainto_tsquery('simple',?)", LAST_NAME_VECTOR + " @@ plainto_tsquery('simple',?)" }
+  };
+
+  /** Name relevance expressions (first name, last name) by search mode */
+  private static final String[][] NAME_RANKS = {
+    {},
+    { "similarity(first_name,?)", "similarity(last_name,?)" },
+    { "ts_rank(" + FIRST_NAME_VECTOR + ",plainto_tsquery('simple',?))", "ts_rank(" + LAST_NAME_VECTOR + ",plainto_tsquery('simple',?))" }
+  };
+
+  /** Criteria (bit index is the array index). Dates are sent as UTC local dates. */
+  private static final Criterion[] CRITERIA = {
+    new Criterion("first_name LIKE ?", SearchRequestDTO::getFirstName),
+    new Criterion("last_name LIKE ?", SearchRequestDTO::getLastName),
+    new Criterion("email = ?", SearchRequestDTO::getEmail),
+    new Criterion("birth_date = ?", req -> Dates.toLocalDate(req.getBirthDate())),
+    new Criterion("birth_date >= ?", req -> Dates.toLocalDate(req.getBornAfter())),
+    new Criterion("birth_date <= ?", req -> Dates.toLocalDate(req.getBornBefore()))
+  };
+
+  /** Keyset bit */
+  private static final int KEYSET_BIT = 1 << CRITERIA.length;
+
+  /** Search mode shift */
+  private static final int MODE_SHIFT = CRITERIA.length + 1;
+
+  /** Search modes */
+  private static final SearchRequestDTO.Mode[] MODES = SearchRequestDTO.Mode.values();
+
+  /** Paged SQL requests by shape */
+  private static final String[] PAGE_QUERIES = new String[(KEYSET_BIT << 1) * MODES.length];
+
+  static {
+    for(int shape = 0 ; shape < PAGE_QUERIES.length ; ++shape) {
+      final int mode = shape >> MODE_SHIFT;
+      final List<String> clauses = new ArrayList<>();
+      final List<String> ranks = new ArrayList<>();
+      for(int i = 0 ; i < CRITERIA.length ; ++i) {
+        if((shape & (1 << i)) != 0) {
+          clauses.add(i < NAME_CLAUSES[mode].length ? NAME_CLAUSES[mode][i] : CRITERIA[i].clause);
+          if(i < NAME_RANKS[mode].length) {
+            ranks.add(NAME_RANKS[mode][i]);
+          }
+        }
+      }
+      if((shape & KEYSET_BIT) != 0) {
+        clauses.add(KEYSET);
+      }
+      final String query = clauses.isEmpty() ? SELECT : SELECT + " WHERE " + String.join(" AND ", clauses);
+      PAGE_QUERIES[shape] = ranks.isEmpty() ? query + PAGE : query + " ORDER BY " + String.join("+", ranks) + " DESC,id LIMIT ?";
+    }
+  }
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SearchQueries} private constructor
+   */
+  private SearchQueries() {
+    // Nothing to do
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Compute search request shape
+   *
+   * @param request the search request
+   *
+   * @return the shape bit mask
+   */
+  public static int shape(final SearchRequestDTO request) {
+    int shape = request.getMode() == null ? 0 : request.getMode().ordinal() << MODE_SHIFT;
+    for(int i = 0 ; i < CRITERIA.length ; ++i) {
+      if(CRITERIA[i].getter.apply(request) != null) {
+        shape |= 1 << i;
+      }
+    }
+    if(request.getAfter() != null) {
+      shape |= KEYSET_BIT;
+    }
+    return shape;
+  }
+
+  /**
+   * Get paged SQL request
+   *
+   * @param shape the request shape
+   *
+   * @return the SQL request
+   */
+  public static String pageQuery(final int shape) {
+    return PAGE_QUERIES[shape];
+  }
+
+  /**
+   * Get criteria parameters
+   *
+   * @param request the search request
+   * @param shape the request shape
+   * @param capacity the parameters list capacity
+   *
+   * @return the parameters
+   */
+  private static List<Object> getCriteria(final SearchRequestDTO request, final int shape, final int capacity) {
+    final List<Object> params = new ArrayList<>(capacity);
+    for(int i = 0 ; i < CRITERIA.length ; ++i) {
+      if((shape & (1 << i)) != 0) {
+        params.add(CRITERIA[i].getter.apply(request));
+      }
+    }
+    return params;
+  }
+
+  /**
+   * Get paged SQL request parameters
+   *
+   * @param request the search request
+   * @param shape the request shape
+   * @param limit the maximum number of customers
+   *
+   * @return the parameters
+   */
+  public static JsonArray pageParams(final SearchRequestDTO request, final int shape, final int limit) {
+    final List<Object> params = getCriteria(request, shape, CRITERIA.length + 6);
+    if((shape & KEYSET_BIT) != 0) {
+      final CustomerDTO after = request.getAfter();
+      params.add(after.getLastName());
+      params.add(after.getFirstName());
+      params.add(UUID.fromString(after.getId()));
+    }
+    // Relevance of names
+    final String[] ranks = NAME_RANKS[shape >> MODE_SHIFT];
+    for(int i = 0 ; i < ranks.length ; ++i) {
+      if((shape & (1 << i)) != 0) {
+        params.add(CRITERIA[i].getter.apply(request));
+      }
+    }
+    params.add(limit);
+    return new JsonArray(params);
+  }
+
+  /**
+   * Get normalized search key: searches which have the same key run the same SQL request
+   * with the same parameters
+   *
+   * @param request the search request
+   * @param limit the maximum number of customers
+   *
+   * @return the key
+   */
+  public static String key(final SearchRequestDTO request, final int limit) {
+    final int shape = shape(request);
+    final StringBuilder key = new StringBuilder().append(shape);
+    for(final Object param : pageParams(request, shape, limit)) {
+      key.append('\u0000').append(param);
+    }
+    return key.toString();
+  }
+
+  /**
+   * Compare names by code point as PostgreSQL C collation does (UTF-8 byte order), so
+   * customers which are not sorted by PostgreSQL are in {@link #NAME_ORDER}.<br>
+   * {@link String#compareTo(String)} compares UTF-16 chars: supplementary characters
+   * (surrogate pairs) would be lesser than the last BMP characters.
+   *
+   * @param a the first name
+   * @param b the second name
+   *
+   * @return the comparison result
+   */
+  public static int compareNames(final String a, final String b) {
+    final int length = Math.min(a.length(), b.length());
+    for(int i = 0 ; i < length ; ++i) {
+      final char ca = a.charAt(i);
+      final char cb = b.charAt(i);
+      if(ca != cb) {
+        if(Character.isSurrogate(ca) != Character.isSurrogate(cb)) {
+          return Character.isSurrogate(ca) ? 1 : -1;
+        }
+        return ca - cb;
+      }
+    }
+    return a.length() - b.length();
+  }
+
+  /**
+   * Convert LIKE criterion to regular expression for searches which are not run by
+   * PostgreSQL ({@code \} escapes wildcards)
+   *
+   * @param pattern the LIKE pattern (can be {@code null})
+   *
+   * @return the regular expression or {@code null}
+   */
+  public static Pattern likePattern(final String pattern) {
+    if(pattern == null) {
+      return null;
+    }
+    final StringBuilder regex = new StringBuilder();
+    final StringBuilder literal = new StringBuilder();
+    for(int i = 0 ; i < pattern.length() ; ++i) {
+      final char c = pattern.charAt(i);
+      if(c == '\\' && i + 1 < pattern.length()) {
+        literal.append(pattern.charAt(++i));
+      } else if(c == '%' || c == '_') {
+        if(literal.length() > 0) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        regex.append(c == '%' ? ".*" : ".");
+      } else {
+        literal.append(c);
+      }
+    }
+    if(literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  /**
+   * Get LIKE criterion literal prefix
+   *
+   * @param pattern the LIKE pattern (can be {@code null})
+   *
+   * @return the characters before the first wildcard (empty when pattern is {@code null})
+   */
+  public static String likePrefix(final String pattern) {
+    if(pattern == null) {
+      return "";
+    }
+    final StringBuilder prefix = new StringBuilder();
+    for(int i = 0 ; i < pattern.length() ; ++i) {
+      final char c = pattern.charAt(i);
+      if(c == '\\' && i + 1 < pattern.length()) {
+        prefix.append(pattern.charAt(++i));
+      } else if(c == '%' || c == '_') {
+        break;
+      } else {
+        prefix.append(c);
+      }
+    }
+    return prefix.toString();
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Search criterion
+   */
+  private static final class Criterion {
+
+    /** SQL clause */
+    private final String clause;
+
+    /** Request value getter */
+    private final Function<SearchRequestDTO, Object> getter;
+
+    /**
+     * {@link Criterion} constructor
+     *
+     * @param clause the SQL clause
+     * @param getter the request value getter
+     */
+    private Criterion(final String clause, final Function<SearchRequestDTO, Object> getter) {
+      this.clause = clause;
+      this.getter = getter;
+    }
+
+  }
+  // Classes -
+
+}
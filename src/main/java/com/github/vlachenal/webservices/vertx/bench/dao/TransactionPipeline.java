@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+
+
+/**
+ * Statements executed in a single transaction.<br>
+ * When connection pipelines its statements (see {@link PipelinedSQLClient}), every
+ * statement and commit are sent at once: transaction costs a single network round trip.
+ * Otherwise, statements are executed one after the other.<br>
+ * Each statement belongs to a named phase. Phase completion times (since transaction
+ * start) are logged at debug level.
+ *
+ * @author Vincent Lachenal
+ */
+public class TransactionPipeline {
+
+  // Attributes +
+  /** {@link TransactionPipeline} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(TransactionPipeline.class);
+
+  /** Transaction name */
+  private final String name;
+
+  /** Transaction steps */
+  private final List<Step> steps = new ArrayList<>();
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link TransactionPipeline} constructor
+   *
+   * @param name the transaction name (used in debug metrics)
+   */
+  public TransactionPipeline(final String name) {
+    this.name = name;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Add update statement
+   *
+   * @param phase the phase name
+   * @param sql the SQL request
+   * @param params the SQL request parameters
+   *
+   * @return {@code this}
+   */
+  public TransactionPipeline update(final String phase, final String sql, final JsonArray params) {
+    steps.add(new Step(phase, sql, Collections.singletonList(params), false));
+    return this;
+  }
+
+  /**
+   * Add batch update statement.<br>
+   * Batch is ignored when there is no parameters.
+   *
+   * @param phase the phase name
+   * @param sql the SQL request
+   * @param args the SQL request parameters for each execution
+   *
+   * @return {@code this}
+   */
+  public TransactionPipeline batch(final String phase, final String sql, final List<JsonArray> args) {
+    if(!args.isEmpty()) {
+      steps.add(new Step(phase, sql, args, true));
+    }
+    return this;
+  }
+
+  /**
+   * Execute statements in transaction.<br>
+   * Transaction is rolled back when one of its statements fails. Its result is the first
+   * failure.
+   *
+   * @param client the SQL client
+   * @param destination the destination result
+   */
+  public void execute(final SQLClient client, final Handler<AsyncResult<Void>> destination) {
+    final Execution exec = new Execution(destination);
+    client.getConnection(con -> {
+      if(con.failed()) {
+        exec.end(con.cause());
+        return;
+      }
+      exec.connection = con.result();
+      exec.phaseDone("connection");
+      exec.connection.setAutoCommit(false, res -> {
+        if(res.failed()) {
+          exec.fail(res.cause());
+        } else if(PipelinedSQLClient.isPipelined(exec.connection)) {
+          sendAll(exec);
+        } else {
+          sendNext(exec, 0, 0);
+        }
+      });
+    });
+  }
+
+  /**
+   * Send every statement and commit without waiting for their results
+   *
+   * @param exec the current execution
+   */
+  private void sendAll(final Execution exec) {
+    for(final Step step : steps) {
+      final Handler<AsyncResult<?>> handler = res -> {
+        if(res.failed()) {
+          exec.failure(res.cause());
+        }
+        exec.phaseDone(step.phase);
+      };
+      if(step.batch) {
+        exec.connection.batchWithParams(step.sql, step.args, handler::handle);
+      } else {
+        exec.connection.updateWithParams(step.sql, step.args.get(0), handler::handle);
+      }
+    }
+    exec.commit();
+  }
+
+  /**
+   * Execute statements one after the other then commit.<br>
+   * Batch statements are executed once per parameters.
+   *
+   * @param exec the current execution
+   * @param stepIdx the current step index
+   * @param argIdx the current step parameters index
+   */
+  private void sendNext(final Execution exec, final int stepIdx, final int argIdx) {
+    if(stepIdx == steps.size()) {
+      exec.commit();
+      return;
+    }
+    final Step step = steps.get(stepIdx);
+    exec.connection.updateWithParams(step.sql, step.args.get(argIdx), res -> {
+      if(res.failed()) {
+        exec.fail(res.cause());
+      } else if(argIdx + 1 < step.args.size()) {
+        sendNext(exec, stepIdx, argIdx + 1);
+      } else {
+        exec.phaseDone(step.phase);
+        sendNext(exec, stepIdx + 1, 0);
+      }
+    });
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Transaction step
+   */
+  private static final class Step {
+
+    /** Phase name */
+    private final String phase;
+
+    /** SQL request */
+    private final String sql;
+
+    /** SQL request parameters */
+    private final List<JsonArray> args;
+
+    /** Batch flag */
+    private final boolean batch;
+
+    /**
+     * {@link Step} constructor
+     *
+     * @param phase the phase name
+     * @param sql the SQL request
+     * @param args the SQL request parameters
+     * @param batch batch flag
+     */
+    private Step(final String phase, final String sql, final List<JsonArray> args, final boolean batch) {
+      this.phase = phase;
+      this.sql = sql;
+      this.args = args;
+      this.batch = batch;
+    }
+
+  }
+
+  /**
+   * Transaction execution state
+   */
+  private final class Execution {
+
+    /** Destination result */
+    private final Handler<AsyncResult<Void>> destination;
+
+    /** Transaction start time (ns) */
+    private final long start = System.nanoTime();
+
+    /** Phases timings */
+    private final StringBuilder timings = LOG.isDebugEnabled() ? new StringBuilder() : null;
+
+    /** SQL connection */
+    private SQLConnection connection;
+
+    /** First failure */
+    private Throwable failure;
+
+    /**
+     * {@link Execution} constructor
+     *
+     * @param destination the destination result
+     */
+    private Execution(final Handler<AsyncResult<Void>> destination) {
+      this.destination = destination;
+    }
+
+    /**
+     * Record phase completion time
+     *
+     * @param phase the phase name
+     */
+    private void phaseDone(final String phase) {
+      if(timings != null) {
+        timings.append(' ').append(phase).append('=').append((System.nanoTime() - start) / 1000L).append("us");
+      }
+    }
+
+    /**
+     * Keep the first failure
+     *
+     * @param cause the failure
+     */
+    private void failure(final Throwable cause) {
+      if(failure == null) {
+        failure = cause;
+      }
+    }
+
+    /**
+     * Commit transaction and release connection.<br>
+     * Going back to auto-commit mode commits without starting a new transaction.
+     */
+    private void commit() {
+      connection.setAutoCommit(true, res -> {
+        if(res.failed()) {
+          failure(res.cause());
+        }
+        phaseDone("commit");
+        connection.close(cl -> end(failure));
+      });
+    }
+
+    /**
+     * Rollback transaction on failure and release connection
+     *
+     * @param cause the failure
+     */
+    private void fail(final Throwable cause) {
+      failure(cause);
+      connection.rollback(res -> connection.close(cl -> end(failure)));
+    }
+
+    /**
+     * Log timings and notify destination
+     *
+     * @param cause the failure ({@code null} on success)
+     */
+    private void end(final Throwable cause) {
+      if(timings != null) {
+        LOG.debug("{} transaction {}:{}", name, cause == null ? "committed" : "failed", timings);
+      }
+      if(cause == null) {
+        destination.handle(Future.succeededFuture());
+      } else {
+        destination.handle(Future.failedFuture(cause));
+      }
+    }
+
+  }
+  // Classes -
+
+}
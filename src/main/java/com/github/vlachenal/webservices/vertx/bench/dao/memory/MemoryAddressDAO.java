@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * Address DAO based on in memory store.<br>
+ * Every request is completed synchronously.
+ *
+ * @author Vincent Lachenal
+ */
+public class MemoryAddressDAO implements AddressDAO {
+
+  // Attributes +
+  /** Memory store */
+  private final MemoryStore store;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MemoryAddressDAO} constructor
+   *
+   * @param store the memory store to use
+   */
+  public MemoryAddressDAO(final MemoryStore store) {
+    this.store = store;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#registerAddress(java.util.UUID, com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO, io.vertx.core.Handler)
+   */
+  @Override
+  public void registerAddress(final UUID customerId, final AddressDTO address, final Handler<AsyncResult<String>> destination) {
+    final AddressDTO copy = StoredCustomer.copy(address);
+    copy.setId(UUID.randomUUID().toString());
+    destination.handle(Future.succeededFuture(store.addAddress(customerId, copy) ? copy.getId() : null));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#getAddress(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void getAddress(final UUID addressId, final Handler<AsyncResult<AddressDTO>> destination) {
+    final AddressDTO address = store.getAddress(addressId);
+    destination.handle(Future.succeededFuture(address == null ? null : StoredCustomer.copy(address)));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#listAddresses(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void listAddresses(final UUID customerId, final Handler<AsyncResult<List<AddressDTO>>> destination) {
+    final StoredCustomer cust = store.get(customerId);
+    destination.handle(Future.succeededFuture(cust == null ? Collections.emptyList()
+                                                           : cust.addresses.stream().map(StoredCustomer::copy).collect(Collectors.toList())));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#deleteAddress(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void deleteAddress(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    destination.handle(Future.succeededFuture(store.removeAddresses(customerId) > 0));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion;
+import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * Customer DAO based on in memory store.<br>
+ * Every request is completed synchronously.
+ *
+ * @author Vincent Lachenal
+ */
+public class MemoryCustomerDAO implements CustomerDAO {
+
+  // Attributes +
+  /** Memory store */
+  private final MemoryStore store;
+
+  /** Customer write version (bumped after every write, {@code null} when writes are not tracked) */
+  private WriteVersion writeVersion;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MemoryCustomerDAO} constructor
+   *
+   * @param store the memory store to use
+   */
+  public MemoryCustomerDAO(final MemoryStore store) {
+    this.store = store;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Bump write version if writes are tracked
+   */
+  private void written() {
+    if(writeVersion != null) {
+      writeVersion.bump();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#customerExists(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void customerExists(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    destination.handle(Future.succeededFuture(store.get(customerId) != null));
+  }
+
+  /**
+   * Check customer existence in store: it never requests anything else.<br>
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#mightExist(java.util.UUID)
+   */
+  @Override
+  public boolean mightExist(final UUID customerId) {
+    return store.get(customerId) != null;
+  }
+
+  /**
+   * Check that search mode is supported: names are only matched by LIKE patterns
+   *
+   * @param request the search request
+   *
+   * @return {@code true} if search mode is supported
+   */
+  private static boolean isSupported(final SearchRequestDTO request) {
+    return request.getMode() == null || !request.getMode().isRanked();
+  }
+
+  /**
+   * Search customers. Ranked search modes are not supported.<br>
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#search(com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO, int, io.vertx.core.Handler)
+   */
+  @Override
+  public void search(final SearchRequestDTO request, final int limit, final Handler<AsyncResult<List<CustomerDTO>>> destination) {
+    if(!isSupported(request)) {
+      destination.handle(Future.failedFuture(new InvalidParametersException(request.getMode() + " search is not supported by memory storage")));
+      return;
+    }
+    destination.handle(Future.succeededFuture(store.search(request, limit)));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#getDetails(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void getDetails(final UUID customerId, final Handler<AsyncResult<CustomerDTO>> destination) {
+    final StoredCustomer cust = store.get(customerId);
+    destination.handle(Future.succeededFuture(cust == null ? null : cust.toDetails()));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#trackWrites(com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion)
+   */
+  @Override
+  public void trackWrites(final WriteVersion writeVersion) {
+    this.writeVersion = writeVersion;
+  }
+
+  /**
+   * Store customer with its address and phones
+   *
+   * @param customer the customer
+   *
+   * @return the new customer's identifier
+   */
+  private String store(final CustomerDTO customer) {
+    final UUID customerId = UUID.randomUUID();
+    final StoredCustomer cust = StoredCustomer.of(customerId, customer);
+    if(customer.getAddress() != null) {
+      final AddressDTO address = StoredCustomer.copy(customer.getAddress());
+      address.setId(UUID.randomUUID().toString());
+      cust.addresses.add(address);
+    }
+    if(customer.getPhones() != null) {
+      for(final PhoneDTO phone : customer.getPhones()) {
+        final PhoneDTO copy = StoredCustomer.copy(phone);
+        copy.setId(UUID.randomUUID().toString());
+        cust.phones.add(copy);
+      }
+    }
+    store.add(cust);
+    return cust.key;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#createCustomer(com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO, io.vertx.core.Handler)
+   */
+  @Override
+  public void createCustomer(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) {
+    final String customerId = store(customer);
+    written();
+    destination.handle(Future.succeededFuture(customerId));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#createCustomers(java.util.List, io.vertx.core.Handler)
+   */
+  @Override
+  public void createCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<AsyncResult<String>>>> destination) {
+    final List<AsyncResult<String>> results = new ArrayList<>(customers.size());
+    for(final CustomerDTO customer : customers) {
+      results.add(Future.succeededFuture(store(customer)));
+    }
+    written();
+    destination.handle(Future.succeededFuture(results));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteCustomer(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void deleteCustomer(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    final boolean deleted = store.remove(customerId) != null;
+    written();
+    destination.handle(Future.succeededFuture(deleted));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteAll(io.vertx.core.Handler, io.vertx.core.Handler)
+   */
+  @Override
+  public void deleteAll(final Handler<Void> deleted, final Handler<AsyncResult<Void>> destination) {
+    store.clear();
+    written();
+    deleted.handle(null);
+    destination.handle(Future.succeededFuture());
+  }
+  // Methods -
+
+}
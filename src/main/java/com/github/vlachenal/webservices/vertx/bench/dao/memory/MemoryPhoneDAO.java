@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * Phone DAO based on in memory store.<br>
+ * Every request is completed synchronously.
+ *
+ * @author Vincent Lachenal
+ */
+public class MemoryPhoneDAO implements PhoneDAO {
+
+  // Attributes +
+  /** Memory store */
+  private final MemoryStore store;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MemoryPhoneDAO} constructor
+   *
+   * @param store the memory store to use
+   */
+  public MemoryPhoneDAO(final MemoryStore store) {
+    this.store = store;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#getPhones(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void getPhones(final UUID customerId, final Handler<AsyncResult<List<PhoneDTO>>> destination) {
+    final StoredCustomer cust = store.get(customerId);
+    destination.handle(Future.succeededFuture(cust == null ? Collections.emptyList()
+                                                           : cust.phones.stream().map(StoredCustomer::copy).collect(Collectors.toList())));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#addPhone(java.util.UUID, com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO, io.vertx.core.Handler)
+   */
+  @Override
+  public void addPhone(final UUID customerId, final PhoneDTO phone, final Handler<AsyncResult<String>> destination) {
+    final StoredCustomer cust = store.get(customerId);
+    if(cust == null) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    final PhoneDTO copy = StoredCustomer.copy(phone);
+    copy.setId(UUID.randomUUID().toString());
+    cust.phones.add(copy);
+    destination.handle(Future.succeededFuture(copy.getId()));
+  }
+
+  /**
+   * Find customer's phone
+   *
+   * @param phoneId the phone identifier
+   * @param cust the customer (can be {@code null})
+   *
+   * @return the stored phone or {@code null}
+   */
+  private static PhoneDTO find(final UUID phoneId, final StoredCustomer cust) {
+    if(cust == null) {
+      return null;
+    }
+    final String key = phoneId.toString();
+    return cust.phones.stream().filter(phone -> key.equals(phone.getId())).findFirst().orElse(null);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#getPhone(java.util.UUID, java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void getPhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<PhoneDTO>> destination) {
+    final PhoneDTO phone = find(phoneId, store.get(customerId));
+    destination.handle(Future.succeededFuture(phone == null ? null : StoredCustomer.copy(phone)));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#deletePhone(java.util.UUID, java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void deletePhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    final StoredCustomer cust = store.get(customerId);
+    final PhoneDTO phone = find(phoneId, cust);
+    destination.handle(Future.succeededFuture(phone != null && cust.phones.remove(phone)));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.SearchQueries;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+
+/**
+ * In memory customers store.<br>
+ * Customers are stored in a concurrent map by identifier. Secondary indexes are maintained on
+ * write:
+ * <ul>
+ * <li>last name: a sorted set in search order (last name, first name, identifier) which
+ * serves keyset pagination and last name prefixes without sorting</li>
+ * <li>email: customers by email</li>
+ * <li>birth date: customers by sorted epoch day for equality and range criteria</li>
+ * </ul>
+ * Secondary index entries are immutable sets replaced on write, so concurrent writes on the
+ * same key are never lost. Store is shared by name between verticle instances and can be used
+ * from any thread. Searches are weakly consistent with concurrent writes.
+ *
+ * @author Vincent Lachenal
+ */
+public class MemoryStore implements Shareable {
+
+  // Attributes +
+  /** Shared stores map name */
+  private static final String STORES_MAP = MemoryStore.class.getName();
+
+  /** Customers by identifier */
+  private final ConcurrentHashMap<UUID, StoredCustomer> customers = new ConcurrentHashMap<>();
+
+  /** Last name index (search order) */
+  private final ConcurrentSkipListSet<StoredCustomer> byName = new ConcurrentSkipListSet<>(StoredCustomer.NAME_ORDER);
+
+  /** Email index */
+  private final ConcurrentHashMap<String, Set<StoredCustomer>> byEmail = new ConcurrentHashMap<>();
+
+  /** Birth date index */
+  private final ConcurrentSkipListMap<Long, Set<StoredCustomer>> byBirthDay = new ConcurrentSkipListMap<>();
+
+  /** Address owners by address identifier */
+  private final ConcurrentHashMap<UUID, UUID> addressOwners = new ConcurrentHashMap<>();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Get shared store for name. Store is created if it does not exist yet.
+   *
+   * @param vertx the Vert.x instance
+   * @param name the store name
+   *
+   * @return the store
+   */
+  public static MemoryStore shared(final Vertx vertx, final String name) {
+    final LocalMap<String, MemoryStore> stores = vertx.sharedData().getLocalMap(STORES_MAP);
+    final MemoryStore created = new MemoryStore();
+    final MemoryStore existing = stores.putIfAbsent(name, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Add customer to secondary index entry
+   *
+   * @param <K> the index key type
+   *
+   * @param index the index
+   * @param key the customer key ({@code null} values are not indexed)
+   * @param cust the customer
+   */
+  private static <K> void index(final ConcurrentMap<K, Set<StoredCustomer>> index, final K key, final StoredCustomer cust) {
+    if(key == null) {
+      return;
+    }
+    index.compute(key, (k, set) -> {
+      final Set<StoredCustomer> next = set == null ? new HashSet<>() : new HashSet<>(set);
+      next.add(cust);
+      return Collections.unmodifiableSet(next);
+    });
+  }
+
+  /**
+   * Remove customer from secondary index entry. Entry is removed once it is empty.
+   *
+   * @param <K> the index key type
+   *
+   * @param index the index
+   * @param key the customer key
+   * @param cust the customer
+   */
+  private static <K> void unindex(final ConcurrentMap<K, Set<StoredCustomer>> index, final K key, final StoredCustomer cust) {
+    if(key == null) {
+      return;
+    }
+    index.computeIfPresent(key, (k, set) -> {
+      final Set<StoredCustomer> next = new HashSet<>(set);
+      next.remove(cust);
+      return next.isEmpty() ? null : Collections.unmodifiableSet(next);
+    });
+  }
+
+  /**
+   * Get customer
+   *
+   * @param customerId the customer identifier
+   *
+   * @return the customer or {@code null} when it does not exist
+   */
+  StoredCustomer get(final UUID customerId) {
+    return customers.get(customerId);
+  }
+
+  /**
+   * Get number of customers
+   *
+   * @return the number of customers
+   */
+  public int size() {
+    return customers.size();
+  }
+
+  /**
+   * Add customer and index it
+   *
+   * @param cust the customer
+   */
+  void add(final StoredCustomer cust) {
+    customers.put(cust.id, cust);
+    byName.add(cust);
+    index(byEmail, cust.email, cust);
+    index(byBirthDay, cust.birthDay, cust);
+    cust.addresses.forEach(address -> addressOwners.put(UUID.fromString(address.getId()), cust.id));
+  }
+
+  /**
+   * Remove customer with its address and phones
+   *
+   * @param customerId the customer identifier
+   *
+   * @return the removed customer or {@code null} when it does not exist
+   */
+  StoredCustomer remove(final UUID customerId) {
+    final StoredCustomer cust = customers.remove(customerId);
+    if(cust != null) {
+      byName.remove(cust);
+      unindex(byEmail, cust.email, cust);
+      unindex(byBirthDay, cust.birthDay, cust);
+      cust.addresses.forEach(address -> addressOwners.remove(UUID.fromString(address.getId())));
+    }
+    return cust;
+  }
+
+  /**
+   * Remove every customer
+   */
+  void clear() {
+    customers.clear();
+    byName.clear();
+    byEmail.clear();
+    byBirthDay.clear();
+    addressOwners.clear();
+  }
+
+  /**
+   * Add address to customer
+   *
+   * @param customerId the customer identifier
+   * @param address the address with its identifier
+   *
+   * @return {@code false} when customer does not exist
+   */
+  boolean addAddress(final UUID customerId, final AddressDTO address) {
+    final StoredCustomer cust = customers.get(customerId);
+    if(cust == null) {
+      return false;
+    }
+    final UUID addressId = UUID.fromString(address.getId());
+    addressOwners.put(addressId, customerId);
+    cust.addresses.add(address);
+    if(customers.get(customerId) != cust) {
+      // Customer has been removed in the meantime
+      addressOwners.remove(addressId);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Find address
+   *
+   * @param addressId the address identifier
+   *
+   * @return the address or {@code null} when it does not exist
+   */
+  AddressDTO getAddress(final UUID addressId) {
+    final UUID owner = addressOwners.get(addressId);
+    final StoredCustomer cust = owner == null ? null : customers.get(owner);
+    if(cust == null) {
+      return null;
+    }
+    final String key = addressId.toString();
+    return cust.addresses.stream().filter(address -> key.equals(address.getId())).findFirst().orElse(null);
+  }
+
+  /**
+   * Remove customer's addresses
+   *
+   * @param customerId the customer identifier
+   *
+   * @return the number of removed addresses
+   */
+  int removeAddresses(final UUID customerId) {
+    final StoredCustomer cust = customers.get(customerId);
+    if(cust == null) {
+      return 0;
+    }
+    int removed = 0;
+    for(final AddressDTO address : cust.addresses) {
+      if(cust.addresses.remove(address)) {
+        addressOwners.remove(UUID.fromString(address.getId()));
+        ++removed;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Search customers with the same criteria and order as SQL search requests.<br>
+   * Candidates are read from the most selective index: email, then birth date, then last
+   * name prefix, then birth date range. Without any of them, last name index is scanned in
+   * search order from keyset position and scan stops as soon as {@code limit} customers match.
+   *
+   * @param request the search request
+   * @param limit the maximum number of customers to return
+   *
+   * @return the customers ordered by last name, first name and identifier
+   */
+  public List<CustomerDTO> search(final SearchRequestDTO request, final int limit) {
+    final Query query = new Query(request);
+    final Collection<StoredCustomer> candidates;
+    if(request.getEmail() != null) {
+      candidates = byEmail.getOrDefault(request.getEmail(), Collections.emptySet());
+    } else if(query.birthDay != null) {
+      candidates = byBirthDay.getOrDefault(query.birthDay, Collections.emptySet());
+    } else if(query.lastNamePrefix.isEmpty() && (query.bornAfter != null || query.bornBefore != null)) {
+      final Long from = query.bornAfter == null ? Long.MIN_VALUE : query.bornAfter;
+      final Long to = query.bornBefore == null ? Long.MAX_VALUE : query.bornBefore;
+      candidates = from > to ? Collections.emptyList() : byBirthDay.subMap(from, true, to, true).values().stream()
+          .flatMap(Set::stream)
+          .collect(Collectors.toList());
+    } else {
+      return scanNames(query, limit);
+    }
+    return candidates.stream()
+        .filter(query::matches)
+        .sorted(StoredCustomer.NAME_ORDER)
+        .limit(limit)
+        .map(StoredCustomer::toSummary)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Scan last name index in search order
+   *
+   * @param query the search query
+   * @param limit the maximum number of customers to return
+   *
+   * @return the customers
+   */
+  private List<CustomerDTO> scanNames(final Query query, final int limit) {
+    // Start after keyset position or at last name prefix whichever comes last
+    StoredCustomer from = StoredCustomer.bound("", query.lastNamePrefix, "");
+    if(query.after != null && StoredCustomer.NAME_ORDER.compare(query.after, from) > 0) {
+      from = query.after;
+    }
+    final List<CustomerDTO> found = new ArrayList<>(Math.min(limit, 1024));
+    for(final StoredCustomer cust : byName.tailSet(from, false)) {
+      if(found.size() >= limit || cust.lastName == null || !cust.lastName.startsWith(query.lastNamePrefix)) {
+        break;
+      }
+      if(query.matches(cust)) {
+        found.add(cust.toSummary());
+      }
+    }
+    return found;
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Compiled search request
+   */
+  private final class Query {
+
+    /** First name LIKE pattern */
+    private final Pattern firstName;
+
+    /** Last name LIKE pattern */
+    private final Pattern lastName;
+
+    /** Last name literal prefix (empty when pattern starts with a wildcard) */
+    private final String lastNamePrefix;
+
+    /** Email */
+    private final String email;
+
+    /** Birth date as epoch day */
+    private final Long birthDay;
+
+    /** Minimum birth date as epoch day */
+    private final Long bornAfter;
+
+    /** Maximum birth date as epoch day */
+    private final Long bornBefore;
+
+    /** Keyset pagination position */
+    private final StoredCustomer after;
+
+    /**
+     * {@link Query} constructor
+     *
+     * @param request the search request
+     */
+    private Query(final SearchRequestDTO request) {
+      firstName = SearchQueries.likePattern(request.getFirstName());
+      lastName = SearchQueries.likePattern(request.getLastName());
+      lastNamePrefix = SearchQueries.likePrefix(request.getLastName());
+      email = request.getEmail();
+      birthDay = StoredCustomer.toEpochDay(request.getBirthDate());
+      bornAfter = StoredCustomer.toEpochDay(request.getBornAfter());
+      bornBefore = StoredCustomer.toEpochDay(request.getBornBefore());
+      final CustomerDTO position = request.getAfter();
+      after = position == null ? null : StoredCustomer.bound(position.getFirstName(), position.getLastName(), UUID.fromString(position.getId()).toString());
+    }
+
+    /**
+     * Check if customer matches every criterion. Removed customers never match.
+     *
+     * @param cust the customer
+     *
+     * @return {@code true} if customer matches
+     */
+    private boolean matches(final StoredCustomer cust) {
+      return customers.get(cust.id) == cust
+          && (after == null || StoredCustomer.NAME_ORDER.compare(cust, after) > 0)
+          && (firstName == null || cust.firstName != null && firstName.matcher(cust.firstName).matches())
+          && (lastName == null || cust.lastName != null && lastName.matcher(cust.lastName).matches())
+          && (email == null || email.equals(cust.email))
+          && (birthDay == null || birthDay.equals(cust.birthDay))
+          && (bornAfter == null || cust.birthDay != null && cust.birthDay >= bornAfter)
+          && (bornBefore == null || cust.birthDay != null && cust.birthDay <= bornBefore);
+    }
+
+  }
+  // Classes -
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+
+
+/**
+ * Customer stored in memory.<br>
+ * Indexed fields are immutable. Address and phones are copy-on-write lists of private copies:
+ * they can be read while they are written from another thread.
+ *
+ * @author Vincent Lachenal
+ */
+final class StoredCustomer {
+
+  // Attributes +
+  /**
+   * Customer order: last name, first name and identifier as in SQL search requests.
+   * Identifiers are compared as strings which is the same as PostgreSQL UUID order.
+   */
+  static final Comparator<StoredCustomer> NAME_ORDER = Comparator
+      .comparing((final StoredCustomer cust) -> cust.lastName, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparing(cust -> cust.firstName, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparing(cust -> cust.key);
+
+  /** Customer identifier */
+  final UUID id;
+
+  /** Customer identifier as string */
+  final String key;
+
+  /** First name */
+  final String firstName;
+
+  /** Last name */
+  final String lastName;
+
+  /** Email */
+  final String email;
+
+  /** Birth date as epoch day ({@code null} when it is not set) */
+  final Long birthDay;
+
+  /** Addresses */
+  final List<AddressDTO> addresses = new CopyOnWriteArrayList<>();
+
+  /** Phones */
+  final List<PhoneDTO> phones = new CopyOnWriteArrayList<>();
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link StoredCustomer} constructor
+   *
+   * @param id the customer identifier
+   * @param firstName the first name
+   * @param lastName the last name
+   * @param email the email
+   * @param birthDay the birth date as epoch day
+   */
+  StoredCustomer(final UUID id, final String firstName, final String lastName, final String email, final Long birthDay) {
+    this.id = id;
+    key = id.toString();
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.email = email;
+    this.birthDay = birthDay;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Create stored customer from DTO without its address and phones
+   *
+   * @param id the customer identifier
+   * @param customer the customer
+   *
+   * @return the stored customer
+   */
+  static StoredCustomer of(final UUID id, final CustomerDTO customer) {
+    return new StoredCustomer(id, customer.getFirstName(), customer.getLastName(), customer.getEmail(), toEpochDay(customer.getBirthDate()));
+  }
+
+  /**
+   * Create search bound: it is before every customer with the same names and a greater identifier
+   *
+   * @param firstName the first name
+   * @param lastName the last name
+   * @param key the identifier as string
+   *
+   * @return the bound
+   */
+  static StoredCustomer bound(final String firstName, final String lastName, final String key) {
+    return new StoredCustomer(firstName, lastName, key);
+  }
+
+  /**
+   * Search bound constructor
+   *
+   * @param firstName the first name
+   * @param lastName the last name
+   * @param key the identifier as string
+   */
+  private StoredCustomer(final String firstName, final String lastName, final String key) {
+    id = null;
+    this.key = key;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    email = null;
+    birthDay = null;
+  }
+
+  /**
+   * Convert date to epoch day
+   *
+   * @param date the date (can be {@code null})
+   *
+   * @return the epoch day or {@code null}
+   */
+  static Long toEpochDay(final Date date) {
+    if(date == null) {
+      return null;
+    }
+    return Dates.toLocalDate(date).toEpochDay();
+  }
+
+  /**
+   * Copy address
+   *
+   * @param address the address
+   *
+   * @return the copy
+   */
+  static AddressDTO copy(final AddressDTO address) {
+    final AddressDTO copy = new AddressDTO();
+    copy.setId(address.getId());
+    copy.setLines(address.getLines() == null ? null : new ArrayList<>(address.getLines()));
+    copy.setZipCode(address.getZipCode());
+    copy.setCity(address.getCity());
+    copy.setCountry(address.getCountry());
+    return copy;
+  }
+
+  /**
+   * Copy phone
+   *
+   * @param phone the phone
+   *
+   * @return the copy
+   */
+  static PhoneDTO copy(final PhoneDTO phone) {
+    final PhoneDTO copy = new PhoneDTO();
+    copy.setId(phone.getId());
+    copy.setType(phone.getType());
+    copy.setNumber(phone.getNumber());
+    return copy;
+  }
+
+  /**
+   * Convert to search result customer
+   *
+   * @return the customer identifier, first name and last name
+   */
+  CustomerDTO toSummary() {
+    return new CustomerDTO(key, firstName, lastName);
+  }
+
+  /**
+   * Convert to customer details with its address and phones
+   *
+   * @return the customer details
+   */
+  CustomerDTO toDetails() {
+    final CustomerDTO cust = toSummary();
+    if(birthDay != null) {
+      cust.setBirthDate(Dates.toDate(LocalDate.ofEpochDay(birthDay)));
+    }
+    cust.setEmail(email);
+    // Snapshot iterator: address may be deleted concurrently
+    final Iterator<AddressDTO> address = addresses.iterator();
+    if(address.hasNext()) {
+      cust.setAddress(copy(address.next()));
+    }
+    cust.setPhones(phones.stream().map(StoredCustomer::copy).collect(Collectors.toList()));
+    return cust;
+  }
+  // Methods -
+
+}
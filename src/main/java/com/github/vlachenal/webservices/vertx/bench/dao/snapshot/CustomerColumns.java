@@ -0,0 +1,401 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Off-heap customer columns.<br>
+ * Each column is a direct buffer indexed by row: identifier as two long columns, last and
+ * first name dictionary codes, email hash and birth date epoch day. Deleted rows keep their
+ * slot with a {@link #DELETED} last name code until columns are reloaded. Published rows are
+ * never modified but for their deletion: an updated customer is deleted and appended as a new
+ * row, so readers never see a mix of old and new values. Rows are indexed by identifier in an
+ * off-heap open addressing table and by name code in compressed {@link PostingList}s on heap:
+ * deleted rows are left in posting lists and have to be checked.<br>
+ * Rows are appended by a single writer at a time and are published to readers of any thread
+ * by row count update. Columns do not grow: writer copies them into larger ones when they are
+ * full.
+ *
+ * @author Vincent Lachenal
+ */
+final class CustomerColumns {
+
+  // Attributes +
+  /** Deleted row last name code */
+  static final int DELETED = -2;
+
+  /** Birth date of customers without birth date */
+  static final int NO_DATE = Integer.MIN_VALUE;
+
+  /** Number of column bytes per row */
+  private static final int ROW_BYTES = 8 + 8 + 4 + 4 + 8 + 4;
+
+  /** Maximum rows capacity: the largest columns must fit in a buffer */
+  static final int MAX_CAPACITY = Integer.MAX_VALUE >> 3;
+
+  /** Rows capacity */
+  private final int capacity;
+
+  /** Identifier most significant bits */
+  private final LongBuffer msb;
+
+  /** Identifier least significant bits */
+  private final LongBuffer lsb;
+
+  /** Last name codes */
+  private final IntBuffer lastNames;
+
+  /** First name codes */
+  private final IntBuffer firstNames;
+
+  /** Email hashes */
+  private final LongBuffer emails;
+
+  /** Birth date epoch days */
+  private final IntBuffer birthDays;
+
+  /** Identifier index: row + 1 or 0 for free entries */
+  private final IntBuffer index;
+
+  /** Identifier index mask */
+  private final int mask;
+
+  /** Rows by last name code */
+  private volatile PostingList[] lastNameRows = new PostingList[64];
+
+  /** Rows by first name code */
+  private volatile PostingList[] firstNameRows = new PostingList[64];
+
+  /** Number of rows */
+  private volatile int size;
+
+  /** Number of deleted rows */
+  private volatile int deleted;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CustomerColumns} constructor
+   *
+   * @param capacity the rows capacity
+   */
+  CustomerColumns(final int capacity) {
+    this.capacity = capacity;
+    msb = allocate(capacity * 8).asLongBuffer();
+    lsb = allocate(capacity * 8).asLongBuffer();
+    lastNames = allocate(capacity * 4).asIntBuffer();
+    firstNames = allocate(capacity * 4).asIntBuffer();
+    emails = allocate(capacity * 8).asLongBuffer();
+    birthDays = allocate(capacity * 4).asIntBuffer();
+    // Index load factor is at most 0.5
+    final int entries = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 2;
+    index = allocate(entries * 4).asIntBuffer();
+    mask = entries - 1;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Allocate direct buffer in native order
+   *
+   * @param bytes the buffer size
+   *
+   * @return the buffer
+   */
+  private static ByteBuffer allocate(final int bytes) {
+    return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Hash identifier
+   *
+   * @param high the identifier most significant bits
+   * @param low the identifier least significant bits
+   *
+   * @return the hash
+   */
+  private static int hash(final long high, final long low) {
+    long h = high ^ (low * 0x9e3779b97f4a7c15L);
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int)h;
+  }
+
+  /**
+   * Find identifier index entry
+   *
+   * @param high the identifier most significant bits
+   * @param low the identifier least significant bits
+   *
+   * @return the entry of identifier row, or the free entry where it would be indexed
+   */
+  private int entry(final long high, final long low) {
+    for(int i = hash(high, low) & mask ;; i = (i + 1) & mask) {
+      final int row = index.get(i) - 1;
+      if(row < 0 || msb.get(row) == high && lsb.get(row) == low) {
+        return i;
+      }
+    }
+  }
+
+  /**
+   * Find row by identifier
+   *
+   * @param high the identifier most significant bits
+   * @param low the identifier least significant bits
+   *
+   * @return the row or -1 when identifier is unknown
+   */
+  int find(final long high, final long low) {
+    return index.get(entry(high, low)) - 1;
+  }
+
+  /**
+   * Add row to name posting list
+   *
+   * @param lists the posting lists by name code
+   * @param code the name code
+   * @param row the row
+   *
+   * @return the posting lists
+   */
+  private static PostingList[] post(final PostingList[] lists, final int code, final int row) {
+    if(code < 0) {
+      return lists;
+    }
+    PostingList[] dest = lists;
+    if(code >= dest.length) {
+      dest = Arrays.copyOf(dest, Math.max(dest.length << 1, code + 1));
+    }
+    if(dest[code] == null) {
+      dest[code] = new PostingList();
+    }
+    dest[code].add(row);
+    return dest;
+  }
+
+  /**
+   * Check if there is room for a new row
+   *
+   * @return {@code true} if columns are full
+   */
+  boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Copy live rows into larger columns. Deleted rows are dropped.
+   *
+   * @param minCapacity the minimum capacity
+   *
+   * @return the new columns
+   */
+  CustomerColumns grow(final int minCapacity) {
+    final int count = size;
+    final CustomerColumns grown = new CustomerColumns(Math.min(MAX_CAPACITY, Math.max(minCapacity, count - deleted + 1)));
+    for(int row = 0 ; row < count ; ++row) {
+      if(lastNames.get(row) != DELETED) {
+        grown.append(msb.get(row), lsb.get(row), lastNames.get(row), firstNames.get(row), emails.get(row), birthDays.get(row));
+      }
+    }
+    return grown;
+  }
+
+  /**
+   * Append row. When identifier is already known, its row is deleted and replaced by the
+   * appended one unless it is unchanged. Columns must not be full.
+   *
+   * @param high the identifier most significant bits
+   * @param low the identifier least significant bits
+   * @param lastName the last name code
+   * @param firstName the first name code
+   * @param email the email hash
+   * @param birthDay the birth date epoch day
+   */
+  void append(final long high, final long low, final int lastName, final int firstName, final long email, final int birthDay) {
+    final int entry = entry(high, low);
+    final int existing = index.get(entry) - 1;
+    if(existing >= 0) {
+      final int existingLast = lastNames.get(existing);
+      if(existingLast == lastName && firstNames.get(existing) == firstName
+          && emails.get(existing) == email && birthDays.get(existing) == birthDay) {
+        return;
+      }
+      if(existingLast != DELETED) {
+        lastNames.put(existing, DELETED);
+        deleted = deleted + 1;
+      }
+    }
+    final int row = size;
+    msb.put(row, high);
+    lsb.put(row, low);
+    lastNames.put(row, lastName);
+    firstNames.put(row, firstName);
+    emails.put(row, email);
+    birthDays.put(row, birthDay);
+    index.put(entry, row + 1);
+    lastNameRows = post(lastNameRows, lastName, row);
+    firstNameRows = post(firstNameRows, firstName, row);
+    // Publish row
+    size = row + 1;
+  }
+
+  /**
+   * Mark row as deleted
+   *
+   * @param high the identifier most significant bits
+   * @param low the identifier least significant bits
+   *
+   * @return {@code true} if a live row has been deleted
+   */
+  boolean delete(final long high, final long low) {
+    final int row = find(high, low);
+    if(row < 0 || lastNames.get(row) == DELETED) {
+      return false;
+    }
+    lastNames.put(row, DELETED);
+    deleted = deleted + 1;
+    return true;
+  }
+
+  /**
+   * Get number of rows including deleted ones
+   *
+   * @return the number of rows
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get number of deleted rows
+   *
+   * @return the number of deleted rows
+   */
+  int deleted() {
+    return deleted;
+  }
+
+  /**
+   * Get rows capacity
+   *
+   * @return the capacity
+   */
+  int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Get off-heap memory size
+   *
+   * @return the number of allocated bytes
+   */
+  long bytes() {
+    return (long)capacity * ROW_BYTES + (mask + 1L) * 4L;
+  }
+
+  /**
+   * Get identifier most significant bits
+   *
+   * @param row the row
+   *
+   * @return the bits
+   */
+  long msb(final int row) {
+    return msb.get(row);
+  }
+
+  /**
+   * Get identifier least significant bits
+   *
+   * @param row the row
+   *
+   * @return the bits
+   */
+  long lsb(final int row) {
+    return lsb.get(row);
+  }
+
+  /**
+   * Get last name code
+   *
+   * @param row the row
+   *
+   * @return the code ({@link #DELETED} for deleted rows)
+   */
+  int lastName(final int row) {
+    return lastNames.get(row);
+  }
+
+  /**
+   * Get first name code
+   *
+   * @param row the row
+   *
+   * @return the code
+   */
+  int firstName(final int row) {
+    return firstNames.get(row);
+  }
+
+  /**
+   * Get rows which have had last name
+   *
+   * @param code the last name code
+   *
+   * @return the rows ({@code null} when there is none)
+   */
+  PostingList lastNameRows(final int code) {
+    final PostingList[] lists = lastNameRows;
+    return code < lists.length ? lists[code] : null;
+  }
+
+  /**
+   * Get rows which have had first name
+   *
+   * @param code the first name code
+   *
+   * @return the rows ({@code null} when there is none)
+   */
+  PostingList firstNameRows(final int code) {
+    final PostingList[] lists = firstNameRows;
+    return code < lists.length ? lists[code] : null;
+  }
+
+  /**
+   * Get email hash
+   *
+   * @param row the row
+   *
+   * @return the hash
+   */
+  long email(final int row) {
+    return emails.get(row);
+  }
+
+  /**
+   * Get birth date
+   *
+   * @param row the row
+   *
+   * @return the epoch day ({@link #NO_DATE} when it is not set)
+   */
+  int birthDay(final int row) {
+    return birthDays.get(row);
+  }
+  // Methods -
+
+}
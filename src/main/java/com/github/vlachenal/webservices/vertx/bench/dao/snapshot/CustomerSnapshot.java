@@ -0,0 +1,843 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+
+/**
+ * Columnar customer table snapshot.<br>
+ * Customers are stored in off-heap {@link CustomerColumns}: there is no heap object per
+ * customer, only distinct names are kept on heap. Searches scan columns in a single pass
+ * with primitive comparisons: LIKE criteria are evaluated once per distinct name, emails are
+ * compared by 64 bits hash and birth dates as epoch days. The page is selected with a bounded
+ * heap of row numbers in (last name, first name, identifier) order.<br>
+ * LIKE criteria are resolved to names with a trigram index, even with leading wildcard. Rows
+ * are listed by name code: when matching names are referenced by few rows, only these rows are
+ * checked. Otherwise last names are walked in order until page is full. Every row is scanned
+ * only when these plans would check too many rows.<br>
+ * Snapshot is loaded from database, then writes are applied as they happen. Writes which
+ * happen while it is reloaded are journaled and replayed on the new columns. Snapshot is
+ * shared by name between verticle instances: writes are serialized, searches are lock free
+ * and can run on any thread.
+ *
+ * @author Vincent Lachenal
+ */
+public class CustomerSnapshot implements Shareable {
+
+  // Attributes +
+  /** Shared snapshots map name */
+  private static final String SNAPSHOTS_MAP = CustomerSnapshot.class.getName();
+
+  /** Initial rows capacity */
+  private final int initialCapacity;
+
+  /** Last names dictionary */
+  private final NameDictionary lastNames = new NameDictionary();
+
+  /** First names dictionary */
+  private final NameDictionary firstNames = new NameDictionary();
+
+  /** Current columns ({@code null} until snapshot has been loaded) */
+  private volatile CustomerColumns columns;
+
+  /** Columns being loaded ({@code null} when there is no reload in progress) */
+  private CustomerColumns loading;
+
+  /** Writes which happened during reload */
+  private List<Row> journal;
+
+  /** Columns being loaded have been cleared and must be dropped */
+  private boolean discard;
+
+  /** Number of searches */
+  private final LongAdder searches = new LongAdder();
+
+  /** Number of searches which have checked name posting lists rows only */
+  private final LongAdder indexedSearches = new LongAdder();
+
+  /** Number of completed reloads */
+  private final LongAdder reloads = new LongAdder();
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CustomerSnapshot} constructor
+   *
+   * @param initialCapacity the initial rows capacity
+   */
+  public CustomerSnapshot(final int initialCapacity) {
+    this.initialCapacity = Math.min(CustomerColumns.MAX_CAPACITY, Math.max(1, initialCapacity));
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get shared snapshot for name. Snapshot is created with given capacity if it does not
+   * exist yet.
+   *
+   * @param vertx the Vert.x instance
+   * @param name the snapshot name
+   * @param initialCapacity the initial rows capacity
+   *
+   * @return the snapshot
+   */
+  public static CustomerSnapshot shared(final Vertx vertx, final String name, final int initialCapacity) {
+    final LocalMap<String, CustomerSnapshot> snapshots = vertx.sharedData().getLocalMap(SNAPSHOTS_MAP);
+    final CustomerSnapshot created = new CustomerSnapshot(initialCapacity);
+    final CustomerSnapshot existing = snapshots.putIfAbsent(name, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Convert date to epoch day
+   *
+   * @param date the date (can be {@code null})
+   *
+   * @return the epoch day or {@link CustomerColumns#NO_DATE}
+   */
+  public static int toEpochDay(final Date date) {
+    if(date == null) {
+      return CustomerColumns.NO_DATE;
+    }
+    return (int)Dates.toLocalDate(date).toEpochDay();
+  }
+
+  /**
+   * Hash email (FNV-1a on UTF-8 bytes with final mix)
+   *
+   * @param email the email (can be {@code null})
+   *
+   * @return the hash (0 for {@code null})
+   */
+  static long hashEmail(final String email) {
+    if(email == null) {
+      return 0L;
+    }
+    long h = 0xcbf29ce484222325L;
+    for(final byte b : email.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == 0L ? 1L : h;
+  }
+
+  /**
+   * Check if snapshot has been loaded
+   *
+   * @return {@code true} when searches can be run on snapshot
+   */
+  public boolean isReady() {
+    return columns != null;
+  }
+
+  /**
+   * Write row in columns. Columns are copied into larger ones when they are full: updated
+   * rows are appended too.
+   *
+   * @param target the columns
+   * @param row the row
+   *
+   * @return the columns which contain row
+   */
+  private static CustomerColumns write(final CustomerColumns target, final Row row) {
+    if(row.lastName == CustomerColumns.DELETED) {
+      target.delete(row.msb, row.lsb);
+      return target;
+    }
+    CustomerColumns dest = target;
+    if(dest.isFull()) {
+      dest = dest.grow(dest.capacity() < CustomerColumns.MAX_CAPACITY >> 1 ? dest.capacity() << 1 : CustomerColumns.MAX_CAPACITY);
+    }
+    dest.append(row.msb, row.lsb, row.lastName, row.firstName, row.email, row.birthDay);
+    return dest;
+  }
+
+  /**
+   * Apply write to current columns and journal it during reload
+   *
+   * @param row the written row
+   */
+  private void apply(final Row row) {
+    if(columns != null) {
+      columns = write(columns, row);
+    }
+    if(journal != null) {
+      journal.add(row);
+    }
+  }
+
+  /**
+   * Add or update customer
+   *
+   * @param id the customer identifier
+   * @param firstName the first name
+   * @param lastName the last name
+   * @param email the email
+   * @param birthDay the birth date epoch day ({@link #toEpochDay(Date)})
+   */
+  public synchronized void upsert(final UUID id, final String firstName, final String lastName, final String email, final int birthDay) {
+    apply(new Row(id, lastNames.encode(lastName), firstNames.encode(firstName), hashEmail(email), birthDay));
+  }
+
+  /**
+   * Delete customer
+   *
+   * @param id the customer identifier
+   */
+  public synchronized void delete(final UUID id) {
+    apply(new Row(id, CustomerColumns.DELETED, 0, 0L, CustomerColumns.NO_DATE));
+  }
+
+  /**
+   * Delete every customer. Reload in progress, if any, will be dropped.
+   */
+  public synchronized void clear() {
+    if(columns != null) {
+      columns = new CustomerColumns(initialCapacity);
+    }
+    if(loading != null) {
+      discard = true;
+      journal.clear();
+    }
+  }
+
+  /**
+   * Start reload
+   *
+   * @return {@code false} when a reload is already in progress
+   */
+  synchronized boolean startReload() {
+    if(loading != null) {
+      return false;
+    }
+    final CustomerColumns current = columns;
+    final int live = current == null ? 0 : current.size() - current.deleted();
+    loading = new CustomerColumns(Math.min(CustomerColumns.MAX_CAPACITY, Math.max(initialCapacity, live + (live >> 2))));
+    journal = new ArrayList<>();
+    discard = false;
+    return true;
+  }
+
+  /**
+   * Load customer from database during reload
+   *
+   * @param id the customer identifier
+   * @param firstName the first name
+   * @param lastName the last name
+   * @param email the email
+   * @param birthDay the birth date epoch day
+   */
+  synchronized void load(final UUID id, final String firstName, final String lastName, final String email, final int birthDay) {
+    loading = write(loading, new Row(id, lastNames.encode(lastName), firstNames.encode(firstName), hashEmail(email), birthDay));
+  }
+
+  /**
+   * Complete reload: writes which happened in the meantime are replayed on loaded columns,
+   * then they replace current ones
+   *
+   * @return the number of customers
+   */
+  synchronized int completeReload() {
+    // Loaded rows may have been deleted when snapshot has been cleared
+    CustomerColumns loaded = discard ? new CustomerColumns(initialCapacity) : loading;
+    for(final Row row : journal) {
+      loaded = write(loaded, row);
+    }
+    columns = loaded;
+    loading = null;
+    journal = null;
+    lastNames.rank();
+    firstNames.rank();
+    reloads.increment();
+    return columns.size() - columns.deleted();
+  }
+
+  /**
+   * Abort reload
+   */
+  synchronized void abortReload() {
+    loading = null;
+    journal = null;
+  }
+
+  /**
+   * Search customers with the same criteria and order as SQL search requests
+   *
+   * @param request the search request
+   * @param limit the maximum number of customers to return
+   *
+   * @return the customers or {@code null} when snapshot has not been loaded
+   */
+  public List<CustomerDTO> search(final SearchRequestDTO request, final int limit) {
+    final CustomerColumns cols = columns;
+    if(cols == null) {
+      return null;
+    }
+    searches.increment();
+    final Scan scan = new Scan(cols, request);
+    if(scan.empty) {
+      return Collections.emptyList();
+    }
+    return scan.run(Math.min(limit, cols.size() - cols.deleted()));
+  }
+
+  /**
+   * Get snapshot statistics
+   *
+   * @return the statistics
+   */
+  public JsonObject toJson() {
+    final CustomerColumns cols = columns;
+    final JsonObject stats = new JsonObject().put("ready", cols != null);
+    if(cols != null) {
+      stats.put("rows", cols.size() - cols.deleted())
+      .put("deleted_rows", cols.deleted())
+      .put("capacity", cols.capacity())
+      .put("off_heap_bytes", cols.bytes());
+    }
+    return stats.put("last_names", lastNames.size())
+        .put("first_names", firstNames.size())
+        .put("trigrams", lastNames.trigrams() + firstNames.trigrams())
+        .put("searches", searches.sum())
+        .put("indexed_searches", indexedSearches.sum())
+        .put("reloads", reloads.sum());
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Encoded row write
+   */
+  private static final class Row {
+
+    /** Identifier most significant bits */
+    private final long msb;
+
+    /** Identifier least significant bits */
+    private final long lsb;
+
+    /** Last name code ({@link CustomerColumns#DELETED} for deletions) */
+    private final int lastName;
+
+    /** First name code */
+    private final int firstName;
+
+    /** Email hash */
+    private final long email;
+
+    /** Birth date epoch day */
+    private final int birthDay;
+
+    /**
+     * {@link Row} constructor
+     *
+     * @param id the identifier
+     * @param lastName the last name code
+     * @param firstName the first name code
+     * @param email the email hash
+     * @param birthDay the birth date epoch day
+     */
+    private Row(final UUID id, final int lastName, final int firstName, final long email, final int birthDay) {
+      msb = id.getMostSignificantBits();
+      lsb = id.getLeastSignificantBits();
+      this.lastName = lastName;
+      this.firstName = firstName;
+      this.email = email;
+      this.birthDay = birthDay;
+    }
+
+  }
+
+  /**
+   * Name LIKE criterion.<br>
+   * Matching names are resolved at once with trigram index when pattern has trigrams.
+   * Otherwise names are checked on demand until they are resolved for a full scan.
+   */
+  private static final class NameFilter {
+
+    /** Names dictionary */
+    private final NameDictionary dictionary;
+
+    /** LIKE pattern */
+    private final String like;
+
+    /** Compiled LIKE pattern */
+    private final LikePattern pattern;
+
+    /** Matching codes ({@code null} until names have been resolved) */
+    private BitSet matching;
+
+    /**
+     * {@link NameFilter} constructor
+     *
+     * @param dictionary the names dictionary
+     * @param like the LIKE pattern
+     */
+    private NameFilter(final NameDictionary dictionary, final String like) {
+      this.dictionary = dictionary;
+      this.like = like;
+      pattern = new LikePattern(like);
+      matching = NameDictionary.isIndexed(like) ? dictionary.matching(like) : null;
+    }
+
+    /**
+     * Check if matching names have been resolved
+     *
+     * @return {@code true} if names have been resolved
+     */
+    private boolean isResolved() {
+      return matching != null;
+    }
+
+    /**
+     * Check if names are known not to match
+     *
+     * @return {@code true} if names have been resolved and there is no matching name
+     */
+    private boolean isEmpty() {
+      return matching != null && matching.isEmpty();
+    }
+
+    /**
+     * Resolve matching names
+     *
+     * @return the matching codes
+     */
+    private BitSet resolve() {
+      if(matching == null) {
+        matching = dictionary.matching(like);
+      }
+      return matching;
+    }
+
+    /**
+     * Check if name matches
+     *
+     * @param code the name code
+     *
+     * @return {@code true} if name matches ({@code null} names never match)
+     */
+    private boolean matches(final int code) {
+      if(code < 0) {
+        return false;
+      }
+      return matching == null ? pattern.matches(dictionary.decode(code)) : matching.get(code);
+    }
+
+  }
+
+  /**
+   * Search request compiled against columns
+   */
+  private final class Scan {
+
+    /** Columns */
+    private final CustomerColumns cols;
+
+    /** Last names ranking */
+    private final NameDictionary.Ranking lastRanking;
+
+    /** First names ranking */
+    private final NameDictionary.Ranking firstRanking;
+
+    /** Last name criterion ({@code null} when there is none) */
+    private final NameFilter lastFilter;
+
+    /** First name criterion ({@code null} when there is none) */
+    private final NameFilter firstFilter;
+
+    /** Email hash (0 when there is no email criterion) */
+    private final long email;
+
+    /** Birth date criteria are set */
+    private final boolean dated;
+
+    /** Minimum birth date */
+    private final int minDay;
+
+    /** Maximum birth date */
+    private final int maxDay;
+
+    /** Search can not match anything */
+    private final boolean empty;
+
+    /** Keyset position ({@code null} for first page) */
+    private final CustomerDTO after;
+
+    /** Keyset last name search key */
+    private final int afterLast;
+
+    /** Keyset first name search key */
+    private final int afterFirst;
+
+    /** Keyset identifier most significant bits */
+    private final long afterMsb;
+
+    /** Keyset identifier least significant bits */
+    private final long afterLsb;
+
+    /** Page heap: rows with the greatest one at top */
+    private int[] heap;
+
+    /** Number of rows in page heap */
+    private int count;
+
+    /**
+     * {@link Scan} constructor
+     *
+     * @param cols the columns to scan
+     * @param request the search request
+     */
+    private Scan(final CustomerColumns cols, final SearchRequestDTO request) {
+      this.cols = cols;
+      lastRanking = lastNames.ranking();
+      firstRanking = firstNames.ranking();
+      lastFilter = request.getLastName() == null ? null : new NameFilter(lastNames, request.getLastName());
+      firstFilter = request.getFirstName() == null ? null : new NameFilter(firstNames, request.getFirstName());
+      email = hashEmail(request.getEmail());
+      int min = Integer.MIN_VALUE + 1;
+      int max = Integer.MAX_VALUE;
+      if(request.getBirthDate() != null) {
+        min = toEpochDay(request.getBirthDate());
+        max = min;
+      }
+      if(request.getBornAfter() != null) {
+        min = Math.max(min, toEpochDay(request.getBornAfter()));
+      }
+      if(request.getBornBefore() != null) {
+        max = Math.min(max, toEpochDay(request.getBornBefore()));
+      }
+      dated = request.getBirthDate() != null || request.getBornAfter() != null || request.getBornBefore() != null;
+      minDay = min;
+      maxDay = max;
+      empty = min > max || lastFilter != null && lastFilter.isEmpty() || firstFilter != null && firstFilter.isEmpty();
+      after = request.getAfter();
+      if(after == null) {
+        afterLast = 0;
+        afterFirst = 0;
+        afterMsb = 0L;
+        afterLsb = 0L;
+      } else {
+        final UUID id = UUID.fromString(after.getId());
+        afterLast = lastRanking.key(after.getLastName());
+        afterFirst = firstRanking.key(after.getFirstName());
+        afterMsb = id.getMostSignificantBits();
+        afterLsb = id.getLeastSignificantBits();
+      }
+    }
+
+    /**
+     * Compare rows in search order
+     *
+     * @param a the first row
+     * @param b the second row
+     *
+     * @return the comparison result
+     */
+    private int compare(final int a, final int b) {
+      int res = lastNames.compare(lastRanking, cols.lastName(a), cols.lastName(b));
+      if(res == 0) {
+        res = firstNames.compare(firstRanking, cols.firstName(a), cols.firstName(b));
+      }
+      if(res == 0) {
+        res = Long.compareUnsigned(cols.msb(a), cols.msb(b));
+      }
+      if(res == 0) {
+        res = Long.compareUnsigned(cols.lsb(a), cols.lsb(b));
+      }
+      return res;
+    }
+
+    /**
+     * Check if row is after keyset position
+     *
+     * @param row the row
+     * @param last the row last name code
+     * @param first the row first name code
+     *
+     * @return {@code true} if row is after keyset position
+     */
+    private boolean isAfter(final int row, final int last, final int first) {
+      int res = lastNames.compare(lastRanking, last, afterLast, after.getLastName());
+      if(res == 0) {
+        res = firstNames.compare(firstRanking, first, afterFirst, after.getFirstName());
+      }
+      if(res == 0) {
+        res = Long.compareUnsigned(cols.msb(row), afterMsb);
+      }
+      if(res == 0) {
+        res = Long.compareUnsigned(cols.lsb(row), afterLsb);
+      }
+      return res > 0;
+    }
+
+    /**
+     * Move heap entry down until heap is ordered (greatest row at top)
+     *
+     * @param heap the heap
+     * @param size the heap size
+     * @param index the entry index
+     */
+    private void siftDown(final int[] heap, final int size, final int index) {
+      final int row = heap[index];
+      int i = index;
+      while(true) {
+        int child = (i << 1) + 1;
+        if(child >= size) {
+          break;
+        }
+        if(child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+          ++child;
+        }
+        if(compare(heap[child], row) <= 0) {
+          break;
+        }
+        heap[i] = heap[child];
+        i = child;
+      }
+      heap[i] = row;
+    }
+
+    /**
+     * Move heap entry up until heap is ordered (greatest row at top)
+     *
+     * @param heap the heap
+     * @param index the entry index
+     */
+    private void siftUp(final int[] heap, final int index) {
+      final int row = heap[index];
+      int i = index;
+      while(i > 0) {
+        final int parent = (i - 1) >> 1;
+        if(compare(heap[parent], row) >= 0) {
+          break;
+        }
+        heap[i] = heap[parent];
+        i = parent;
+      }
+      heap[i] = row;
+    }
+
+    /**
+     * Get rows which may match name criterion from name posting lists
+     *
+     * @param match the matching name codes
+     * @param postings the posting lists by name code
+     * @param max the maximum number of candidates
+     *
+     * @return the sorted distinct rows or {@code null} when there are more than {@code max}
+     */
+    private int[] candidates(final BitSet match, final IntFunction<PostingList> postings, final int max) {
+      long total = 0L;
+      for(int code = match.nextSetBit(0) ; code >= 0 ; code = match.nextSetBit(code + 1)) {
+        final PostingList list = postings.apply(code);
+        if(list != null) {
+          total += list.size();
+          if(total > max) {
+            return null;
+          }
+        }
+      }
+      final int[] rows = new int[(int)total];
+      int count = 0;
+      for(int code = match.nextSetBit(0) ; code >= 0 && count < rows.length ; code = match.nextSetBit(code + 1)) {
+        final PostingList list = postings.apply(code);
+        if(list != null) {
+          count += list.decode(rows, count, Math.min(list.size(), rows.length - count));
+        }
+      }
+      // Rows which have had several matching names are listed several times
+      Arrays.sort(rows, 0, count);
+      int distinct = 0;
+      for(int i = 0 ; i < count ; ++i) {
+        if(distinct == 0 || rows[distinct - 1] != rows[i]) {
+          rows[distinct++] = rows[i];
+        }
+      }
+      return Arrays.copyOf(rows, distinct);
+    }
+
+    /**
+     * Check row and keep it in page heap if it is one of the first matching rows
+     *
+     * @param row the row
+     * @param lastChecked the row last name is known to match
+     */
+    private void check(final int row, final boolean lastChecked) {
+      final int last = cols.lastName(row);
+      if(last == CustomerColumns.DELETED) {
+        return;
+      }
+      if(dated) {
+        final int day = cols.birthDay(row);
+        if(day < minDay || day > maxDay) {
+          return;
+        }
+      }
+      if(email != 0L && cols.email(row) != email) {
+        return;
+      }
+      if(lastFilter != null && !lastChecked && !lastFilter.matches(last)) {
+        return;
+      }
+      final int first = cols.firstName(row);
+      if(firstFilter != null && !firstFilter.matches(first)) {
+        return;
+      }
+      if(after != null && !isAfter(row, last, first)) {
+        return;
+      }
+      if(count < heap.length) {
+        heap[count] = row;
+        siftUp(heap, count++);
+      } else if(compare(row, heap[0]) < 0) {
+        heap[0] = row;
+        siftDown(heap, count, 0);
+      }
+    }
+
+    /**
+     * Check rows of last names in order from keyset position until page is full. Rows of a
+     * name are checked together so page is complete once it is full after a name.
+     *
+     * @param rows the number of published rows
+     *
+     * @return {@code false} when every row has to be scanned: some names are not ranked, more
+     *         than 1/8 of rows would be checked or page is not full and customers without last
+     *         name may match
+     */
+    private boolean walk(final int rows) {
+      if(lastRanking.size() != lastNames.size()) {
+        return false;
+      }
+      int budget = rows >> 3;
+      int[] buffer = new int[16];
+      for(int rank = after == null ? 0 : afterLast >> 1 ; rank < lastRanking.size() ; ++rank) {
+        final int code = lastRanking.code(rank);
+        final PostingList list = cols.lastNameRows(code);
+        if(list == null || lastFilter != null && !lastFilter.matches(code)) {
+          continue;
+        }
+        final int size = list.size();
+        budget -= size;
+        if(budget < 0) {
+          return false;
+        }
+        if(buffer.length < size) {
+          buffer = new int[Math.max(size, buffer.length << 1)];
+        }
+        final int decoded = list.decode(buffer, 0, size);
+        // Deleted rows do not match their name anymore
+        Arrays.sort(buffer, 0, decoded);
+        for(int i = 0 ; i < decoded ; ++i) {
+          final int row = buffer[i];
+          if(row < rows && (i == 0 || buffer[i - 1] != row) && cols.lastName(row) == code) {
+            check(row, true);
+          }
+        }
+        if(count == heap.length) {
+          return true;
+        }
+      }
+      return lastFilter != null;
+    }
+
+    /**
+     * Find the first matching rows. Search plan is, in order:
+     * <ul>
+     *   <li>rows of name posting lists when pattern trigrams resolve to names which are
+     *   referenced by less than 1/32 of rows</li>
+     *   <li>rows of last names in order while page is not full (see {@link #walk(int)})</li>
+     *   <li>every row</li>
+     * </ul>
+     *
+     * @param limit the maximum number of customers
+     *
+     * @return the customers in search order
+     */
+    private List<CustomerDTO> run(final int limit) {
+      if(limit <= 0) {
+        return Collections.emptyList();
+      }
+      heap = new int[limit];
+      count = 0;
+      final int rows = cols.size();
+      int[] candidates = lastFilter == null || !lastFilter.isResolved() ? null : candidates(lastFilter.resolve(), cols::lastNameRows, rows >> 5);
+      if(firstFilter != null && firstFilter.isResolved()) {
+        final int[] byFirstName = candidates(firstFilter.resolve(), cols::firstNameRows, candidates == null ? rows >> 5 : candidates.length - 1);
+        if(byFirstName != null) {
+          candidates = byFirstName;
+        }
+      }
+      if(candidates != null) {
+        indexedSearches.increment();
+        for(final int row : candidates) {
+          // Rows appended after scan start may be referenced by posting lists
+          if(row < rows) {
+            check(row, false);
+          }
+        }
+      } else if(email == 0L && walk(rows)) {
+        indexedSearches.increment();
+      } else {
+        count = 0;
+        if(lastFilter != null) {
+          lastFilter.resolve();
+        }
+        if(firstFilter != null) {
+          firstFilter.resolve();
+        }
+        for(int row = 0 ; row < rows ; ++row) {
+          check(row, false);
+        }
+      }
+      // Pop greatest rows to sort page
+      final int[] page = Arrays.copyOf(heap, count);
+      for(int size = count ; size > 1 ; --size) {
+        final int top = page[0];
+        page[0] = page[size - 1];
+        page[size - 1] = top;
+        siftDown(page, size - 1, 0);
+      }
+      final List<CustomerDTO> customers = new ArrayList<>(count);
+      for(final int row : page) {
+        customers.add(new CustomerDTO(new UUID(cols.msb(row), cols.lsb(row)).toString(),
+                                      firstNames.decode(cols.firstName(row)),
+                                      lastNames.decode(cols.lastName(row))));
+      }
+      return customers;
+    }
+
+  }
+  // Classes -
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compiled LIKE pattern.<br>
+ * Pattern is split on {@code %} into fixed length segments where {@code _} matches any
+ * character. First segment is matched at start, last one at end and the other ones at their
+ * leftmost position in between: there is no backtracking. Segments without {@code _} are
+ * searched with {@link String#indexOf(String, int)}.
+ *
+ * @author Vincent Lachenal
+ */
+final class LikePattern {
+
+  // Attributes +
+  /** Segments characters */
+  private final char[][] segments;
+
+  /** Segments {@code _} wildcards positions */
+  private final boolean[][] wildcards;
+
+  /** Segments as strings ({@code null} when segment has wildcards) */
+  private final String[] literals;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link LikePattern} constructor
+   *
+   * @param like the LIKE pattern ({@code \} escapes next character)
+   */
+  LikePattern(final String like) {
+    final List<StringBuilder> chars = new ArrayList<>();
+    final List<StringBuilder> anys = new ArrayList<>();
+    StringBuilder segment = new StringBuilder();
+    StringBuilder any = new StringBuilder();
+    for(int i = 0 ; i < like.length() ; ++i) {
+      final char c = like.charAt(i);
+      if(c == '\\' && i + 1 < like.length()) {
+        segment.append(like.charAt(++i));
+        any.append('0');
+      } else if(c == '%') {
+        chars.add(segment);
+        anys.add(any);
+        segment = new StringBuilder();
+        any = new StringBuilder();
+      } else {
+        segment.append(c);
+        any.append(c == '_' ? '1' : '0');
+      }
+    }
+    chars.add(segment);
+    anys.add(any);
+    final int count = chars.size();
+    segments = new char[count][];
+    wildcards = new boolean[count][];
+    literals = new String[count];
+    for(int i = 0 ; i < count ; ++i) {
+      segments[i] = chars.get(i).toString().toCharArray();
+      wildcards[i] = new boolean[segments[i].length];
+      boolean literal = true;
+      for(int j = 0 ; j < segments[i].length ; ++j) {
+        wildcards[i][j] = anys.get(i).charAt(j) == '1';
+        literal &= !wildcards[i][j];
+      }
+      literals[i] = literal ? chars.get(i).toString() : null;
+    }
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Check if segment matches text at position
+   *
+   * @param text the text
+   * @param pos the position
+   * @param segment the segment index
+   *
+   * @return {@code true} if segment matches
+   */
+  private boolean matchesAt(final String text, final int pos, final int segment) {
+    final char[] chars = segments[segment];
+    final boolean[] any = wildcards[segment];
+    for(int i = 0 ; i < chars.length ; ++i) {
+      if(!any[i] && text.charAt(pos + i) != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find segment leftmost position
+   *
+   * @param text the text
+   * @param from the minimum position
+   * @param to the maximum segment end
+   * @param segment the segment index
+   *
+   * @return the position or -1 when segment has not been found
+   */
+  private int find(final String text, final int from, final int to, final int segment) {
+    final int last = to - segments[segment].length;
+    if(literals[segment] != null) {
+      final int pos = text.indexOf(literals[segment], from);
+      return pos > last ? -1 : pos;
+    }
+    for(int pos = from ; pos <= last ; ++pos) {
+      if(matchesAt(text, pos, segment)) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Check if text matches pattern
+   *
+   * @param text the text
+   *
+   * @return {@code true} if text matches
+   */
+  boolean matches(final String text) {
+    final int last = segments.length - 1;
+    if(last == 0) {
+      return text.length() == segments[0].length && matchesAt(text, 0, 0);
+    }
+    final int end = text.length() - segments[last].length;
+    if(end < segments[0].length || !matchesAt(text, 0, 0) || !matchesAt(text, end, last)) {
+      return false;
+    }
+    int pos = segments[0].length;
+    for(int i = 1 ; i < last ; ++i) {
+      final int found = find(text, pos, end, i);
+      if(found < 0) {
+        return false;
+      }
+      pos = found + segments[i].length;
+    }
+    return true;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.SearchQueries;
+
+
+/**
+ * Names dictionary.<br>
+ * Each distinct name is encoded once as an integer code in insertion order and is indexed by
+ * trigrams to resolve LIKE patterns without checking every name. Codes are ranked in SQL
+ * name order ({@link SearchQueries#compareNames(String, String)}) so that names can be
+ * compared as integers: ranking is rebuilt lazily once enough names have been added since
+ * last ranking. Names which have not been ranked yet are compared as strings.<br>
+ * Names are encoded by a single writer at a time. They can be decoded from any thread once
+ * a row which references them has been published.
+ *
+ * @author Vincent Lachenal
+ */
+final class NameDictionary {
+
+  // Attributes +
+  /** Codes by name */
+  private final Map<String, Integer> codes = new HashMap<>();
+
+  /** Names by code */
+  private volatile String[] names = new String[1024];
+
+  /** Number of names */
+  private volatile int size;
+
+  /** Trigram index */
+  private final TrigramIndex trigrams = new TrigramIndex();
+
+  /** Current ranking */
+  private volatile Ranking ranking = new Ranking(new String[0], new int[0], new int[0]);
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Get name code. Name is added if it is not in dictionary yet.
+   *
+   * @param name the name ({@code null} is encoded as -1)
+   *
+   * @return the code
+   */
+  synchronized int encode(final String name) {
+    if(name == null) {
+      return -1;
+    }
+    final Integer code = codes.get(name);
+    if(code != null) {
+      return code;
+    }
+    final int added = size;
+    if(added == names.length) {
+      names = Arrays.copyOf(names, added << 1);
+    }
+    names[added] = name;
+    codes.put(name, added);
+    trigrams.add(added, name);
+    size = added + 1;
+    return added;
+  }
+
+  /**
+   * Get name
+   *
+   * @param code the name code
+   *
+   * @return the name ({@code null} for -1)
+   */
+  String decode(final int code) {
+    return code < 0 ? null : names[code];
+  }
+
+  /**
+   * Get number of names
+   *
+   * @return the number of names
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get ranking. It is rebuilt when more than 1/8 of names are not ranked.
+   *
+   * @return the ranking
+   */
+  Ranking ranking() {
+    final Ranking current = ranking;
+    final int count = size;
+    if(count - current.ranks.length <= (current.ranks.length >> 3)) {
+      return current;
+    }
+    return rank();
+  }
+
+  /**
+   * Rank every name
+   *
+   * @return the new ranking
+   */
+  synchronized Ranking rank() {
+    final int count = size;
+    if(ranking.ranks.length == count) {
+      return ranking;
+    }
+    final String[] current = names;
+    final Integer[] order = new Integer[count];
+    for(int i = 0 ; i < count ; ++i) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> SearchQueries.compareNames(current[a], current[b]));
+    final String[] sorted = new String[count];
+    final int[] codes = new int[count];
+    final int[] ranks = new int[count];
+    for(int i = 0 ; i < count ; ++i) {
+      sorted[i] = current[order[i]];
+      codes[i] = order[i];
+      ranks[order[i]] = i;
+    }
+    ranking = new Ranking(sorted, codes, ranks);
+    return ranking;
+  }
+
+  /**
+   * Get codes of names which match LIKE pattern. Each distinct name is matched once whatever
+   * the number of rows which reference it. Only names which contain pattern trigrams are
+   * checked unless pattern literal parts are too short.
+   *
+   * @param like the LIKE pattern
+   *
+   * @return the matching codes
+   */
+  BitSet matching(final String like) {
+    final LikePattern pattern = new LikePattern(like);
+    final int[] candidates = trigrams.candidates(like);
+    final String[] current = names;
+    final BitSet matching = new BitSet();
+    if(candidates == null) {
+      final int count = size;
+      for(int i = 0 ; i < count ; ++i) {
+        if(pattern.matches(current[i])) {
+          matching.set(i);
+        }
+      }
+    } else {
+      for(final int code : candidates) {
+        // Names indexed after names array has been read are ignored
+        if(code < current.length && current[code] != null && pattern.matches(current[code])) {
+          matching.set(code);
+        }
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * Check if LIKE pattern can be resolved with trigram index
+   *
+   * @param like the LIKE pattern
+   *
+   * @return {@code true} if pattern literal parts have trigrams
+   */
+  static boolean isIndexed(final String like) {
+    return !TrigramIndex.trigrams(like).isEmpty();
+  }
+
+  /**
+   * Get number of indexed trigrams
+   *
+   * @return the number of trigrams
+   */
+  int trigrams() {
+    return trigrams.size();
+  }
+
+  /**
+   * Compare names by code
+   *
+   * @param ranking the ranking to use
+   * @param a the first name code
+   * @param b the second name code
+   *
+   * @return the comparison result ({@code null} names are the greatest as in PostgreSQL)
+   */
+  int compare(final Ranking ranking, final int a, final int b) {
+    if(a == b) {
+      return 0;
+    }
+    if(a < 0 || b < 0) {
+      return a < 0 ? 1 : -1;
+    }
+    if(a < ranking.ranks.length && b < ranking.ranks.length) {
+      return Integer.compare(ranking.ranks[a], ranking.ranks[b]);
+    }
+    return SearchQueries.compareNames(names[a], names[b]);
+  }
+
+  /**
+   * Compare name by code to a name which may not be in dictionary
+   *
+   * @param ranking the ranking to use
+   * @param code the name code
+   * @param key the name search key (see {@link Ranking#key(String)})
+   * @param name the name
+   *
+   * @return the comparison result
+   */
+  int compare(final Ranking ranking, final int code, final int key, final String name) {
+    if(code < 0 || name == null) {
+      return code < 0 ? (name == null ? 0 : 1) : -1;
+    }
+    if(code < ranking.ranks.length) {
+      return Integer.compare((ranking.ranks[code] << 1) + 1, key);
+    }
+    return SearchQueries.compareNames(names[code], name);
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Names ranking
+   */
+  static final class Ranking {
+
+    /** Ranked names in order */
+    private final String[] sorted;
+
+    /** Codes by rank */
+    private final int[] codes;
+
+    /** Ranks by code */
+    private final int[] ranks;
+
+    /**
+     * {@link Ranking} constructor
+     *
+     * @param sorted the ranked names in order
+     * @param codes the codes by rank
+     * @param ranks the ranks by code
+     */
+    private Ranking(final String[] sorted, final int[] codes, final int[] ranks) {
+      this.sorted = sorted;
+      this.codes = codes;
+      this.ranks = ranks;
+    }
+
+    /**
+     * Get number of ranked names
+     *
+     * @return the number of names
+     */
+    int size() {
+      return codes.length;
+    }
+
+    /**
+     * Get name code by rank
+     *
+     * @param rank the rank
+     *
+     * @return the code
+     */
+    int code(final int rank) {
+      return codes[rank];
+    }
+
+    /**
+     * Get search key of any name: {@code 2 * rank + 1} for ranked names, {@code 2 * position}
+     * for the others where position is the rank of the first greater name.
+     *
+     * @param name the name (can be {@code null})
+     *
+     * @return the search key
+     */
+    int key(final String name) {
+      if(name == null) {
+        return Integer.MAX_VALUE;
+      }
+      final int pos = Arrays.binarySearch(sorted, name, SearchQueries::compareNames);
+      return pos >= 0 ? (pos << 1) + 1 : (-pos - 1) << 1;
+    }
+
+  }
+  // Classes -
+
+}
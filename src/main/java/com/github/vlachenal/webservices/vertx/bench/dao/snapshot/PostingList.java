@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.util.Arrays;
+
+
+/**
+ * Compressed list of integers.<br>
+ * Integers are stored as zigzag encoded differences with the previous one in variable length
+ * bytes: increasing lists of close integers take one byte per integer. Integers are appended by
+ * a single writer at a time and can be read from any thread: length is updated once bytes have
+ * been written.
+ *
+ * @author Vincent Lachenal
+ */
+final class PostingList {
+
+  // Attributes +
+  /** Encoded integers */
+  private byte[] data = new byte[4];
+
+  /** Number of encoded bytes */
+  private volatile int length;
+
+  /** Number of integers */
+  private volatile int size;
+
+  /** Last appended integer */
+  private int last;
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Append integer
+   *
+   * @param value the integer
+   */
+  void add(final int value) {
+    final int delta = value - last;
+    int zigzag = (delta << 1) ^ (delta >> 31);
+    byte[] bytes = data;
+    int pos = length;
+    if(pos + 5 > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, pos + 5));
+      data = bytes;
+    }
+    while((zigzag & ~0x7f) != 0) {
+      bytes[pos++] = (byte)((zigzag & 0x7f) | 0x80);
+      zigzag >>>= 7;
+    }
+    bytes[pos++] = (byte)zigzag;
+    last = value;
+    size = size + 1;
+    // Publish bytes
+    length = pos;
+  }
+
+  /**
+   * Get number of integers. Integers which are being appended may be counted or not.
+   *
+   * @return the number of integers
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Decode first integers
+   *
+   * @param dest the destination array
+   * @param offset the offset of the first integer in destination
+   * @param max the maximum number of integers to decode (usually {@link #size()})
+   *
+   * @return the number of decoded integers
+   */
+  int decode(final int[] dest, final int offset, final int max) {
+    // Read length before bytes
+    final int end = length;
+    final byte[] bytes = data;
+    final int last = offset + max;
+    int out = offset;
+    int value = 0;
+    int pos = 0;
+    while(pos < end && out < last) {
+      int zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[pos++];
+        zigzag |= (b & 0x7f) << shift;
+        shift += 7;
+      } while(b < 0);
+      value += (zigzag >>> 1) ^ -(zigzag & 1);
+      dest[out++] = value;
+    }
+    return out - offset;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion;
+import com.github.vlachenal.webservices.vertx.bench.dao.CursorStream;
+import com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.SQLClient;
+
+
+/**
+ * Customer DAO which searches customers in a {@link CustomerSnapshot}.<br>
+ * Every other request is delegated. Successful writes of delegate are applied to snapshot.
+ * Until snapshot has been loaded, searches are delegated too.
+ *
+ * @author Vincent Lachenal
+ */
+public class SnapshotCustomerDAO implements CustomerDAO {
+
+  // Attributes +
+  /** {@link SnapshotCustomerDAO} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(SnapshotCustomerDAO.class);
+
+  /** List customers search columns SQL request */
+  private static final String REQ_CUSTOMERS = "SELECT id,first_name,last_name,email,birth_date FROM Customer";
+
+  /** Get customer search columns SQL request */
+  private static final String REQ_CUSTOMER = REQ_CUSTOMERS + " WHERE id = ?";
+
+  /** Number of customers to fetch per round trip on reload */
+  private static final int FETCH_SIZE = 10000;
+
+  /** SQL client */
+  private final SQLClient jdbc;
+
+  /** Delegate DAO */
+  private final CustomerDAO delegate;
+
+  /** Customers snapshot */
+  private final CustomerSnapshot snapshot;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SnapshotCustomerDAO} constructor
+   *
+   * @param jdbc the SQL client used to load snapshot
+   * @param delegate the DAO to delegate to
+   * @param snapshot the customers snapshot
+   */
+  public SnapshotCustomerDAO(final SQLClient jdbc, final CustomerDAO delegate, final CustomerSnapshot snapshot) {
+    this.jdbc = jdbc;
+    this.delegate = delegate;
+    this.snapshot = snapshot;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get customers snapshot
+   *
+   * @return the snapshot
+   */
+  public CustomerSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Convert birth date column to epoch day
+   *
+   * @param value the column value (ISO date)
+   *
+   * @return the epoch day
+   */
+  private static int toEpochDay(final String value) {
+    return value == null ? CustomerColumns.NO_DATE : (int)LocalDate.parse(value).toEpochDay();
+  }
+
+  /**
+   * Reload snapshot from every customer in database.<br>
+   * Customers are read through a cursor. When a reload is already in progress, nothing is done.
+   *
+   * @param destination the destination result (number of customers or {@code null} when snapshot has not been reloaded)
+   */
+  public void reload(final Handler<AsyncResult<Integer>> destination) {
+    if(!snapshot.startReload()) {
+      destination.handle(Future.succeededFuture());
+      return;
+    }
+    final long start = System.nanoTime();
+    CursorStream.open(jdbc, REQ_CUSTOMERS, new JsonArray(), FETCH_SIZE, row -> row, res -> {
+      if(res.failed()) {
+        abortReload(res.cause(), destination);
+        return;
+      }
+      res.result().handler(row -> snapshot.load(UUID.fromString(row.getString(0)), row.getString(1), row.getString(2), row.getString(3), toEpochDay(row.getString(4))))
+      .exceptionHandler(cause -> abortReload(cause, destination))
+      .endHandler(end -> {
+        final int count = snapshot.completeReload();
+        LOG.info("Customer snapshot has been loaded with {} customers in {}ms", count, (System.nanoTime() - start) / 1000000L);
+        destination.handle(Future.succeededFuture(count));
+      });
+    });
+  }
+
+  /**
+   * Abort snapshot reload
+   *
+   * @param cause the error
+   * @param destination the destination result
+   */
+  private void abortReload(final Throwable cause, final Handler<AsyncResult<Integer>> destination) {
+    LOG.error("Unable to load customer snapshot: " + cause.getMessage(), cause);
+    snapshot.abortReload();
+    destination.handle(Future.failedFuture(cause));
+  }
+
+  /**
+   * Refresh customer from database: it has been written by another process
+   *
+   * @param customerId the customer identifier
+   */
+  public void refresh(final UUID customerId) {
+    jdbc.querySingleWithParams(REQ_CUSTOMER, new JsonArray(Collections.singletonList(customerId)), res -> {
+      if(res.failed()) {
+        LOG.warn("Unable to refresh customer {} in snapshot: {}", customerId, res.cause().getMessage());
+      } else if(res.result() == null) {
+        snapshot.delete(customerId);
+      } else {
+        final JsonArray row = res.result();
+        snapshot.upsert(customerId, row.getString(1), row.getString(2), row.getString(3), toEpochDay(row.getString(4)));
+      }
+    });
+  }
+
+  /**
+   * Add created customer to snapshot
+   *
+   * @param customerId the customer identifier
+   * @param customer the customer
+   */
+  private void created(final String customerId, final CustomerDTO customer) {
+    snapshot.upsert(UUID.fromString(customerId), customer.getFirstName(), customer.getLastName(), customer.getEmail(),
+                    CustomerSnapshot.toEpochDay(customer.getBirthDate()));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#customerExists(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void customerExists(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    delegate.customerExists(customerId, destination);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#mightExist(java.util.UUID)
+   */
+  @Override
+  public boolean mightExist(final UUID customerId) {
+    return delegate.mightExist(customerId);
+  }
+
+  /**
+   * Search customers in snapshot once it has been loaded. Ranked searches are delegated.<br>
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#search(com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO, int, io.vertx.core.Handler)
+   */
+  @Override
+  public void search(final SearchRequestDTO request, final int limit, final Handler<AsyncResult<List<CustomerDTO>>> destination) {
+    final boolean ranked = request.getMode() != null && request.getMode().isRanked();
+    final List<CustomerDTO> found = ranked ? null : snapshot.search(request, limit);
+    if(found == null) {
+      delegate.search(request, limit, destination);
+    } else {
+      destination.handle(Future.succeededFuture(found));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#getDetails(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void getDetails(final UUID customerId, final Handler<AsyncResult<CustomerDTO>> destination) {
+    delegate.getDetails(customerId, destination);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#trackWrites(com.github.vlachenal.webservices.vertx.bench.cache.WriteVersion)
+   */
+  @Override
+  public void trackWrites(final WriteVersion writeVersion) {
+    delegate.trackWrites(writeVersion);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#createCustomer(com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO, io.vertx.core.Handler)
+   */
+  @Override
+  public void createCustomer(final CustomerDTO customer, final Handler<AsyncResult<String>> destination) {
+    delegate.createCustomer(customer, res -> {
+      if(res.succeeded()) {
+        created(res.result(), customer);
+      }
+      destination.handle(res);
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#createCustomers(java.util.List, io.vertx.core.Handler)
+   */
+  @Override
+  public void createCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<AsyncResult<String>>>> destination) {
+    delegate.createCustomers(customers, res -> {
+      if(res.succeeded()) {
+        final List<AsyncResult<String>> items = res.result();
+        for(int i = 0 ; i < items.size() ; ++i) {
+          if(items.get(i).succeeded()) {
+            created(items.get(i).result(), customers.get(i));
+          }
+        }
+      }
+      destination.handle(res);
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteCustomer(java.util.UUID, io.vertx.core.Handler)
+   */
+  @Override
+  public void deleteCustomer(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+    delegate.deleteCustomer(customerId, res -> {
+      if(res.succeeded() && res.result()) {
+        snapshot.delete(customerId);
+      }
+      destination.handle(res);
+    });
+  }
+
+  /**
+   * Snapshot is cleared as soon as delegate has deleted rows, even if its maintenance fails.<br>
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteAll(io.vertx.core.Handler, io.vertx.core.Handler)
+   */
+  @Override
+  public void deleteAll(final Handler<Void> deleted, final Handler<AsyncResult<Void>> destination) {
+    delegate.deleteAll(v -> {
+      snapshot.clear();
+      deleted.handle(null);
+    }, destination);
+  }
+  // Methods -
+
+}
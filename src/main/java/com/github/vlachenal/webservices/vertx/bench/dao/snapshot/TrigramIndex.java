@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Names trigram index.<br>
+ * Every name is padded with two {@link #BOUNDARY} characters at start and one at end as
+ * PostgreSQL pg_trgm does, then each of its three characters sequences references the name
+ * code in a {@link PostingList}. Codes are added in increasing order so posting lists are
+ * sorted.<br>
+ * A LIKE pattern is resolved to the names which contain every trigram of its literal parts:
+ * anchored parts (no leading or trailing {@code %}) are padded too so prefixes are selective.
+ * Candidates have then to be checked against pattern since trigrams do not keep positions and
+ * the longest posting lists may be skipped.<br>
+ * Names are added by a single writer at a time. Index can be read from any thread.
+ *
+ * @author Vincent Lachenal
+ */
+final class TrigramIndex {
+
+  // Attributes +
+  /** Name boundary padding character */
+  private static final char BOUNDARY = '\0';
+
+  /** Name codes by trigram */
+  private final ConcurrentHashMap<Long, PostingList> postings = new ConcurrentHashMap<>();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Encode trigram
+   *
+   * @param text the text
+   * @param start the trigram start index
+   *
+   * @return the trigram key
+   */
+  private static long trigram(final CharSequence text, final int start) {
+    return (long)text.charAt(start) << 32 | (long)text.charAt(start + 1) << 16 | text.charAt(start + 2);
+  }
+
+  /**
+   * Index name
+   *
+   * @param code the name code (greater than every indexed code)
+   * @param name the name
+   */
+  void add(final int code, final String name) {
+    final String padded = "" + BOUNDARY + BOUNDARY + name + BOUNDARY;
+    final Set<Long> added = new HashSet<>();
+    for(int i = 0 ; i + 3 <= padded.length() ; ++i) {
+      final Long key = trigram(padded, i);
+      if(added.add(key)) {
+        postings.computeIfAbsent(key, k -> new PostingList()).add(code);
+      }
+    }
+  }
+
+  /**
+   * Get trigrams of LIKE pattern literal parts
+   *
+   * @param pattern the LIKE pattern
+   *
+   * @return the trigrams (empty when literal parts are too short to be indexed)
+   */
+  static Set<Long> trigrams(final String pattern) {
+    final Set<Long> trigrams = new HashSet<>();
+    final StringBuilder part = new StringBuilder().append(BOUNDARY).append(BOUNDARY);
+    for(int i = 0 ; i < pattern.length() ; ++i) {
+      final char c = pattern.charAt(i);
+      if(c == '\\' && i + 1 < pattern.length()) {
+        part.append(pattern.charAt(++i));
+      } else if(c == '%' || c == '_') {
+        for(int j = 0 ; j + 3 <= part.length() ; ++j) {
+          trigrams.add(trigram(part, j));
+        }
+        part.setLength(0);
+      } else {
+        part.append(c);
+      }
+    }
+    part.append(BOUNDARY);
+    for(int j = 0 ; j + 3 <= part.length() ; ++j) {
+      trigrams.add(trigram(part, j));
+    }
+    return trigrams;
+  }
+
+  /**
+   * Get codes of names which may match LIKE pattern
+   *
+   * @param pattern the LIKE pattern
+   *
+   * @return the sorted candidate codes or {@code null} when pattern has no trigram
+   */
+  int[] candidates(final String pattern) {
+    final Set<Long> trigrams = trigrams(pattern);
+    if(trigrams.isEmpty()) {
+      return null;
+    }
+    final List<PostingList> lists = new ArrayList<>(trigrams.size());
+    for(final Long key : trigrams) {
+      final PostingList list = postings.get(key);
+      if(list == null) {
+        return new int[0];
+      }
+      lists.add(list);
+    }
+    // Intersect from the shortest list while next list is not much longer than candidates:
+    // checking a few more candidates is cheaper than decoding long lists of common trigrams
+    lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+    int[] codes = new int[lists.get(0).size()];
+    int count = lists.get(0).decode(codes, 0, codes.length);
+    int[] other = new int[0];
+    for(int l = 1 ; l < lists.size() && count > 0 ; ++l) {
+      final PostingList list = lists.get(l);
+      if(list.size() > count << 5) {
+        break;
+      }
+      if(other.length < list.size()) {
+        other = new int[list.size()];
+      }
+      final int otherCount = list.decode(other, 0, other.length);
+      int kept = 0;
+      int j = 0;
+      for(int i = 0 ; i < count && j < otherCount ; ++i) {
+        while(j < otherCount && other[j] < codes[i]) {
+          ++j;
+        }
+        if(j < otherCount && other[j] == codes[i]) {
+          codes[kept++] = codes[i];
+        }
+      }
+      count = kept;
+    }
+    if(count < codes.length) {
+      codes = Arrays.copyOf(codes, count);
+    }
+    return codes;
+  }
+
+  /**
+   * Get number of distinct trigrams
+   *
+   * @return the number of trigrams
+   */
+  int size() {
+    return postings.size();
+  }
+  // Methods -
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+
+/**
+ * Batch item result: either the created resource identifier or an error
+ *
+ * @author Vincent Lachenal
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDTO {
+
+  // Attributes +
+  /** Created resource identifier */
+  private String id;
+
+  /** Error */
+  private ErrorResponseDTO error;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BatchItemResultDTO} default constructor
+   */
+  public BatchItemResultDTO() {
+    // Nothing to do
+  }
+
+  /**
+   * {@link BatchItemResultDTO} constructor
+   *
+   * @param id the created resource identifier
+   * @param error the error
+   */
+  public BatchItemResultDTO(final String id, final ErrorResponseDTO error) {
+    this.id = id;
+    this.error = error;
+  }
+  // Constructors -
+
+
+  // Accessors +
+  /**
+   * Identifier getter
+   *
+   * @return the identifier
+   */
+  public final String getId() {
+    return id;
+  }
+
+  /**
+   * Identifier setter
+   *
+   * @param id the identifier to set
+   */
+  public final void setId(final String id) {
+    this.id = id;
+  }
+
+  /**
+   * Error getter
+   *
+   * @return the error
+   */
+  public final ErrorResponseDTO getError() {
+    return error;
+  }
+
+  /**
+   * Error setter
+   *
+   * @param error the error to set
+   */
+  public final void setError(final ErrorResponseDTO error) {
+    this.error = error;
+  }
+  // Accessors -
+
+}
@@ -7,6 +7,7 @@
 package com.github.vlachenal.webservices.vertx.bench.dto;
 
 import java.util.Date;
+import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -40,6 +41,12 @@ public class CustomerDTO {
 
   /** Customer email address */
   private String email;
+
+  /** Customer address */
+  private AddressDTO address;
+
+  /** Customer phones */
+  private List<PhoneDTO> phones;
   // Attributes -
 
 
@@ -156,6 +163,42 @@ public class CustomerDTO {
   public void setEmail(final String email) {
     this.email = email;
   }
+
+  /**
+   * Address getter
+   *
+   * @return the address
+   */
+  public AddressDTO getAddress() {
+    return address;
+  }
+
+  /**
+   * Address setter
+   *
+   * @param address the address to set
+   */
+  public void setAddress(final AddressDTO address) {
+    this.address = address;
+  }
+
+  /**
+   * Phones getter
+   *
+   * @return the phones
+   */
+  public List<PhoneDTO> getPhones() {
+    return phones;
+  }
+
+  /**
+   * Phones setter
+   *
+   * @param phones the phones to set
+   */
+  public void setPhones(final List<PhoneDTO> phones) {
+    this.phones = phones;
+  }
   // Accessors -
 
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dto;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+
+/**
+ * Calendar dates conversions.<br>
+ * Dates without time (birth dates) are held in {@link Date} at midnight UTC: this is the
+ * time zone Jackson uses to format {@link CustomerDTO} birth date, so every conversion has to
+ * use it whatever the system time zone is.
+ *
+ * @author Vincent Lachenal
+ */
+public final class Dates {
+
+  // Constructors +
+  /**
+   * {@link Dates} private constructor
+   */
+  private Dates() {
+    // Nothing to do
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Convert local date to date
+   *
+   * @param date the local date (can be {@code null})
+   *
+   * @return the date at midnight UTC or {@code null}
+   */
+  public static Date toDate(final LocalDate date) {
+    return date == null ? null : Date.from(date.atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  /**
+   * Convert date to local date
+   *
+   * @param date the date (can be {@code null})
+   *
+   * @return the UTC local date or {@code null}
+   */
+  public static LocalDate toLocalDate(final Date date) {
+    return date == null ? null : date.toInstant().atZone(ZoneOffset.UTC).toLocalDate();
+  }
+  // Methods -
+
+}
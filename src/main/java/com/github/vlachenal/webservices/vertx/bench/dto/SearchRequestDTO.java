@@ -16,6 +16,37 @@ import java.util.Date;
  */
 public class SearchRequestDTO {
 
+  /**
+   * Name criteria search mode
+   *
+   * @author Vincent Lachenal
+   */
+  public enum Mode {
+
+    // Values +
+    /** Names match LIKE patterns. Customers are ordered by name. */
+    LIKE,
+
+    /** Names are similar to criteria (trigram similarity). Most similar customers come first. */
+    FUZZY,
+
+    /** Names contain criteria words (full-text search). Best ranked customers come first. */
+    FULLTEXT;
+    // Values -
+
+    // Methods +
+    /**
+     * Check if customers are ordered by relevance
+     *
+     * @return {@code true} when customers are ranked instead of being ordered by name
+     */
+    public boolean isRanked() {
+      return this != LIKE;
+    }
+    // Methods -
+
+  }
+
   // Attributes +
   /** First name */
   private String firstName;
@@ -34,6 +65,15 @@ public class SearchRequestDTO {
 
   /** Minimum birth date */
   private Date bornAfter;
+
+  /** Name criteria search mode ({@code null} for {@link Mode#LIKE}) */
+  private Mode mode;
+
+  /** Maximum number of customers to return */
+  private Integer pageSize;
+
+  /** Last customer of previous page (only identifier, first name and last name are set) */
+  private CustomerDTO after;
   // Attributes -
 
 
@@ -145,6 +185,60 @@ public class SearchRequestDTO {
   public final void setBornAfter(final Date bornAfter) {
     this.bornAfter = bornAfter;
   }
+
+  /**
+   * Search mode getter
+   *
+   * @return the search mode
+   */
+  public final Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Search mode setter
+   *
+   * @param mode the search mode to set
+   */
+  public final void setMode(final Mode mode) {
+    this.mode = mode;
+  }
+
+  /**
+   * Page size getter
+   *
+   * @return the page size
+   */
+  public final Integer getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Page size setter
+   *
+   * @param pageSize the page size to set
+   */
+  public final void setPageSize(final Integer pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Last customer of previous page getter
+   *
+   * @return the customer
+   */
+  public final CustomerDTO getAfter() {
+    return after;
+  }
+
+  /**
+   * Last customer of previous page setter
+   *
+   * @param after the customer to set
+   */
+  public final void setAfter(final CustomerDTO after) {
+    this.after = after;
+  }
   // Accessors -
 
 }
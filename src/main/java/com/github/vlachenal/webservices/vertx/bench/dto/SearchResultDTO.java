@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dto;
+
+import java.util.List;
+
+
+/**
+ * Search result. Contains one page of customers and the token to request the next one.
+ *
+ * @author Vincent Lachenal
+ */
+public class SearchResultDTO {
+
+  // Attributes +
+  /** Customers */
+  private List<CustomerDTO> customers;
+
+  /** Next page token ({@code null} for the last page) */
+  private String nextPageToken;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SearchResultDTO} default constructor
+   */
+  public SearchResultDTO() {
+    // Nothing to do
+  }
+
+  /**
+   * {@link SearchResultDTO} constructor
+   *
+   * @param customers the customers
+   * @param nextPageToken the next page token
+   */
+  public SearchResultDTO(final List<CustomerDTO> customers, final String nextPageToken) {
+    this.customers = customers;
+    this.nextPageToken = nextPageToken;
+  }
+  // Constructors -
+
+
+  // Accessors +
+  /**
+   * Customers getter
+   *
+   * @return the customers
+   */
+  public final List<CustomerDTO> getCustomers() {
+    return customers;
+  }
+
+  /**
+   * Customers setter
+   *
+   * @param customers the customers to set
+   */
+  public final void setCustomers(final List<CustomerDTO> customers) {
+    this.customers = customers;
+  }
+
+  /**
+   * Next page token getter
+   *
+   * @return the token
+   */
+  public final String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  /**
+   * Next page token setter
+   *
+   * @param nextPageToken the token to set
+   */
+  public final void setNextPageToken(final String nextPageToken) {
+    this.nextPageToken = nextPageToken;
+  }
+  // Accessors -
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+import com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link AddressBusiness} unit tests.<br>
+ * SQL DAO gives {@code null}, {@code false} or no address when its statement has not
+ * changed or read any row: business has to convert it to {@link NotFoundException}.
+ *
+ * @author Vincent Lachenal
+ */
+class AddressBusinessTest {
+
+  /** Address DAO results */
+  private StubAddressDAO addressDAO;
+
+  /** Invalidated customers ("table:identifier") */
+  private List<String> invalidated;
+
+  /** Existing customer identifier */
+  private String customerId;
+
+  /** Tested business */
+  private AddressBusiness business;
+
+  /**
+   * Create business with an existing customer
+   */
+  @BeforeEach
+  void setUp() {
+    final MemoryCustomerDAO customerDAO = new MemoryCustomerDAO(new MemoryStore());
+    final CustomerDTO customer = new CustomerDTO(null, "Joey", "Tribbiani");
+    customerDAO.createCustomer(customer, res -> customerId = res.result());
+    addressDAO = new StubAddressDAO();
+    invalidated = new ArrayList<>();
+    business = new AddressBusiness(addressDAO, customerDAO, new CustomerBusiness(customerDAO, 10, 100, 10, 100) {
+      @Override
+      public void invalidate(final String table, final UUID id) {
+        invalidated.add(table + ':' + id);
+      }
+    });
+  }
+
+  /**
+   * Create valid address
+   *
+   * @return the address
+   */
+  private static AddressDTO address() {
+    final AddressDTO address = new AddressDTO();
+    address.setLines(Arrays.asList("90 Bedford Street", "Apartment 19"));
+    address.setZipCode("10014");
+    address.setCity("New York");
+    address.setCountry("USA");
+    return address;
+  }
+
+  /**
+   * Test method for {@link AddressBusiness#getAddress(String, Handler)}
+   */
+  @Test
+  @DisplayName("Address of a homeless customer is not found")
+  void testGetAddress() {
+    final List<AsyncResult<AddressDTO>> results = new ArrayList<>();
+    business.getAddress(customerId, results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    addressDAO.found = address();
+    business.getAddress(customerId, results::add);
+    assertEquals(addressDAO.found, results.get(1).result());
+    assertThrows(InvalidParametersException.class, () -> business.getAddress("rachel", results::add));
+  }
+
+  /**
+   * Test method for {@link AddressBusiness#registerAddress(String, AddressDTO, Handler)}
+   */
+  @Test
+  @DisplayName("Address of a missing customer is not found")
+  void testRegisterAddress() {
+    final List<AsyncResult<String>> results = new ArrayList<>();
+    // Customer does not exist: DAO is not called
+    business.registerAddress(UUID.randomUUID().toString(), address(), results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    assertEquals(0, addressDAO.calls);
+    // Customer has been deleted meanwhile: no row has been inserted
+    business.registerAddress(customerId, address(), results::add);
+    assertTrue(results.get(1).cause() instanceof NotFoundException);
+    assertEquals(1, addressDAO.calls);
+    assertTrue(invalidated.isEmpty());
+    addressDAO.added = UUID.randomUUID().toString();
+    business.registerAddress(customerId, address(), results::add);
+    assertEquals(addressDAO.added, results.get(2).result());
+    assertEquals(Collections.singletonList(InvalidationChannel.ADDRESS + ':' + customerId), invalidated);
+    assertThrows(InvalidParametersException.class, () -> business.registerAddress(customerId, new AddressDTO(), results::add));
+  }
+
+  /**
+   * Test method for {@link AddressBusiness#deleteAddress(String, Handler)}
+   */
+  @Test
+  @DisplayName("Deleting a missing address is not found")
+  void testDeleteAddress() {
+    final List<AsyncResult<Void>> results = new ArrayList<>();
+    business.deleteAddress(customerId, results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    assertTrue(invalidated.isEmpty());
+    addressDAO.deleted = true;
+    business.deleteAddress(customerId, results::add);
+    assertTrue(results.get(1).succeeded());
+    assertEquals(Collections.singletonList(InvalidationChannel.ADDRESS + ':' + customerId), invalidated);
+  }
+
+
+  /**
+   * Address DAO which gives configured results
+   */
+  private static final class StubAddressDAO implements AddressDAO {
+
+    /** Registered address identifier ({@code null} when no row is inserted) */
+    private String added;
+
+    /** Found address */
+    private AddressDTO found;
+
+    /** Address has been deleted */
+    private boolean deleted;
+
+    /** Number of DAO calls */
+    private int calls;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#registerAddress(java.util.UUID, com.github.vlachenal.webservices.vertx.bench.dto.AddressDTO, io.vertx.core.Handler)
+     */
+    @Override
+    public void registerAddress(final UUID customerId, final AddressDTO address, final Handler<AsyncResult<String>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(added));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#getAddress(java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void getAddress(final UUID addressId, final Handler<AsyncResult<AddressDTO>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(found));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#listAddresses(java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void listAddresses(final UUID customerId, final Handler<AsyncResult<List<AddressDTO>>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(found == null ? Collections.emptyList() : Collections.singletonList(found)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.AddressDAO#deleteAddress(java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void deleteAddress(final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(deleted));
+    }
+
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+import com.github.vlachenal.webservices.vertx.bench.dto.BatchItemResultDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link CustomerBusiness} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class CustomerBusinessTest {
+
+  /**
+   * Test method for {@link CustomerBusiness#createBatch(List, Handler)}
+   */
+  @Test
+  @DisplayName("Batch created customers are published once per chunk")
+  void testCreateBatchPublication() {
+    final List<String> invalidated = new ArrayList<>();
+    final CustomerBusiness business = new CustomerBusiness(new MemoryCustomerDAO(new MemoryStore()), 10, 100, 2, 100) {
+      @Override
+      public void invalidate(final String table, final UUID id) {
+        invalidated.add(table + ':' + id);
+      }
+    };
+    final List<List<UUID>> published = new ArrayList<>();
+    business.enableRemoteInvalidation(new InvalidationChannel(null, "customers_invalidate", "local") {
+      @Override
+      public void publish(final String table, final List<UUID> customerIds) {
+        assertEquals(InvalidationChannel.CUSTOMER, table);
+        published.add(customerIds);
+      }
+    });
+    final CustomerDTO invalid = new CustomerDTO(null, "Ross", "Geller");
+    invalid.setPhones(Arrays.asList(new PhoneDTO()));
+    final List<CustomerDTO> customers = Arrays.asList(new CustomerDTO(null, "Monica", "Geller"),
+                                                      invalid,
+                                                      new CustomerDTO(null, "Phoebe", "Buffay"),
+                                                      new CustomerDTO(null, "Rachel", "Green"));
+    final List<AsyncResult<List<BatchItemResultDTO>>> results = new ArrayList<>();
+    business.createBatch(customers, results::add);
+    final List<BatchItemResultDTO> items = results.get(0).result();
+    assertNull(items.get(1).getId());
+    // New customers can not be stale: nothing is invalidated
+    assertTrue(invalidated.isEmpty());
+    assertEquals(Arrays.asList(Arrays.asList(UUID.fromString(items.get(0).getId()), UUID.fromString(items.get(2).getId())),
+                               Arrays.asList(UUID.fromString(items.get(3).getId()))),
+                 published);
+  }
+
+  /**
+   * Test method for {@link CustomerBusiness#createBatch(List, Handler)}
+   */
+  @Test
+  @DisplayName("Customers of a failed chunk get its error")
+  void testCreateBatchChunkFailure() {
+    final MemoryCustomerDAO dao = new MemoryCustomerDAO(new MemoryStore()) {
+      /** First chunk has been inserted */
+      private boolean first = true;
+
+      @Override
+      public void createCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<AsyncResult<String>>>> destination) {
+        if(first) {
+          first = false;
+          destination.handle(Future.failedFuture(new IllegalStateException("Connection is closed")));
+        } else {
+          super.createCustomers(customers, destination);
+        }
+      }
+    };
+    final CustomerBusiness business = new CustomerBusiness(dao, 10, 100, 2, 100);
+    final List<CustomerDTO> customers = Arrays.asList(new CustomerDTO(null, "Monica", "Geller"),
+                                                      new CustomerDTO(null, "Phoebe", "Buffay"),
+                                                      new CustomerDTO(null, "Rachel", "Green"));
+    final List<AsyncResult<List<BatchItemResultDTO>>> results = new ArrayList<>();
+    business.createBatch(customers, results::add);
+    final List<BatchItemResultDTO> items = results.get(0).result();
+    for(int i = 0 ; i < 2 ; ++i) {
+      assertNull(items.get(i).getId());
+      assertEquals(500, items.get(i).getError().getCode());
+    }
+    assertNotNull(items.get(2).getId());
+  }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.InvalidationChannel;
+import com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservices.vertx.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservices.vertx.bench.errors.NotFoundException;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link PhoneBusiness} unit tests.<br>
+ * SQL DAO gives {@code null} or {@code false} when its statement has not changed any row:
+ * business has to convert it to {@link NotFoundException}.
+ *
+ * @author Vincent Lachenal
+ */
+class PhoneBusinessTest {
+
+  /** Phone DAO results */
+  private StubPhoneDAO phoneDAO;
+
+  /** Invalidated customers ("table:identifier") */
+  private List<String> invalidated;
+
+  /** Existing customer identifier */
+  private String customerId;
+
+  /** Tested business */
+  private PhoneBusiness business;
+
+  /**
+   * Create business with an existing customer
+   */
+  @BeforeEach
+  void setUp() {
+    final MemoryCustomerDAO customerDAO = new MemoryCustomerDAO(new MemoryStore());
+    final CustomerDTO customer = new CustomerDTO(null, "Chandler", "Bing");
+    customerDAO.createCustomer(customer, res -> customerId = res.result());
+    phoneDAO = new StubPhoneDAO();
+    invalidated = new ArrayList<>();
+    business = new PhoneBusiness(phoneDAO, customerDAO, new CustomerBusiness(customerDAO, 10, 100, 10, 100) {
+      @Override
+      public void invalidate(final String table, final UUID id) {
+        invalidated.add(table + ':' + id);
+      }
+    });
+  }
+
+  /**
+   * Create valid phone
+   *
+   * @return the phone
+   */
+  private static PhoneDTO phone() {
+    final PhoneDTO phone = new PhoneDTO();
+    phone.setType(PhoneDTO.Type.MOBILE);
+    phone.setNumber("0612345678");
+    return phone;
+  }
+
+  /**
+   * Test method for {@link PhoneBusiness#getPhone(String, String, Handler)}
+   */
+  @Test
+  @DisplayName("Missing phone is not found")
+  void testGetPhone() {
+    final List<AsyncResult<PhoneDTO>> results = new ArrayList<>();
+    business.getPhone(customerId, UUID.randomUUID().toString(), results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    phoneDAO.found = phone();
+    business.getPhone(customerId, UUID.randomUUID().toString(), results::add);
+    assertEquals(phoneDAO.found, results.get(1).result());
+    assertThrows(InvalidParametersException.class, () -> business.getPhone(customerId, "monica", results::add));
+  }
+
+  /**
+   * Test method for {@link PhoneBusiness#registerPhone(String, PhoneDTO, Handler)}
+   */
+  @Test
+  @DisplayName("Phone of a missing customer is not found")
+  void testRegisterPhone() {
+    final List<AsyncResult<String>> results = new ArrayList<>();
+    // Customer does not exist: DAO is not called
+    business.registerPhone(UUID.randomUUID().toString(), phone(), results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    assertEquals(0, phoneDAO.calls);
+    // Customer has been deleted meanwhile: no row has been inserted
+    business.registerPhone(customerId, phone(), results::add);
+    assertTrue(results.get(1).cause() instanceof NotFoundException);
+    assertEquals(1, phoneDAO.calls);
+    assertTrue(invalidated.isEmpty());
+    phoneDAO.added = UUID.randomUUID().toString();
+    business.registerPhone(customerId, phone(), results::add);
+    assertEquals(phoneDAO.added, results.get(2).result());
+    assertEquals(Collections.singletonList(InvalidationChannel.PHONE + ':' + customerId), invalidated);
+    assertThrows(InvalidParametersException.class, () -> business.registerPhone(customerId, new PhoneDTO(), results::add));
+  }
+
+  /**
+   * Test method for {@link PhoneBusiness#deletePhone(String, String, Handler)}
+   */
+  @Test
+  @DisplayName("Deleting a missing phone is not found")
+  void testDeletePhone() {
+    final List<AsyncResult<Void>> results = new ArrayList<>();
+    business.deletePhone(customerId, UUID.randomUUID().toString(), results::add);
+    assertTrue(results.get(0).cause() instanceof NotFoundException);
+    assertTrue(invalidated.isEmpty());
+    phoneDAO.deleted = true;
+    business.deletePhone(customerId, UUID.randomUUID().toString(), results::add);
+    assertTrue(results.get(1).succeeded());
+    assertEquals(Collections.singletonList(InvalidationChannel.PHONE + ':' + customerId), invalidated);
+  }
+
+
+  /**
+   * Phone DAO which gives configured results
+   */
+  private static final class StubPhoneDAO implements PhoneDAO {
+
+    /** Added phone identifier ({@code null} when no row is inserted) */
+    private String added;
+
+    /** Found phone */
+    private PhoneDTO found;
+
+    /** Phone has been deleted */
+    private boolean deleted;
+
+    /** Number of DAO calls */
+    private int calls;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#getPhones(java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void getPhones(final UUID customerId, final Handler<AsyncResult<List<PhoneDTO>>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(found == null ? Collections.emptyList() : Collections.singletonList(found)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#addPhone(java.util.UUID, com.github.vlachenal.webservices.vertx.bench.dto.PhoneDTO, io.vertx.core.Handler)
+     */
+    @Override
+    public void addPhone(final UUID customerId, final PhoneDTO phone, final Handler<AsyncResult<String>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(added));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#getPhone(java.util.UUID, java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void getPhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<PhoneDTO>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(found));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.github.vlachenal.webservices.vertx.bench.dao.PhoneDAO#deletePhone(java.util.UUID, java.util.UUID, io.vertx.core.Handler)
+     */
+    @Override
+    public void deletePhone(final UUID phoneId, final UUID customerId, final Handler<AsyncResult<Boolean>> destination) {
+      ++calls;
+      destination.handle(Future.succeededFuture(deleted));
+    }
+
+  }
+
+}
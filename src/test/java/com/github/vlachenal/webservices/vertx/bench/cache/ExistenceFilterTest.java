@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link ExistenceFilter} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class ExistenceFilterTest {
+
+  /**
+   * Test method for {@link BloomFilter#mightContain(UUID)}
+   */
+  @Test
+  @DisplayName("Keep every added identifier with expected false positive rate")
+  void testBloomFilter() {
+    final BloomFilter filter = new BloomFilter(10000L, 0.01);
+    final List<UUID> ids = new ArrayList<>();
+    for(int i = 0 ; i < 10000 ; ++i) {
+      final UUID id = UUID.randomUUID();
+      ids.add(id);
+      filter.add(id);
+    }
+    ids.forEach(id -> assertTrue(filter.mightContain(id)));
+    int falsePositives = 0;
+    for(int i = 0 ; i < 100000 ; ++i) {
+      if(filter.mightContain(UUID.randomUUID())) {
+        ++falsePositives;
+      }
+    }
+    assertTrue(falsePositives < 2000, "Too many false positives: " + falsePositives);
+    assertTrue(filter.expectedFpp() < 0.02);
+  }
+
+  /**
+   * Test method for {@link ExistenceFilter#completeRebuild(BloomFilter, long)}
+   */
+  @Test
+  @DisplayName("Keep identifiers added during rebuild and forget the others")
+  void testRebuild() {
+    final ExistenceFilter existence = new ExistenceFilter(1000L, 0.01);
+    final UUID deleted = UUID.randomUUID();
+    assertTrue(existence.mightContain(deleted));
+    BloomFilter building = existence.startRebuild();
+    building.add(deleted);
+    assertFalse(existence.completeRebuild(building, 1L));
+    assertTrue(existence.mightContain(deleted));
+    final UUID kept = UUID.randomUUID();
+    final UUID created = UUID.randomUUID();
+    building = existence.startRebuild();
+    assertNull(existence.startRebuild());
+    building.add(kept);
+    existence.add(created);
+    assertTrue(existence.completeRebuild(building, 1L));
+    assertTrue(existence.mightContain(kept));
+    assertTrue(existence.mightContain(created));
+    assertFalse(existence.mightContain(deleted));
+    assertEquals(1L, existence.getNegatives());
+    existence.record(false);
+    assertEquals(1L, existence.getFalsePositives());
+    assertEquals(0.5, existence.toJson().getDouble("false_positive_rate"));
+  }
+
+  /**
+   * Test method for {@link ExistenceFilter#reset()}
+   */
+  @Test
+  @DisplayName("Discard rebuild in progress on reset")
+  void testReset() {
+    final ExistenceFilter existence = new ExistenceFilter(1000L, 0.01);
+    final UUID id = UUID.randomUUID();
+    final BloomFilter building = existence.startRebuild();
+    existence.reset();
+    assertTrue(existence.completeRebuild(building, 0L));
+    assertTrue(existence.mightContain(id));
+    assertFalse(existence.toJson().getBoolean("ready"));
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link ReadThroughCache} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class ReadThroughCacheTest {
+
+  /**
+   * Test method for {@link ReadThroughCache#get(Object, java.util.function.BiConsumer, Handler)}
+   */
+  @Test
+  @DisplayName("Share loads and evict least recently used entries")
+  void testGet() {
+    final CacheStats stats = new CacheStats();
+    final ReadThroughCache<String, String> cache = new ReadThroughCache<>(1, 60000L, stats);
+    final List<Handler<AsyncResult<String>>> loads = new ArrayList<>();
+    final List<String> results = new ArrayList<>();
+    cache.get("a", (key, handler) -> loads.add(handler), res -> results.add(res.result()));
+    cache.get("a", (key, handler) -> loads.add(handler), res -> results.add(res.result()));
+    assertEquals(1, loads.size());
+    loads.get(0).handle(Future.succeededFuture("A"));
+    assertEquals(List.of("A", "A"), results);
+    cache.get("a", (key, handler) -> loads.add(handler), res -> results.add(res.result()));
+    assertEquals(1, loads.size());
+    cache.get("b", (key, handler) -> handler.handle(Future.succeededFuture("B")), res -> results.add(res.result()));
+    assertEquals(1, cache.size());
+    assertEquals(1L, stats.getHits());
+    assertEquals(3L, stats.getMisses());
+    assertEquals(1L, stats.getEvictions());
+  }
+
+  /**
+   * Test method for {@link ReadThroughCache#invalidate(Object)}
+   */
+  @Test
+  @DisplayName("Do not cache loads which have been invalidated")
+  void testInvalidate() {
+    final ReadThroughCache<String, String> cache = new ReadThroughCache<>(10, 60000L, new CacheStats());
+    final List<Handler<AsyncResult<String>>> loads = new ArrayList<>();
+    cache.get("a", (key, handler) -> loads.add(handler), res -> {});
+    cache.invalidate("a");
+    loads.get(0).handle(Future.succeededFuture("stale"));
+    assertEquals(0, cache.size());
+    cache.get("a", (key, handler) -> loads.add(handler), res -> {});
+    assertEquals(2, loads.size());
+  }
+
+  /**
+   * Test method for {@link ReadThroughCache#get(Object, java.util.function.BiConsumer, Handler)} with write version
+   */
+  @Test
+  @DisplayName("Expire entries loaded before last write")
+  void testWriteVersion() {
+    final AtomicLong version = new AtomicLong();
+    final ReadThroughCache<String, String> cache = new ReadThroughCache<>(10, 60000L, new CacheStats(), version::get);
+    final List<String> loads = new ArrayList<>();
+    cache.get("a", (key, handler) -> {
+      loads.add(key);
+      handler.handle(Future.succeededFuture("A"));
+    }, res -> {});
+    cache.get("a", (key, handler) -> loads.add(key), res -> {});
+    assertEquals(1, loads.size());
+    version.incrementAndGet();
+    cache.get("a", (key, handler) -> loads.add(key), res -> {});
+    assertEquals(2, loads.size());
+  }
+
+}
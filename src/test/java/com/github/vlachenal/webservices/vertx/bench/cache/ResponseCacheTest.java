@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.buffer.Buffer;
+
+
+/**
+ * {@link ResponseCache} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class ResponseCacheTest {
+
+  /**
+   * Test method for {@link ResponseCache#put(String, String, Buffer, long)}
+   */
+  @Test
+  @DisplayName("Evict least recently used responses to respect byte budget")
+  void testPut() {
+    final CacheStats stats = new CacheStats();
+    final ResponseCache cache = new ResponseCache(10L, false, stats);
+    cache.put("a", "/customers/a", Buffer.buffer("123456"), cache.version());
+    cache.put("b", "/customers/b", Buffer.buffer("1234"), cache.version());
+    assertEquals(10L, cache.getBytes());
+    cache.put("c", "/customers/c", Buffer.buffer("12"), cache.version());
+    assertEquals(6L, cache.getBytes());
+    assertEquals(1L, stats.getEvictions());
+    cache.put("d", "/customers/d", Buffer.buffer("12345678901"), cache.version());
+    assertEquals(6L, cache.getBytes());
+  }
+
+  /**
+   * Test method for {@link ResponseCache#invalidate(String)}
+   */
+  @Test
+  @DisplayName("Invalidate resource responses and ignore stale loads")
+  void testInvalidate() {
+    final ResponseCache cache = new ResponseCache(1024L, true, new CacheStats());
+    final long version = cache.version();
+    cache.put("a", "/customers/a", Buffer.buffer("{}"), version);
+    cache.put("a", "/customers/a/phones", Buffer.buffer("[]"), version);
+    cache.invalidate("a");
+    assertEquals(0L, cache.getBytes());
+    cache.put("a", "/customers/a", Buffer.buffer("{}"), version);
+    assertEquals(0L, cache.getBytes());
+  }
+
+}
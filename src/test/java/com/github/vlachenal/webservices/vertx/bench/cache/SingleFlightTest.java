@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link SingleFlight} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class SingleFlightTest {
+
+  /**
+   * Test method for {@link SingleFlight#execute(Object, java.util.function.Consumer, Handler)}
+   */
+  @Test
+  @DisplayName("Share in-flight call and retain nothing")
+  void testExecute() {
+    final SingleFlight<String, String> flight = new SingleFlight<>();
+    final List<Handler<AsyncResult<String>>> calls = new ArrayList<>();
+    final List<String> results = new ArrayList<>();
+    flight.execute("a", calls::add, res -> results.add(res.result()));
+    flight.execute("a", calls::add, res -> results.add(res.result()));
+    flight.execute("b", calls::add, res -> results.add(res.result()));
+    assertEquals(2, calls.size());
+    calls.get(0).handle(Future.succeededFuture("A"));
+    assertEquals(List.of("A", "A"), results);
+    assertEquals(1, flight.size());
+    flight.execute("a", calls::add, res -> results.add(res.result()));
+    assertEquals(3, calls.size());
+  }
+
+  /**
+   * Test method for {@link SingleFlight#execute(Object, java.util.function.Consumer, Handler)} with failing call
+   */
+  @Test
+  @DisplayName("Release key when call throws")
+  void testExecuteThrows() {
+    final SingleFlight<String, String> flight = new SingleFlight<>();
+    assertThrows(IllegalArgumentException.class, () -> flight.execute("a", handler -> {
+      throw new IllegalArgumentException();
+    }, res -> {}));
+    assertEquals(0, flight.size());
+  }
+
+}
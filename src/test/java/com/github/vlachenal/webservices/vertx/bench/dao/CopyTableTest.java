@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link CopyTable} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class CopyTableTest {
+
+  /**
+   * Test method for {@link CopyTable#copyIn(boolean)}
+   */
+  @Test
+  @DisplayName("Build COPY FROM STDIN from INSERT request")
+  void testCopyIn() {
+    assertEquals(CopyTable.PHONES, CopyTable.fromResource("phones"));
+    assertEquals("COPY Phone (customer_id,phone_type,number,id) FROM STDIN WITH (FORMAT csv, HEADER true)", CopyTable.PHONES.copyIn(true));
+    assertEquals("COPY Customer (id,first_name,last_name,birth_date,email) FROM STDIN WITH (FORMAT csv, HEADER false)", CopyTable.CUSTOMERS.copyIn(false));
+    assertNull(CopyTable.fromResource("unknown"));
+  }
+
+}
@@ -52,7 +52,7 @@ class CustomerDAOTest {
                                                            .put("username", "apibenchmark")
                                                            .put("password", "apibenchmark"),
         "ApiBenchmark");
-    dao = new CustomerDAO(client);
+    dao = new SQLCustomerDAO(client);
   }
 
   /**
@@ -126,7 +126,7 @@ class CustomerDAOTest {
   }
 
   /**
-   * Test method for {@link com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteAll()}.
+   * Test method for {@link com.github.vlachenal.webservices.vertx.bench.dao.CustomerDAO#deleteAll(io.vertx.core.Handler)}.
    */
   @Test
   void testDeleteAll() {
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+
+/**
+ * {@link CustomerInsertCoalescer} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class CustomerInsertCoalescerTest {
+
+  /** Vert.x instance */
+  private Vertx vertx;
+
+  /**
+   * Create Vert.x instance
+   */
+  @BeforeEach
+  void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  /**
+   * Close Vert.x instance
+   */
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  /**
+   * Test method for {@link CustomerInsertCoalescer#add(CustomerDTO, Handler)}
+   */
+  @Test
+  @DisplayName("Every coalesced creation fails with multi-row insert")
+  void testAddFailure() {
+    final IllegalStateException cause = new IllegalStateException("Connection is closed");
+    final SQLCustomerDAO dao = new SQLCustomerDAO(null) {
+      @Override
+      public void createCustomers(final List<CustomerDTO> customers, final Handler<AsyncResult<List<AsyncResult<String>>>> destination) {
+        destination.handle(Future.failedFuture(cause));
+      }
+    };
+    final CustomerInsertCoalescer coalescer = new CustomerInsertCoalescer(dao, vertx, 2, 60000L);
+    final List<AsyncResult<String>> results = new ArrayList<>();
+    coalescer.add(new CustomerDTO(null, "Monica", "Geller"), results::add);
+    coalescer.add(new CustomerDTO(null, "Chandler", "Bing"), results::add);
+    assertEquals(2, results.size());
+    results.forEach(res -> assertSame(cause, res.cause()));
+  }
+
+}
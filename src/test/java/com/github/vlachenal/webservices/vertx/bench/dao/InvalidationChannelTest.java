@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link InvalidationChannel} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class InvalidationChannelTest {
+
+  /**
+   * Test method for {@link InvalidationChannel#handle(String, java.util.function.BiConsumer)}
+   */
+  @Test
+  @DisplayName("Handle other processes notifications only")
+  void testHandle() {
+    final InvalidationChannel channel = new InvalidationChannel(null, "customers_invalidate", "local");
+    final UUID customerId = UUID.randomUUID();
+    final List<String> events = new ArrayList<>();
+    channel.handle(InvalidationChannel.payload("remote", InvalidationChannel.PHONE, customerId), (table, id) -> events.add(table + '/' + id));
+    channel.handle(InvalidationChannel.payload("remote", InvalidationChannel.CUSTOMER, null), (table, id) -> events.add(table + '/' + id));
+    channel.handle(InvalidationChannel.payload("local", InvalidationChannel.CUSTOMER, customerId), (table, id) -> events.add(table + '/' + id));
+    channel.handle("remote customer not-an-uuid", (table, id) -> events.add(table + '/' + id));
+    channel.handle("garbage", (table, id) -> events.add(table + '/' + id));
+    assertEquals(Arrays.asList("phone/" + customerId, "customer/null"), events);
+  }
+
+  /**
+   * Test method for {@link InvalidationChannel#handle(String, java.util.function.BiConsumer)}
+   */
+  @Test
+  @DisplayName("Handle notifications of several customers")
+  void testHandleList() {
+    final InvalidationChannel channel = new InvalidationChannel(null, "customers_invalidate", "local");
+    final List<UUID> customerIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    final List<UUID> events = new ArrayList<>();
+    channel.handle(InvalidationChannel.listPayload("remote", InvalidationChannel.CUSTOMER, customerIds), (table, id) -> events.add(id));
+    assertEquals(customerIds, events);
+    // Whole notification is ignored when one identifier is invalid
+    channel.handle("remote customer " + customerIds.get(0) + ",not-an-uuid", (table, id) -> events.add(id));
+    channel.handle("remote customer " + customerIds.get(0) + ',', (table, id) -> events.add(id));
+    assertEquals(customerIds, events);
+    // Largest notification fits in PostgreSQL payload
+    final List<UUID> largest = new ArrayList<>();
+    for(int i = 0 ; i < InvalidationChannel.MAX_IDS ; ++i) {
+      largest.add(UUID.randomUUID());
+    }
+    assertTrue(InvalidationChannel.listPayload(UUID.randomUUID().toString(), InvalidationChannel.ADDRESS, largest).length() < 8000);
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link MultiRowInsert} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class MultiRowInsertTest {
+
+  /**
+   * Test method for {@link MultiRowInsert#sql(int)}
+   */
+  @Test
+  @DisplayName("Build multi-row INSERT")
+  void testSql() {
+    final MultiRowInsert insert = new MultiRowInsert(SQLPhoneDAO.REQ_ADD_PHONE, 4);
+    assertEquals("INSERT INTO Phone (customer_id,phone_type,number,id) VALUES (?,?,?,?)", insert.sql(1));
+    assertEquals("INSERT INTO Phone (customer_id,phone_type,number,id) VALUES (?,?,?,?),(?,?,?,?),(?,?,?,?)", insert.sql(3));
+    assertSame(insert.sql(3), insert.sql(3));
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.sqlclient.Tuple;
+
+
+/**
+ * {@link PipelinedSQLClient} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class PipelinedSQLClientTest {
+
+  /**
+   * Test method for {@link PipelinedSQLClient#convertPlaceholders(String)}
+   */
+  @Test
+  @DisplayName("Convert request placeholders")
+  void testConvertPlaceholders() {
+    assertEquals("SELECT 1 FROM Customer WHERE id = $1", PipelinedSQLClient.convertPlaceholders("SELECT 1 FROM Customer WHERE id = ?"));
+    assertEquals("INSERT INTO T (a,b) VALUES ($1,$2)", PipelinedSQLClient.convertPlaceholders("INSERT INTO T (a,b) VALUES (?,?)"));
+    assertEquals("SELECT '?' FROM T WHERE a = $1", PipelinedSQLClient.convertPlaceholders("SELECT '?' FROM T WHERE a = ?"));
+  }
+
+  /**
+   * Test method for {@link PipelinedSQLClient#toTuple(JsonArray)}
+   */
+  @Test
+  @DisplayName("Convert parameters to tuple")
+  void testToTuple() {
+    final UUID id = UUID.randomUUID();
+    final Date date = Dates.toDate(LocalDate.of(1977, 4, 22));
+    final Tuple tuple = PipelinedSQLClient.toTuple(new JsonArray(Arrays.asList(id, "Chandler", date, 10)));
+    assertEquals(4, tuple.size());
+    assertEquals(id, tuple.getValue(0));
+    assertEquals("Chandler", tuple.getValue(1));
+    assertEquals(LocalDate.of(1977, 4, 22), tuple.getValue(2));
+    assertEquals(10, tuple.getValue(3));
+  }
+
+  /**
+   * Test method for {@link PipelinedSQLClient#toCallRequest(String, JsonArray, JsonArray)}
+   */
+  @Test
+  @DisplayName("Convert call to PostgreSQL statement")
+  void testToCallRequest() {
+    // Function result, input and output only parameters
+    PipelinedSQLClient.CallRequest call = PipelinedSQLClient.toCallRequest("{ ? = call customer_count(?, ?) }",
+                                                                           new JsonArray(Arrays.asList(null, "Chandler", null)),
+                                                                           new JsonArray(Arrays.asList("BIGINT", null, "VARCHAR")));
+    assertEquals("SELECT * FROM customer_count(?)", call.sql);
+    assertEquals(new JsonArray().add("Chandler"), call.params);
+    assertArrayEquals(new boolean[] { true, false, true }, call.outputs);
+    final ResultSet result = call.toCallResult(new ResultSet(Arrays.asList("count", "email"), Arrays.asList(new JsonArray().add(3).add("chandler@friends.com")), null));
+    assertEquals(new JsonArray().add(3).addNull().add("chandler@friends.com"), result.getOutput());
+    // Input/output parameter and expressions
+    call = PipelinedSQLClient.toCallRequest("{call normalize(?, lower(?), 'a,b')}", new JsonArray().add("Bing").add("BING"), new JsonArray().add("VARCHAR"));
+    assertEquals("SELECT * FROM normalize(?,lower(?),'a,b')", call.sql);
+    assertEquals(new JsonArray().add("Bing").add("BING"), call.params);
+    assertArrayEquals(new boolean[] { true, false }, call.outputs);
+    // Other statements are kept
+    call = PipelinedSQLClient.toCallRequest("SELECT now()", null, null);
+    assertEquals("SELECT now()", call.sql);
+    assertNull(call.params);
+    assertNull(call.toCallResult(new ResultSet()).getOutput());
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.asyncsql.PostgreSQLClient;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+
+/**
+ * Ranked search requests plans.<br>
+ * Requests are explained on benchmark database once {@link SchemaBootstrap} has created its
+ * indexes. Sequential scans are disabled: test tables are too small for the planner to choose
+ * indexes by itself, this checks that requests can be served by them. Tests are skipped when
+ * database is not running.
+ *
+ * @author Vincent Lachenal
+ */
+@ExtendWith(VertxExtension.class)
+class SearchPlanTest {
+
+  /** SQL client */
+  private static SQLClient client;
+
+  /**
+   * Check if database is running
+   *
+   * @return {@code true} when database port is open
+   */
+  private static boolean isDatabaseRunning() {
+    try(Socket socket = new Socket()) {
+      socket.connect(new InetSocketAddress("localhost", 5432), 1000);
+      return true;
+    } catch(final IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Create indexes
+   *
+   * @param vertx the Vert.x instance
+   * @param testContext the test context
+   */
+  @BeforeAll
+  static void setUpBeforeClass(final Vertx vertx, final VertxTestContext testContext) {
+    assumeTrue(isDatabaseRunning(), "PostgreSQL is not running");
+    client = PostgreSQLClient.createShared(vertx, new JsonObject()
+                                           .put("host", "localhost")
+                                           .put("port", 5432)
+                                           .put("database", "apibenchmark")
+                                           .put("username", "apibenchmark")
+                                           .put("password", "apibenchmark"),
+        "SearchPlanTest");
+    new SchemaBootstrap(client).bootstrap(testContext.succeeding(res -> testContext.completeNow()));
+  }
+
+  /**
+   * Explain search request and check that plan uses indexes
+   *
+   * @param request the search request
+   * @param testContext the test context
+   * @param indexes the expected indexes
+   */
+  private static void assertIndexScan(final SearchRequestDTO request, final VertxTestContext testContext, final String... indexes) {
+    final int shape = SearchQueries.shape(request);
+    client.getConnection(testContext.succeeding(conn -> conn.execute("SET enable_seqscan = off", testContext.succeeding(set -> {
+      conn.queryWithParams("EXPLAIN " + SearchQueries.pageQuery(shape), SearchQueries.pageParams(request, shape, 10), testContext.succeeding(res -> {
+        conn.close();
+        final String plan = res.getResults().stream().map(row -> row.getString(0)).collect(Collectors.joining("\n"));
+        testContext.verify(() -> {
+          for(final String index : indexes) {
+            assertTrue(plan.contains("Bitmap Index Scan on " + index), plan);
+          }
+        });
+        testContext.completeNow();
+      }));
+    }))));
+  }
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} with fuzzy last name search
+   *
+   * @param testContext the test context
+   */
+  @Test
+  @DisplayName("Fuzzy last name search uses trigram index")
+  void testFuzzyPlan(final VertxTestContext testContext) {
+    final SearchRequestDTO request = new SearchRequestDTO();
+    request.setMode(SearchRequestDTO.Mode.FUZZY);
+    request.setLastName("Noris");
+    assertIndexScan(request, testContext, "customer_last_name_trgm_idx");
+  }
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} with fuzzy first name search
+   *
+   * @param testContext the test context
+   */
+  @Test
+  @DisplayName("Fuzzy first name search uses trigram index")
+  void testFuzzyFirstNamePlan(final VertxTestContext testContext) {
+    final SearchRequestDTO request = new SearchRequestDTO();
+    request.setMode(SearchRequestDTO.Mode.FUZZY);
+    request.setFirstName("Chuk");
+    assertIndexScan(request, testContext, "customer_first_name_trgm_idx");
+  }
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} with full-text search
+   *
+   * @param testContext the test context
+   */
+  @Test
+  @DisplayName("Full-text search uses full-text indexes")
+  void testFullTextPlan(final VertxTestContext testContext) {
+    final SearchRequestDTO request = new SearchRequestDTO();
+    request.setMode(SearchRequestDTO.Mode.FULLTEXT);
+    request.setLastName("Van Damme");
+    assertIndexScan(request, testContext, "customer_last_name_fts_idx");
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+
+/**
+ * {@link SearchQueries} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class SearchQueriesTest {
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} without criteria
+   */
+  @Test
+  @DisplayName("Search without criteria")
+  void testNoCriteria() {
+    final SearchRequestDTO req = new SearchRequestDTO();
+    final int shape = SearchQueries.shape(req);
+    assertEquals(0, shape);
+    assertEquals("SELECT id,first_name,last_name FROM Customer ORDER BY last_name COLLATE \"C\",first_name COLLATE \"C\",id LIMIT ?", SearchQueries.pageQuery(shape));
+    assertEquals(Arrays.asList(10), SearchQueries.pageParams(req, shape, 10).getList());
+  }
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} with criteria and keyset
+   */
+  @Test
+  @DisplayName("Search with criteria and keyset")
+  void testCriteriaAndKeyset() {
+    final SearchRequestDTO req = new SearchRequestDTO();
+    final LocalDate day = LocalDate.of(1977, 4, 22);
+    final Date date = Dates.toDate(day);
+    final UUID id = UUID.randomUUID();
+    req.setLastName("Norris");
+    req.setBornBefore(date);
+    req.setAfter(new CustomerDTO(id.toString(), "Chuck", "Norris"));
+    final int shape = SearchQueries.shape(req);
+    assertEquals("SELECT id,first_name,last_name FROM Customer WHERE last_name LIKE ? AND birth_date <= ? "
+        + "AND (last_name COLLATE \"C\",first_name COLLATE \"C\",id) > (?,?,?) ORDER BY last_name COLLATE \"C\",first_name COLLATE \"C\",id LIMIT ?", SearchQueries.pageQuery(shape));
+    assertEquals(Arrays.asList("Norris", day, "Norris", "Chuck", id, 10), SearchQueries.pageParams(req, shape, 10).getList());
+  }
+
+  /**
+   * Test method for {@link SearchQueries#pageQuery(int)} with ranked search modes
+   */
+  @Test
+  @DisplayName("Ranked searches")
+  void testRankedModes() {
+    final SearchRequestDTO req = new SearchRequestDTO();
+    final LocalDate day = LocalDate.of(1977, 4, 22);
+    final Date date = Dates.toDate(day);
+    req.setFirstName("Chuk");
+    req.setLastName("Noris");
+    req.setBornAfter(date);
+    req.setMode(SearchRequestDTO.Mode.FUZZY);
+    int shape = SearchQueries.shape(req);
+    assertEquals("SELECT id,first_name,last_name FROM Customer WHERE first_name % ? AND last_name % ? AND birth_date >= ? "
+        + "ORDER BY similarity(first_name,?)+similarity(last_name,?) DESC,id LIMIT ?", SearchQueries.pageQuery(shape));
+    assertEquals(Arrays.asList("Chuk", "Noris", day, "Chuk", "Noris", 10), SearchQueries.pageParams(req, shape, 10).getList());
+    req.setFirstName(null);
+    req.setBornAfter(null);
+    req.setMode(SearchRequestDTO.Mode.FULLTEXT);
+    shape = SearchQueries.shape(req);
+    assertEquals("SELECT id,first_name,last_name FROM Customer WHERE to_tsvector('simple',last_name) @@ plainto_tsquery('simple',?) "
+        + "ORDER BY ts_rank(to_tsvector('simple',last_name),plainto_tsquery('simple',?)) DESC,id LIMIT ?", SearchQueries.pageQuery(shape));
+    assertEquals(Arrays.asList("Noris", "Noris", 10), SearchQueries.pageParams(req, shape, 10).getList());
+    req.setMode(SearchRequestDTO.Mode.LIKE);
+    assertEquals("SELECT id,first_name,last_name FROM Customer WHERE last_name LIKE ? ORDER BY last_name COLLATE \"C\",first_name COLLATE \"C\",id LIMIT ?",
+                 SearchQueries.pageQuery(SearchQueries.shape(req)));
+  }
+
+  /**
+   * Test method for {@link SearchQueries#key(SearchRequestDTO, int)}
+   */
+  @Test
+  @DisplayName("Normalized search key")
+  void testKey() {
+    final SearchRequestDTO req = new SearchRequestDTO();
+    req.setLastName("Norris");
+    req.setBornBefore(new Date(0L));
+    final SearchRequestDTO same = new SearchRequestDTO();
+    same.setBornBefore(new Date(0L));
+    same.setLastName("Norris");
+    same.setPageSize(10);
+    assertEquals(SearchQueries.key(req, 11), SearchQueries.key(same, 11));
+    assertNotEquals(SearchQueries.key(req, 11), SearchQueries.key(req, 21));
+    same.setBornBefore(null);
+    same.setBornAfter(new Date(0L));
+    assertNotEquals(SearchQueries.key(req, 11), SearchQueries.key(same, 11));
+    same.setBornAfter(null);
+    same.setBornBefore(new Date(0L));
+    same.setMode(SearchRequestDTO.Mode.FUZZY);
+    assertNotEquals(SearchQueries.key(req, 11), SearchQueries.key(same, 11));
+  }
+
+  /**
+   * Test method for {@link SearchQueries#compareNames(String, String)}
+   */
+  @Test
+  @DisplayName("Names are compared as PostgreSQL C collation")
+  void testCompareNames() {
+    assertEquals(0, SearchQueries.compareNames("Norris", "Norris"));
+    assertTrue(SearchQueries.compareNames("Norris", "Norris Jr") < 0);
+    // Upper case letters are before lower case ones, accented letters are after both
+    assertTrue(SearchQueries.compareNames("Zoe", "abel") < 0);
+    assertTrue(SearchQueries.compareNames("zoe", "\u00c9mile") < 0);
+    // Supplementary characters are after every BMP character (UTF-8 byte order)
+    assertTrue(SearchQueries.compareNames("\ud83d\ude00", "\uffe0") > 0);
+    assertTrue("\ud83d\ude00".compareTo("\uffe0") < 0);
+    assertTrue(SearchQueries.compareNames("\ud83d\ude00", "\ud83d\ude01") < 0);
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+import io.vertx.core.json.Json;
+
+
+/**
+ * {@link MemoryStore} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class MemoryStoreTest {
+
+  /**
+   * Convert local date to date
+   *
+   * @param date the local date
+   *
+   * @return the date
+   */
+  private static Date date(final String date) {
+    return Dates.toDate(LocalDate.parse(date));
+  }
+
+  /**
+   * Create customers in store
+   *
+   * @param store the store
+   *
+   * @return the customers by creation order
+   */
+  private static List<CustomerDTO> fill(final MemoryStore store) {
+    final MemoryCustomerDAO dao = new MemoryCustomerDAO(store);
+    final List<CustomerDTO> customers = new ArrayList<>();
+    final String[][] names = {
+      { "Jean", "Dupont", "1980-01-01" },
+      { "Anne", "Dupont", "1990-06-15" },
+      { "Marc", "Durand", "1980-01-01" },
+      { "Zoe", "Martin", "2000-12-31" },
+      { "Paul", "Dupuis", null }
+    };
+    for(final String[] name : names) {
+      final CustomerDTO cust = new CustomerDTO(null, name[0], name[1]);
+      cust.setEmail(name[0].toLowerCase() + '.' + name[1].toLowerCase() + "@bench.org");
+      cust.setBirthDate(name[2] == null ? null : date(name[2]));
+      dao.createCustomer(cust, res -> cust.setId(res.result()));
+      customers.add(cust);
+    }
+    return customers;
+  }
+
+  /**
+   * Search customers' last and first names
+   *
+   * @param store the store
+   * @param request the search request
+   * @param limit the maximum number of customers
+   *
+   * @return the names
+   */
+  private static List<String> search(final MemoryStore store, final SearchRequestDTO request, final int limit) {
+    return store.search(request, limit).stream()
+        .map(cust -> cust.getLastName() + ' ' + cust.getFirstName())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Test method for {@link MemoryStore#search(SearchRequestDTO, int)}
+   */
+  @Test
+  @DisplayName("Search customers through each index in SQL order")
+  void testSearch() {
+    final MemoryStore store = new MemoryStore();
+    fill(store);
+    final SearchRequestDTO request = new SearchRequestDTO();
+    assertEquals(Arrays.asList("Dupont Anne", "Dupont Jean", "Dupuis Paul", "Durand Marc", "Martin Zoe"), search(store, request, 10));
+    request.setLastName("Dup%");
+    assertEquals(Arrays.asList("Dupont Anne", "Dupont Jean", "Dupuis Paul"), search(store, request, 10));
+    request.setFirstName("_ean");
+    assertEquals(Arrays.asList("Dupont Jean"), search(store, request, 10));
+    final SearchRequestDTO byEmail = new SearchRequestDTO();
+    byEmail.setEmail("zoe.martin@bench.org");
+    assertEquals(Arrays.asList("Martin Zoe"), search(store, byEmail, 10));
+    final SearchRequestDTO byBirthDate = new SearchRequestDTO();
+    byBirthDate.setBirthDate(date("1980-01-01"));
+    assertEquals(Arrays.asList("Dupont Jean", "Durand Marc"), search(store, byBirthDate, 10));
+    final SearchRequestDTO byRange = new SearchRequestDTO();
+    byRange.setBornAfter(date("1985-01-01"));
+    byRange.setBornBefore(date("2000-12-31"));
+    assertEquals(Arrays.asList("Dupont Anne", "Martin Zoe"), search(store, byRange, 10));
+  }
+
+  /**
+   * Test method for {@link MemoryStore#search(SearchRequestDTO, int)}
+   */
+  @Test
+  @DisplayName("Read pages after keyset position")
+  void testKeysetPagination() {
+    final MemoryStore store = new MemoryStore();
+    fill(store);
+    final SearchRequestDTO request = new SearchRequestDTO();
+    final List<String> names = new ArrayList<>();
+    List<CustomerDTO> page = store.search(request, 2);
+    while(!page.isEmpty()) {
+      page.forEach(cust -> names.add(cust.getLastName() + ' ' + cust.getFirstName()));
+      request.setAfter(page.get(page.size() - 1));
+      page = store.search(request, 2);
+    }
+    assertEquals(Arrays.asList("Dupont Anne", "Dupont Jean", "Dupuis Paul", "Durand Marc", "Martin Zoe"), names);
+    request.setLastName("Du%");
+    request.setBornAfter(date("1970-01-01"));
+    request.setAfter(store.search(new SearchRequestDTO(), 1).get(0));
+    assertEquals(Arrays.asList("Dupont Jean", "Durand Marc"), search(store, request, 10));
+  }
+
+  /**
+   * Test method for {@link MemoryStore#remove(UUID)}
+   */
+  @Test
+  @DisplayName("Remove deleted customers from every index")
+  void testRemove() {
+    final MemoryStore store = new MemoryStore();
+    final List<CustomerDTO> customers = fill(store);
+    final MemoryCustomerDAO dao = new MemoryCustomerDAO(store);
+    final UUID deleted = UUID.fromString(customers.get(0).getId());
+    dao.deleteCustomer(deleted, res -> assertTrue(res.result()));
+    dao.deleteCustomer(deleted, res -> assertFalse(res.result()));
+    dao.getDetails(deleted, res -> assertNull(res.result()));
+    final SearchRequestDTO request = new SearchRequestDTO();
+    request.setEmail("jean.dupont@bench.org");
+    assertTrue(store.search(request, 10).isEmpty());
+    request.setEmail(null);
+    request.setBirthDate(date("1980-01-01"));
+    assertEquals(Arrays.asList("Durand Marc"), search(store, request, 10));
+    assertEquals(4, store.size());
+    dao.deleteAll(res -> assertTrue(res.succeeded()));
+    assertEquals(0, store.size());
+  }
+
+  /**
+   * Test method for {@link StoredCustomer#toDetails()}
+   */
+  @Test
+  @DisplayName("Keep birth date east of UTC")
+  void testBirthDateTimeZone() {
+    final TimeZone zone = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+    try {
+      final MemoryStore store = new MemoryStore();
+      final CustomerDTO cust = new CustomerDTO(null, "Jean-Claude", "Van Damme");
+      cust.setBirthDate(Dates.toDate(LocalDate.of(1960, 10, 18)));
+      final MemoryCustomerDAO dao = new MemoryCustomerDAO(store);
+      dao.createCustomer(cust, res -> cust.setId(res.result()));
+      dao.getDetails(UUID.fromString(cust.getId()), res -> assertTrue(Json.encode(res.result()).contains("\"birth_date\":\"1960-10-18\"")));
+      final SearchRequestDTO request = new SearchRequestDTO();
+      request.setBirthDate(Dates.toDate(LocalDate.of(1960, 10, 18)));
+      assertEquals(Arrays.asList("Van Damme Jean-Claude"), search(store, request, 10));
+    } finally {
+      TimeZone.setDefault(zone);
+    }
+  }
+
+}
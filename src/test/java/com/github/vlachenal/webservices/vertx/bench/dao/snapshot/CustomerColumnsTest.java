@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link CustomerColumns} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class CustomerColumnsTest {
+
+  /**
+   * Test method for {@link CustomerColumns#append(long, long, int, int, long, int)}
+   */
+  @Test
+  @DisplayName("Updated rows are appended and published rows are left untouched")
+  void testAppendUpdate() {
+    final CustomerColumns columns = new CustomerColumns(4);
+    columns.append(1L, 2L, 10, 20, 30L, 40);
+    columns.append(3L, 4L, 11, 21, 31L, 41);
+    // Unchanged row is not appended again
+    columns.append(1L, 2L, 10, 20, 30L, 40);
+    assertEquals(2, columns.size());
+    assertEquals(0, columns.find(1L, 2L));
+    // A scan which has read row 0 still sees its old values
+    columns.append(1L, 2L, 12, 22, 32L, 42);
+    assertEquals(3, columns.size());
+    assertEquals(1, columns.deleted());
+    assertEquals(2, columns.find(1L, 2L));
+    assertEquals(CustomerColumns.DELETED, columns.lastName(0));
+    assertEquals(20, columns.firstName(0));
+    assertEquals(30L, columns.email(0));
+    assertEquals(40, columns.birthDay(0));
+    assertEquals(12, columns.lastName(2));
+    assertEquals(22, columns.firstName(2));
+    assertEquals(32L, columns.email(2));
+    assertEquals(42, columns.birthDay(2));
+    // Deleted customer is appended again
+    columns.delete(3L, 4L);
+    columns.append(3L, 4L, 11, 21, 31L, 41);
+    assertEquals(4, columns.size());
+    assertEquals(2, columns.deleted());
+    assertEquals(3, columns.find(3L, 4L));
+    // Deleted rows are dropped by growth
+    final CustomerColumns grown = columns.grow(8);
+    assertEquals(2, grown.size());
+    assertEquals(0, grown.deleted());
+    assertEquals(12, grown.lastName(grown.find(1L, 2L)));
+    assertEquals(11, grown.lastName(grown.find(3L, 4L)));
+  }
+
+}
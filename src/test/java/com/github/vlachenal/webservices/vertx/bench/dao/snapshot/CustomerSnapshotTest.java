@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+import com.github.vlachenal.webservices.vertx.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservices.vertx.bench.dto.Dates;
+import com.github.vlachenal.webservices.vertx.bench.dto.SearchRequestDTO;
+
+
+/**
+ * {@link CustomerSnapshot} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class CustomerSnapshotTest {
+
+  /** Last names */
+  private static final String[] LAST_NAMES = { "Dupont", "Durand", "Dupuis", "Martin", "Bernard", "Petit", "Moreau" };
+
+  /** First names */
+  private static final String[] FIRST_NAMES = { "Jean", "Anne", "Marc", "Zoe", "Paul", "Lea" };
+
+  /**
+   * Convert epoch day to date
+   *
+   * @param day the epoch day
+   *
+   * @return the date
+   */
+  private static Date date(final long day) {
+    return Dates.toDate(LocalDate.ofEpochDay(day));
+  }
+
+  /**
+   * Create random customer. Some names are unique.
+   *
+   * @param random the random generator
+   * @param index the customer index
+   *
+   * @return the customer
+   */
+  private static CustomerDTO customer(final Random random, final int index) {
+    final String lastName = random.nextInt(10) == 0 ? "Du" + index : LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    final CustomerDTO cust = new CustomerDTO(null, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], lastName);
+    cust.setEmail("customer" + random.nextInt(500) + "@bench.org");
+    if(random.nextInt(5) != 0) {
+      cust.setBirthDate(date(3000 + random.nextInt(100)));
+    }
+    return cust;
+  }
+
+  /**
+   * Read every page of search in snapshot and in memory store and check they are the same
+   *
+   * @param snapshot the snapshot
+   * @param store the memory store
+   * @param request the search request
+   */
+  private static void assertSameSearch(final CustomerSnapshot snapshot, final MemoryStore store, final SearchRequestDTO request) {
+    request.setAfter(null);
+    final List<String> expected = store.search(request, Integer.MAX_VALUE).stream().map(CustomerDTO::getId).collect(Collectors.toList());
+    final List<String> found = new ArrayList<>();
+    List<CustomerDTO> page = snapshot.search(request, 7);
+    while(!page.isEmpty()) {
+      page.forEach(cust -> found.add(cust.getId()));
+      request.setAfter(page.get(page.size() - 1));
+      page = snapshot.search(request, 7);
+    }
+    assertEquals(expected, found);
+  }
+
+  /**
+   * Test method for {@link CustomerSnapshot#search(SearchRequestDTO, int)}
+   */
+  @Test
+  @DisplayName("Search snapshot as memory store with keyset pagination")
+  void testSearch() {
+    final Random random = new Random(42L);
+    final MemoryStore store = new MemoryStore();
+    final MemoryCustomerDAO dao = new MemoryCustomerDAO(store);
+    final CustomerSnapshot snapshot = new CustomerSnapshot(16);
+    assertNull(snapshot.search(new SearchRequestDTO(), 10));
+    // Half customers are loaded, the others are written after load and are not ranked
+    assertTrue(snapshot.startReload());
+    final List<UUID> ids = new ArrayList<>();
+    for(int i = 0 ; i < 2000 ; ++i) {
+      final CustomerDTO cust = customer(random, i);
+      dao.createCustomer(cust, res -> cust.setId(res.result()));
+      final UUID id = UUID.fromString(cust.getId());
+      ids.add(id);
+      if(i < 1000) {
+        snapshot.load(id, cust.getFirstName(), cust.getLastName(), cust.getEmail(), CustomerSnapshot.toEpochDay(cust.getBirthDate()));
+      } else {
+        if(i == 1000) {
+          assertEquals(1000, snapshot.completeReload());
+        }
+        snapshot.upsert(id, cust.getFirstName(), cust.getLastName(), cust.getEmail(), CustomerSnapshot.toEpochDay(cust.getBirthDate()));
+      }
+    }
+    for(int i = 0 ; i < 2000 ; i += 3) {
+      final UUID id = ids.get(i);
+      dao.deleteCustomer(id, res -> snapshot.delete(id));
+    }
+    assertEquals(store.size(), snapshot.toJson().getInteger("rows"));
+    final SearchRequestDTO request = new SearchRequestDTO();
+    assertSameSearch(snapshot, store, request);
+    request.setLastName("Du%");
+    assertSameSearch(snapshot, store, request);
+    request.setFirstName("_a%");
+    assertSameSearch(snapshot, store, request);
+    request.setBornAfter(date(3020));
+    request.setBornBefore(date(3060));
+    assertSameSearch(snapshot, store, request);
+    // Selective patterns check name posting lists rows only
+    final SearchRequestDTO byName = new SearchRequestDTO();
+    byName.setLastName("%9");
+    assertSameSearch(snapshot, store, byName);
+    byName.setLastName("Du1_");
+    assertSameSearch(snapshot, store, byName);
+    // Patterns without trigram are checked name by name while last names are walked in order
+    byName.setLastName("%o%");
+    assertSameSearch(snapshot, store, byName);
+    byName.setLastName(null);
+    byName.setFirstName("%e%");
+    assertSameSearch(snapshot, store, byName);
+    byName.setFirstName(null);
+    byName.setLastName("%upon%");
+    byName.setFirstName("%ea%");
+    assertSameSearch(snapshot, store, byName);
+    assertTrue(snapshot.toJson().getLong("indexed_searches") > 0L);
+    final SearchRequestDTO byEmail = new SearchRequestDTO();
+    byEmail.setEmail("customer42@bench.org");
+    assertSameSearch(snapshot, store, byEmail);
+    final SearchRequestDTO byBirthDate = new SearchRequestDTO();
+    byBirthDate.setBirthDate(date(3050));
+    assertSameSearch(snapshot, store, byBirthDate);
+    byBirthDate.setLastName("Nobody");
+    assertTrue(snapshot.search(byBirthDate, 10).isEmpty());
+  }
+
+  /**
+   * Test method for {@link CustomerSnapshot#completeReload()}
+   */
+  @Test
+  @DisplayName("Replay writes which happened during reload")
+  void testReload() {
+    final CustomerSnapshot snapshot = new CustomerSnapshot(4);
+    final UUID kept = UUID.randomUUID();
+    final UUID deleted = UUID.randomUUID();
+    final UUID created = UUID.randomUUID();
+    assertTrue(snapshot.startReload());
+    assertFalse(snapshot.startReload());
+    snapshot.load(kept, "Jean", "Dupont", null, CustomerSnapshot.toEpochDay(null));
+    snapshot.load(deleted, "Anne", "Dupont", null, CustomerSnapshot.toEpochDay(null));
+    snapshot.upsert(created, "Marc", "Durand", null, CustomerSnapshot.toEpochDay(null));
+    snapshot.delete(deleted);
+    assertEquals(2, snapshot.completeReload());
+    final List<String> ids = snapshot.search(new SearchRequestDTO(), 10).stream().map(CustomerDTO::getId).collect(Collectors.toList());
+    assertEquals(List.of(kept.toString(), created.toString()), ids);
+    assertTrue(snapshot.startReload());
+    snapshot.load(kept, "Jean", "Dupont", null, CustomerSnapshot.toEpochDay(null));
+    snapshot.clear();
+    assertEquals(0, snapshot.completeReload());
+  }
+
+}
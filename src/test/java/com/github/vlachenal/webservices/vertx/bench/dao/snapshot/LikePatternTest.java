@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.SearchQueries;
+
+
+/**
+ * {@link LikePattern} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class LikePatternTest {
+
+  /**
+   * Test method for {@link LikePattern#matches(String)}
+   */
+  @Test
+  @DisplayName("Match as LIKE regular expression")
+  void testMatches() {
+    final String[] patterns = { "", "%", "Dupont", "Du%", "%ont", "%up%", "D_p%t", "%p_n%", "_%_", "a%a%a", "%\\%%", "%\\_", "%a%b%", "Du%nt%" };
+    final String[] names = { "", "Dupont", "Dupond", "Durand", "aaa", "aa", "abab", "a", "50%", "a_", "ab", "ba", "Dupontnt" };
+    for(final String pattern : patterns) {
+      final LikePattern like = new LikePattern(pattern);
+      for(final String name : names) {
+        assertEquals(SearchQueries.likePattern(pattern).matcher(name).matches(), like.matches(name), pattern + " / " + name);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryCustomerDAO;
+import com.github.vlachenal.webservices.vertx.bench.dao.memory.MemoryStore;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+
+/**
+ * {@link SnapshotCustomerDAO} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class SnapshotCustomerDAOTest {
+
+  /**
+   * Test method for {@link SnapshotCustomerDAO#deleteAll(Handler, Handler)}
+   */
+  @Test
+  @DisplayName("Snapshot is cleared once rows are deleted even if maintenance fails")
+  void testDeleteAll() {
+    final CustomerSnapshot snapshot = new CustomerSnapshot(16);
+    assertTrue(snapshot.startReload());
+    snapshot.load(UUID.randomUUID(), "Chandler", "Bing", null, CustomerColumns.NO_DATE);
+    snapshot.load(UUID.randomUUID(), "Joey", "Tribbiani", null, CustomerColumns.NO_DATE);
+    assertEquals(2, snapshot.completeReload());
+    // Rows are deleted but maintenance fails (as VACUUM after TRUNCATE)
+    final MemoryCustomerDAO delegate = new MemoryCustomerDAO(new MemoryStore()) {
+      @Override
+      public void deleteAll(final Handler<Void> deleted, final Handler<AsyncResult<Void>> destination) {
+        deleted.handle(null);
+        destination.handle(Future.failedFuture(new IllegalStateException("VACUUM has failed")));
+      }
+    };
+    final List<AsyncResult<Void>> results = new ArrayList<>();
+    new SnapshotCustomerDAO(null, delegate, snapshot).deleteAll(results::add);
+    assertTrue(results.get(0).failed());
+    assertEquals(0, snapshot.toJson().getInteger("rows"));
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2018 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservices.vertx.bench.dao.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link TrigramIndex} unit tests
+ *
+ * @author Vincent Lachenal
+ */
+class TrigramIndexTest {
+
+  /**
+   * Test method for {@link TrigramIndex#candidates(String)}
+   */
+  @Test
+  @DisplayName("Resolve LIKE patterns to candidate names")
+  void testCandidates() {
+    final TrigramIndex index = new TrigramIndex();
+    final String[] names = { "Dupont", "Durand", "Lapointe", "Pont", "Du" };
+    for(int i = 0 ; i < names.length ; ++i) {
+      index.add(i, names[i]);
+    }
+    // Candidates are checked against pattern afterwards
+    assertArrayEquals(new int[] { 0, 1, 4 }, index.candidates("Du_%"));
+    assertArrayEquals(new int[] { 0, 3 }, index.candidates("%ont%"));
+    assertArrayEquals(new int[] { 2 }, index.candidates("%nte"));
+    assertArrayEquals(new int[] { 4 }, index.candidates("Du"));
+    assertArrayEquals(new int[0], index.candidates("%xyz%"));
+    // Too short to be indexed: every name has to be checked
+    assertNull(index.candidates("%o%"));
+    assertNull(index.candidates("_u%"));
+  }
+
+  /**
+   * Test method for {@link NameDictionary#matching(String)}
+   */
+  @Test
+  @DisplayName("Match names with and without trigrams")
+  void testMatching() {
+    final NameDictionary dictionary = new NameDictionary();
+    for(final String name : new String[] { "Dupont", "Durand", "Lapointe", "Pont", "50%" }) {
+      dictionary.encode(name);
+    }
+    final BitSet expected = new BitSet();
+    expected.set(0);
+    expected.set(3);
+    assertEquals(expected, dictionary.matching("%ont"));
+    assertEquals(expected, dictionary.matching("%o_t"));
+    expected.clear();
+    expected.set(4);
+    assertEquals(expected, dictionary.matching("%0\\%"));
+  }
+
+  /**
+   * Test method for {@link PostingList#decode(int[], int, int)}
+   */
+  @Test
+  @DisplayName("Decode compressed integers")
+  void testPostingList() {
+    final PostingList list = new PostingList();
+    final int[] values = { 0, 1, 2, 1000, 3, Integer.MAX_VALUE, 0, 70000 };
+    for(final int value : values) {
+      list.add(value);
+    }
+    assertEquals(values.length, list.size());
+    final int[] decoded = new int[values.length + 1];
+    assertEquals(values.length, list.decode(decoded, 1, list.size()));
+    for(int i = 0 ; i < values.length ; ++i) {
+      assertEquals(values[i], decoded[i + 1]);
+    }
+  }
+
+}